@@ -3,15 +3,23 @@ package com.meteor.mckook;
 import com.meteor.mckook.command.CommandManager;
 import com.meteor.mckook.kook.KookBot;
 import com.meteor.mckook.kook.command.KookCommandManager;
+import com.meteor.mckook.session.LinkSessionManager;
+import com.meteor.mckook.session.VerificationCodeRegistry;
 import com.meteor.mckook.util.message.MessageHandlerManager;
 import com.meteor.mckook.storage.DataManager;
 import com.meteor.mckook.storage.mapper.LinkRepository;
+import com.meteor.mckook.storage.mapper.VerifyCodeRepository;
 import com.meteor.mckook.util.BaseConfig;
+import com.meteor.mckook.util.MainThreadExecutor;
+import com.meteor.mckook.util.resolver.PlayerUuidResolver;
 import com.meteor.mckook.config.Config;
 import lombok.Getter;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.plugin.java.JavaPlugin;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 public final class McKook extends JavaPlugin {
@@ -20,6 +28,28 @@ public final class McKook extends JavaPlugin {
     private KookBot kookBot;
     @Getter
     private LinkRepository linkRepository;
+    @Getter
+    private PlayerUuidResolver uuidResolver;
+    /**
+     * 插件自己的异步执行器 (虚拟线程)，数据库等阻塞操作在这里执行，不占用 Bukkit 的异步任务线程
+     */
+    @Getter
+    private ExecutorService asyncExecutor;
+    /**
+     * 将回调切回服务器主线程
+     */
+    @Getter
+    private MainThreadExecutor mainThreadExecutor;
+    /**
+     * 登录前预取的玩家绑定状态
+     */
+    @Getter
+    private LinkSessionManager linkSessionManager;
+    /**
+     * 绑定验证码，独立于 KookBot，重载机器人时未使用的验证码仍然有效
+     */
+    @Getter
+    private VerificationCodeRegistry verificationCodeRegistry;
     private CommandManager commandManager;
     private KookCommandManager kookCommandManager;
     private Metrics metrics;
@@ -34,6 +64,14 @@ public final class McKook extends JavaPlugin {
         Config.init(this);
         reloadPluginConfig(); // 这会加载 config.yml, BaseConfig, message/*.yml 和 setting.roles
 
+        asyncExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("McKook-Async-", 0).factory());
+        mainThreadExecutor = new MainThreadExecutor(this);
+
+        // 绑定索引加载时会向解析器登记玩家名，需在 DataManager 之前创建
+        uuidResolver = new PlayerUuidResolver(this);
+        getLogger().info("[UUID] 已从 usercache.json 加载 " + uuidResolver.loadUserCache() + " 个玩家名。");
+        getServer().getPluginManager().registerEvents(uuidResolver, this);
+
         DataManager.init(this);
         if (DataManager.getInstance() != null) {
             this.linkRepository = DataManager.getInstance().getLinkRepository();
@@ -42,6 +80,9 @@ public final class McKook extends JavaPlugin {
         if (this.linkRepository == null) {
             getLogger().log(Level.SEVERE, "LinkRepository 未能成功初始化。绑定相关功能将不可用。");
         }
+        setupVerificationCodes();
+        linkSessionManager = new LinkSessionManager(this);
+        getServer().getPluginManager().registerEvents(linkSessionManager, this);
         commandManager = new CommandManager(this);
         PluginCommand mckookCommand = getCommand("mckook");
         Objects.requireNonNull(mckookCommand, "命令 'mckook' 未在 plugin.yml 中定义!");
@@ -81,8 +122,44 @@ public final class McKook extends JavaPlugin {
         });
     }
 
+    /**
+     * 创建验证码登记表，恢复重启前未使用的验证码并定时清理过期记录
+     * 恢复在启动时同步完成 (与绑定索引相同)，之后才注册命令与监听器，新分配的验证码不会与尚未恢复的验证码重复
+     */
+    private void setupVerificationCodes() {
+        VerifyCodeRepository repository = DataManager.getInstance() != null
+                ? DataManager.getInstance().getVerifyCodeRepository() : null;
+        verificationCodeRegistry = new VerificationCodeRegistry(Config.get().getVerifyCodeExpireMinutes(), repository);
+        if (repository == null) {
+            getLogger().warning("验证码存储不可用，未使用的验证码将在重启后失效。");
+            return;
+        }
+        try {
+            int restored = verificationCodeRegistry.restore(repository.loadActive());
+            if (restored > 0) {
+                getLogger().info("已恢复 " + restored + " 个未过期的绑定验证码。");
+            }
+        } catch (RuntimeException e) {
+            getLogger().log(Level.WARNING, "恢复绑定验证码失败，重启前获取的验证码需要重新获取。", e);
+        }
+        long purgeTicks = TimeUnit.MINUTES.toSeconds(Config.get().getVerifyCodePurgeIntervalMinutes()) * 20L;
+        getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+            try {
+                int purged = repository.purgeExpired();
+                if (purged > 0) {
+                    getLogger().fine("已清理 " + purged + " 个过期的绑定验证码。");
+                }
+            } catch (RuntimeException e) {
+                getLogger().log(Level.WARNING, "清理过期的绑定验证码失败: " + e.getMessage(), e);
+            }
+        }, purgeTicks, purgeTicks);
+    }
+
     public void reload() {
         getLogger().info("开始插件重载流程...");
+        if (DataManager.getInstance() != null) {
+            DataManager.getInstance().flushPendingWrites(); // 0. 先写入延迟更新
+        }
         reloadPluginConfig();    // 1. 重载所有配置 (config.yml, message/*.yml, setting.roles)
         reloadKookBot();
         getLogger().info("插件重载流程已启动 (KookBot 和相关系统将异步完成)。");
@@ -182,6 +259,20 @@ public final class McKook extends JavaPlugin {
             }
         }
 
+        if (asyncExecutor != null) {
+            // 等待进行中的数据库操作完成后再关闭数据库
+            asyncExecutor.shutdown();
+            try {
+                if (!asyncExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    getLogger().warning("部分异步任务在 5 秒内未完成，已强制中断。");
+                    asyncExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                asyncExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
         if (DataManager.instance != null) {
             try {
                 DataManager.instance.close();
@@ -190,6 +281,10 @@ public final class McKook extends JavaPlugin {
             }
         }
 
+        if (uuidResolver != null) {
+            uuidResolver.shutdown();
+        }
+
         commandManager = null;
         kookCommandManager = null;
         metrics = null;
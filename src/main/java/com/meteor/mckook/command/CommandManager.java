@@ -32,6 +32,8 @@ public class CommandManager implements CommandExecutor, TabCompleter {
         register(new BindCmd(plugin));
         register(new MessageBridgeCmd(plugin));
         register(new WhitelistCmd(plugin));
+        register(new BackupCmd(plugin));
+        register(new RateLimitCmd(plugin));
         // 注册其他子命令...
     }
 
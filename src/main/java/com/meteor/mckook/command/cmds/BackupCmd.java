@@ -0,0 +1,124 @@
+package com.meteor.mckook.command.cmds;
+
+import com.meteor.mckook.McKook;
+import com.meteor.mckook.command.CommandManager;
+import com.meteor.mckook.command.SubCmd;
+import com.meteor.mckook.storage.DataManager;
+import com.meteor.mckook.storage.backup.BackupResult;
+import com.meteor.mckook.storage.backup.DatabaseBackup;
+import com.meteor.mckook.util.BaseConfig;
+import org.bukkit.command.CommandSender;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+public class BackupCmd extends SubCmd {
+
+    private static final String OPTION_LIST = "list";
+
+    public BackupCmd(McKook plugin) {
+        super(plugin);
+    }
+
+    @Override
+    public String label() {
+        return "backup";
+    }
+
+    @Override
+    public String getPermission() {
+        return "mckook.admin.backup";
+    }
+
+    @Override
+    public boolean playersOnly() {
+        return false;
+    }
+
+    @Override
+    public String usage() {
+        return "/mckook backup [" + OPTION_LIST + "]";
+    }
+
+    @Override
+    public void perform(CommandSender sender, String[] args) {
+        DatabaseBackup backup = DataManager.getInstance() == null ? null : DataManager.getInstance().getDatabaseBackup();
+        if (backup == null) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.backup.not-ready"));
+            return;
+        }
+        if (args.length >= 2) {
+            if (OPTION_LIST.equalsIgnoreCase(args[1])) {
+                sendBackupList(sender, backup);
+            } else {
+                sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.backup.usage"));
+            }
+            return;
+        }
+        if (backup.isRunning()) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.backup.busy"));
+            return;
+        }
+        sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.backup.start"));
+        backup.backupNow().whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                Map<String, String> params = new HashMap<>();
+                params.put("@reason@", String.valueOf(cause.getMessage()));
+                sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.backup.failed"));
+                return;
+            }
+            sendBackupResult(sender, result);
+        }, plugin.getMainThreadExecutor());
+    }
+
+    private void sendBackupResult(CommandSender sender, BackupResult result) {
+        Map<String, String> params = new HashMap<>();
+        params.put("@file@", result.getFile().getFileName().toString());
+        params.put("@size@", String.valueOf(result.getSizeBytes() / 1024));
+        params.put("@elapsed@", String.valueOf(result.getElapsedMillis()));
+        sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.backup.done"));
+        if (result.getRotated() > 0) {
+            Map<String, String> rotatedParams = new HashMap<>();
+            rotatedParams.put("@count@", String.valueOf(result.getRotated()));
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(rotatedParams, "message.backup.rotated"));
+        }
+    }
+
+    private void sendBackupList(CommandSender sender, DatabaseBackup backup) {
+        List<Path> backups = backup.listBackups();
+        if (backups.isEmpty()) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.backup.list-empty"));
+            return;
+        }
+        Map<String, String> params = new HashMap<>();
+        params.put("@count@", String.valueOf(backups.size()));
+        sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.backup.list-header"));
+        for (Path path : backups) {
+            Map<String, String> entry = new HashMap<>();
+            entry.put("@file@", path.getFileName().toString());
+            long size;
+            try {
+                size = Files.size(path) / 1024;
+            } catch (IOException e) {
+                size = 0L;
+            }
+            entry.put("@size@", String.valueOf(size));
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(entry, "message.backup.list-entry"));
+        }
+    }
+
+    @Override
+    public List<String> getTab(CommandSender sender, String[] args) {
+        if (args.length == 2 && args[0].equalsIgnoreCase(label())) {
+            return CommandManager.getSugg(args[1], Collections.singletonList(OPTION_LIST));
+        }
+        return Collections.emptyList();
+    }
+}
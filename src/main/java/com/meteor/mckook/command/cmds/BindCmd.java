@@ -3,13 +3,24 @@ import com.meteor.mckook.kook.service.LinkService;
 
 import com.meteor.mckook.McKook;
 import com.meteor.mckook.command.SubCmd;
+import com.meteor.mckook.storage.DataManager;
+import com.meteor.mckook.storage.mapper.result.UnbindResult;
+import com.meteor.mckook.storage.transfer.BindingTransfer;
+import com.meteor.mckook.storage.transfer.ConflictPolicy;
+import com.meteor.mckook.storage.transfer.TransferReport;
 import com.meteor.mckook.util.BaseConfig;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 public class BindCmd extends SubCmd {
@@ -17,6 +28,10 @@ public class BindCmd extends SubCmd {
     private final String NO_PERMISSION_MESSAGE;
     // 建议的权限节点前缀
     private static final String PERM_BASE = "mckook.command.bind.";
+    /**
+     * 导入导出文件所在的文件夹 (插件目录下)
+     */
+    private static final String TRANSFER_FOLDER = "transfer";
 
     public BindCmd(McKook plugin) {
         super(plugin);
@@ -40,7 +55,7 @@ public class BindCmd extends SubCmd {
 
     @Override
     public String usage() {
-        return ChatColor.translateAlternateColorCodes('&', "&6/mckook bind <add|getplayer|getkook|removeplayer|removekook> [参数...]");
+        return ChatColor.translateAlternateColorCodes('&', "&6/mckook bind <add|getplayer|getkook|removeplayer|removekook|import|export> [参数...]");
     }
 
     @Override
@@ -118,6 +133,25 @@ public class BindCmd extends SubCmd {
                 String kookIdToRemove = args[2];
                 handleRemoveBindingByKookId(sender, kookIdToRemove);
                 break;
+            case "import":
+                if (args.length < 3) {
+                    sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.bind.import.usage"));
+                    return;
+                }
+                ConflictPolicy policy = args.length >= 4 ? ConflictPolicy.parse(args[3]) : ConflictPolicy.SKIP;
+                if (policy == null) {
+                    sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.bind.import.usage"));
+                    return;
+                }
+                handleImport(sender, args[2], policy);
+                break;
+            case "export":
+                if (args.length < 3) {
+                    sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.bind.export.usage"));
+                    return;
+                }
+                handleExport(sender, args[2]);
+                break;
             default:
                 Map<String, String> params = new HashMap<>();
                 params.put("@action@", args[1]);
@@ -161,20 +195,14 @@ public class BindCmd extends SubCmd {
         params.put("@kook-id@", kookId);
         sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.add.start"));
 
-        currentLinkService.linkRepository.bind(
-                playerName,
-                kookId,
-                successMessage -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage(ChatColor.GREEN + successMessage);
-                    });
-                },
-                errorMessage -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage(ChatColor.YELLOW + errorMessage);
-                    });
-                }
-        );
+        currentLinkService.linkRepository.async().bind(playerName, kookId)
+                .whenCompleteAsync((result, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(ChatColor.YELLOW + "绑定时发生内部错误，请联系管理员。");
+                    } else {
+                        sender.sendMessage((result.isSuccess() ? ChatColor.GREEN : ChatColor.YELLOW) + result.getMessage());
+                    }
+                }, plugin.getMainThreadExecutor());
     }
 
     private void handleGetKookIdByPlayer(CommandSender sender, String playerName) {
@@ -188,20 +216,17 @@ public class BindCmd extends SubCmd {
         params.put("@player@", playerName);
         sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.getplayer.start"));
 
-        currentLinkService.linkRepository.bindgetKookIdByPlayerName(
-                playerName,
-                kookId -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        params.put("@kook-id@", kookId);
+        currentLinkService.linkRepository.async().getKookIdByPlayerName(playerName)
+                .whenCompleteAsync((result, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(ChatColor.YELLOW + "查询 Kook ID 时发生内部错误，请联系管理员。");
+                    } else if (result.isFound()) {
+                        params.put("@kook-id@", result.getValue());
                         sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.getplayer.success"));
-                    });
-                },
-                errorMessage -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage(ChatColor.YELLOW + errorMessage);
-                    });
-                }
-        );
+                    } else {
+                        sender.sendMessage(ChatColor.YELLOW + result.getMessage());
+                    }
+                }, plugin.getMainThreadExecutor());
     }
 
     private void handleGetPlayerByKookId(CommandSender sender, String kookId) {
@@ -215,20 +240,17 @@ public class BindCmd extends SubCmd {
         params.put("@kook-id@", kookId);
         sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.getkook.start"));
 
-        currentLinkService.linkRepository.bindgetPlayerNameByKookId(
-                kookId,
-                playerName -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        params.put("@player@", playerName);
+        currentLinkService.linkRepository.async().getPlayerNameByKookId(kookId)
+                .whenCompleteAsync((result, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(ChatColor.YELLOW + "查询玩家名时发生内部错误，请联系管理员。");
+                    } else if (result.isFound()) {
+                        params.put("@player@", result.getValue());
                         sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.getkook.success"));
-                    });
-                },
-                errorMessage -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage(ChatColor.YELLOW + errorMessage);
-                    });
-                }
-        );
+                    } else {
+                        sender.sendMessage(ChatColor.YELLOW + result.getMessage());
+                    }
+                }, plugin.getMainThreadExecutor());
     }
 
     private void handleRemoveBindingByPlayer(CommandSender sender, String playerName) {
@@ -242,19 +264,7 @@ public class BindCmd extends SubCmd {
         params.put("@player@", playerName);
         sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.removeplayer.start"));
 
-        currentLinkService.linkRepository.bindremoveByplayerName(
-                playerName,
-                successMessage -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage(ChatColor.GREEN + successMessage);
-                    });
-                },
-                errorMessage -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage(ChatColor.YELLOW + errorMessage);
-                    });
-                }
-        );
+        sendUnbindResult(sender, currentLinkService.linkRepository.async().unbindByPlayerName(playerName));
     }
 
     private void handleRemoveBindingByKookId(CommandSender sender, String kookId) {
@@ -268,19 +278,117 @@ public class BindCmd extends SubCmd {
         params.put("@kook-id@", kookId);
         sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.removekook.start"));
 
-        currentLinkService.linkRepository.bindremoveByKookId(
-                kookId,
-                successMessage -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage(ChatColor.GREEN + successMessage);
-                    });
-                },
-                errorMessage -> {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage(ChatColor.YELLOW + errorMessage);
-                    });
-                }
-        );
+        sendUnbindResult(sender, currentLinkService.linkRepository.async().unbindByKookId(kookId));
+    }
+
+    private void sendUnbindResult(CommandSender sender, CompletableFuture<UnbindResult> future) {
+        future.whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                sender.sendMessage(ChatColor.YELLOW + "解绑时发生内部错误，请联系管理员。");
+            } else {
+                sender.sendMessage((result.isSuccess() ? ChatColor.GREEN : ChatColor.YELLOW) + result.getMessage());
+            }
+        }, plugin.getMainThreadExecutor());
+    }
+
+    private void handleImport(CommandSender sender, String fileName, ConflictPolicy policy) {
+        BindingTransfer transfer = getBindingTransfer(sender);
+        if (transfer == null) {
+            return;
+        }
+        Map<String, String> params = new HashMap<>();
+        params.put("@file@", fileName);
+        Path file = resolveTransferFile(fileName);
+        if (file == null) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.transfer.invalid-file"));
+            return;
+        }
+        if (!Files.isRegularFile(file)) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.import.file-not-found"));
+            return;
+        }
+        params.put("@policy@", policy.name().toLowerCase());
+        sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.import.start"));
+
+        sendTransferResult(sender, transfer.importFrom(file, policy, progress -> sendTransferReport(sender, progress, "message.bind.import.progress")),
+                "message.bind.import.done");
+    }
+
+    private void handleExport(CommandSender sender, String fileName) {
+        BindingTransfer transfer = getBindingTransfer(sender);
+        if (transfer == null) {
+            return;
+        }
+        Map<String, String> params = new HashMap<>();
+        params.put("@file@", fileName);
+        Path file = resolveTransferFile(fileName);
+        if (file == null) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.transfer.invalid-file"));
+            return;
+        }
+        sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.export.start"));
+
+        sendTransferResult(sender, transfer.exportTo(file, progress -> sendTransferReport(sender, progress, "message.bind.export.progress")),
+                "message.bind.export.done");
+    }
+
+    private BindingTransfer getBindingTransfer(CommandSender sender) {
+        BindingTransfer transfer = DataManager.getInstance() == null ? null : DataManager.getInstance().getBindingTransfer();
+        if (transfer == null) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.bind.transfer.not-ready"));
+            return null;
+        }
+        if (transfer.isRunning()) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.bind.transfer.busy"));
+            return null;
+        }
+        return transfer;
+    }
+
+    /**
+     * 只允许使用 transfer 文件夹中的 .csv / .jsonl 文件
+     * @return 文件路径，文件名无效时为 null
+     */
+    private Path resolveTransferFile(String fileName) {
+        Path folder = new File(plugin.getDataFolder(), TRANSFER_FOLDER).toPath().toAbsolutePath().normalize();
+        Path file = folder.resolve(fileName).normalize();
+        if (!file.startsWith(folder) || file.equals(folder) || BindingTransfer.Format.of(file) == null) {
+            return null;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+        } catch (IOException e) {
+            plugin.getLogger().warning("创建导入导出文件夹失败: " + e.getMessage());
+        }
+        return file;
+    }
+
+    private void sendTransferReport(CommandSender sender, TransferReport report, String path) {
+        Map<String, String> params = new HashMap<>();
+        params.put("@processed@", String.valueOf(report.getProcessed()));
+        params.put("@written@", String.valueOf(report.getWritten()));
+        params.put("@skipped@", String.valueOf(report.getSkipped()));
+        params.put("@invalid@", String.valueOf(report.getInvalid()));
+        params.put("@elapsed@", String.valueOf(report.getElapsedMillis()));
+        plugin.getMainThreadExecutor().execute(() -> sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, path)));
+    }
+
+    private void sendTransferResult(CommandSender sender, CompletableFuture<TransferReport> future, String donePath) {
+        future.whenCompleteAsync((report, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                Map<String, String> params = new HashMap<>();
+                params.put("@reason@", String.valueOf(cause.getMessage()));
+                sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.transfer.failed"));
+                return;
+            }
+            sendTransferReport(sender, report, donePath);
+            if (report.getReportFile() != null && report.getSkipped() + report.getInvalid() > 0) {
+                Map<String, String> params = new HashMap<>();
+                params.put("@report@", report.getReportFile().getFileName().toString());
+                sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.bind.import.report"));
+            }
+        }, plugin.getMainThreadExecutor());
     }
 
     @Override
@@ -288,7 +396,7 @@ public class BindCmd extends SubCmd {
         String currentArg = args[args.length - 1].toLowerCase();
 
         if (args.length == 2) {
-            List<String> actions = Arrays.asList("add", "getplayer", "getkook", "removeplayer", "removekook");
+            List<String> actions = Arrays.asList("add", "getplayer", "getkook", "removeplayer", "removekook", "import", "export");
             return actions.stream()
                     .filter(action -> hasSubPerm(sender, action))
                     .filter(action -> action.toLowerCase().startsWith(currentArg))
@@ -312,6 +420,25 @@ public class BindCmd extends SubCmd {
                                 .filter(name -> name.toLowerCase().startsWith(currentArg))
                                 .forEach(suggestions::add);
                         break;
+                    case "import":
+                        String[] files = new File(plugin.getDataFolder(), TRANSFER_FOLDER).list();
+                        if (files != null) {
+                            Arrays.stream(files)
+                                    .filter(name -> BindingTransfer.Format.of(Path.of(name)) != null)
+                                    .filter(name -> name.toLowerCase().startsWith(currentArg))
+                                    .forEach(suggestions::add);
+                        }
+                        break;
+                }
+                return suggestions;
+            }
+            if (args.length == 4 && action.equals("import")) {
+                List<String> suggestions = new ArrayList<>();
+                for (ConflictPolicy policy : ConflictPolicy.values()) {
+                    String name = policy.name().toLowerCase();
+                    if (name.startsWith(currentArg)) {
+                        suggestions.add(name);
+                    }
                 }
                 return suggestions;
             }
@@ -1,10 +1,10 @@
 package com.meteor.mckook.command.cmds;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.meteor.mckook.McKook;
 import com.meteor.mckook.command.SubCmd;
 import com.meteor.mckook.kook.service.LinkService;
+import com.meteor.mckook.model.link.LinkCache;
+import com.meteor.mckook.session.VerificationCodeRegistry;
 import com.meteor.mckook.util.BaseConfig;
 import net.md_5.bungee.api.chat.*;
 import org.bukkit.ChatColor;
@@ -15,26 +15,18 @@ import net.md_5.bungee.api.chat.hover.content.Text; // 更推荐使用新的 Hov
 
 // import java.awt.*; // 未使用，可以移除
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 
 public class LinkCmd extends SubCmd {
 
     // linkService 可能会在 KookBot 未就绪时为 null
     private LinkService linkService;
 
-    private final Cache<String,String> cache; // 设为 final
-
 
     public LinkCmd(McKook plugin) {
         super(plugin);
 
         // 不在此处直接初始化 linkService，因为它依赖的 KookBot 可能是异步加载的
         // this.linkService = plugin.getKookBot().getService(LinkService.class); // <--- 移除或注释掉
-
-        this.cache = Caffeine.newBuilder()
-                .expireAfterWrite(5, TimeUnit.MINUTES)
-                .maximumSize(500)
-                .build();
     }
 
     // 延迟初始化或在使用时获取 LinkService
@@ -88,25 +80,25 @@ public class LinkCmd extends SubCmd {
             player.sendMessage(ChatColor.RED + "绑定服务当前不可用，Kook机器人可能未连接。请稍后再试或联系管理员。");
             return;
         }
-        if(currentLinkService.isLinked(player.getName())){
+        if(currentLinkService.isLinked(player.getUniqueId())){
             // 假设 getMessage 返回的是处理过的字符串
             player.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null,"message.link.already-link"));
             return;
         }
 
         String playerName = player.getName();
+        VerificationCodeRegistry registry = plugin.getVerificationCodeRegistry();
 
         // 存在未过期验证码
-        String existingCode = cache.getIfPresent(playerName); // 只获取一次
-        if(existingCode != null){
+        LinkCache existing = registry.getByPlayer(player.getUniqueId());
+        if(existing != null){
             Map<String,String> params = new HashMap<>(); // 仅在需要时创建
-            params.put("@verify-code@", existingCode);
+            params.put("@verify-code@", existing.getVerifyCode());
             player.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params,"message.link.exist-verify"));
             return;
         }
 
-        String verifyCode = currentLinkService.buildVerifyCode(playerName);
-        cache.put(playerName, verifyCode);
+        String verifyCode = registry.issue(player.getUniqueId(), playerName).getVerifyCode();
 
         // 从配置中读取模板
         List<String> template = BaseConfig.instance.getMessageBox()
@@ -0,0 +1,83 @@
+package com.meteor.mckook.command.cmds;
+
+import com.meteor.mckook.McKook;
+import com.meteor.mckook.command.SubCmd;
+import com.meteor.mckook.kook.KookBot;
+import com.meteor.mckook.kook.dispatch.OutboundDispatcher;
+import com.meteor.mckook.kook.ratelimit.RateLimitInterceptor;
+import com.meteor.mckook.util.BaseConfig;
+import org.bukkit.command.CommandSender;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查看 KOOK 接口限速与消息发送的统计，用于评估发往 KOOK 的流量
+ */
+public class RateLimitCmd extends SubCmd {
+
+    public RateLimitCmd(McKook plugin) {
+        super(plugin);
+    }
+
+    @Override
+    public String label() {
+        return "ratelimit";
+    }
+
+    @Override
+    public String getPermission() {
+        return "mckook.admin.ratelimit";
+    }
+
+    @Override
+    public boolean playersOnly() {
+        return false;
+    }
+
+    @Override
+    public String usage() {
+        return "/mckook ratelimit";
+    }
+
+    @Override
+    public void perform(CommandSender sender, String[] args) {
+        KookBot kookBot = plugin.getKookBot();
+        if (kookBot == null || kookBot.isInvalid()) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.ratelimit.not-ready"));
+            return;
+        }
+        OutboundDispatcher dispatcher = kookBot.getOutboundDispatcher();
+        if (dispatcher != null) {
+            Map<String, String> params = new HashMap<>();
+            params.put("@submitted@", String.valueOf(dispatcher.getSubmittedCount()));
+            params.put("@requests@", String.valueOf(dispatcher.getRequestCount()));
+            params.put("@dropped@", String.valueOf(dispatcher.getDroppedCount()));
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.ratelimit.outbound"));
+        }
+        RateLimitInterceptor rateLimiter = kookBot.getRateLimiter();
+        if (rateLimiter == null) {
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(null, "message.ratelimit.disabled"));
+            return;
+        }
+        Map<String, String> params = new HashMap<>();
+        params.put("@requests@", String.valueOf(rateLimiter.getRequestCount()));
+        params.put("@throttled@", String.valueOf(rateLimiter.getThrottledCount()));
+        params.put("@throttled-ms@", String.valueOf(rateLimiter.getThrottledMillis()));
+        params.put("@too-many@", String.valueOf(rateLimiter.getTooManyRequestsCount()));
+        params.put("@retries@", String.valueOf(rateLimiter.getRetryCount()));
+        params.put("@rejected@", String.valueOf(rateLimiter.getRejectedCount()));
+        sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(params, "message.ratelimit.summary"));
+
+        List<RateLimitInterceptor.BucketSnapshot> buckets = rateLimiter.snapshotBuckets();
+        for (RateLimitInterceptor.BucketSnapshot bucket : buckets) {
+            Map<String, String> entry = new HashMap<>();
+            entry.put("@bucket@", bucket.getName());
+            entry.put("@remaining@", String.valueOf(bucket.getRemaining()));
+            entry.put("@limit@", String.valueOf(bucket.getLimit()));
+            entry.put("@reset-ms@", String.valueOf(bucket.getResetInMillis()));
+            sender.sendMessage(BaseConfig.instance.getMessageBox().getMessage(entry, "message.ratelimit.bucket"));
+        }
+    }
+}
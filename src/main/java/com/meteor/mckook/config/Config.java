@@ -1,6 +1,7 @@
 package com.meteor.mckook.config;
 
 import com.meteor.mckook.McKook;
+import com.meteor.mckook.util.resolver.PlayerUuidResolver;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 
@@ -10,7 +11,10 @@ public class Config {
     private final McKook plugin;
     private FileConfiguration config;
     private static Config instance;
-    private Map<String, Integer> configuredRoles = new HashMap<>();
+    /**
+     * 每次加载配置时替换为新的不可修改 Map，使用方可按实例判断配置是否重新加载
+     */
+    private volatile Map<String, Integer> configuredRoles = Collections.emptyMap();
 
     private Config(McKook plugin) {
         this.plugin = plugin;
@@ -42,13 +46,10 @@ public class Config {
 
     private void loadRoleConfigurations() {
         plugin.getLogger().info("正在加载角色配置 (setting.roles)...");
-        this.configuredRoles.clear();
         Map<String, Integer> roles = getRoles();
+        this.configuredRoles = Collections.unmodifiableMap(roles);
         if (!roles.isEmpty()) {
-            roles.forEach((name, id) -> {
-                this.configuredRoles.put(name, id);
-                plugin.getLogger().info("已加载角色: " + name + " -> ID: " + id);
-            });
+            roles.forEach((name, id) -> plugin.getLogger().info("已加载角色: " + name + " -> ID: " + id));
         } else {
             plugin.getLogger().info("'setting.roles' 配置节未找到，无自定义角色信息加载。");
         }
@@ -56,13 +57,61 @@ public class Config {
     }
 
     public Map<String, Integer> getConfiguredRoles() {
-        return Collections.unmodifiableMap(this.configuredRoles);
+        return this.configuredRoles;
     }
 
     public String getBotToken() {
         return config.getString("kook.bot-token");
     }
 
+    public boolean isKookRateLimitEnabled() {
+        return config.getBoolean("kook.rate-limit.enabled", true);
+    }
+
+    public long getKookRateLimitMaxWaitMillis() {
+        return Math.max(0L, config.getLong("kook.rate-limit.max-wait-ms", 10000L));
+    }
+
+    public int getKookRateLimitMaxRetries() {
+        return Math.max(0, config.getInt("kook.rate-limit.max-retries", 3));
+    }
+
+    public long getKookCacheGuildTtlSeconds() {
+        return Math.max(1L, config.getLong("kook.cache.guild-ttl-seconds", 600L));
+    }
+
+    public long getKookCacheChannelTtlSeconds() {
+        return Math.max(1L, config.getLong("kook.cache.channel-ttl-seconds", 600L));
+    }
+
+    public long getKookCacheUserTtlSeconds() {
+        return Math.max(1L, config.getLong("kook.cache.user-ttl-seconds", 300L));
+    }
+
+    public long getKookCacheRoleRefreshSeconds() {
+        return Math.max(1L, config.getLong("kook.cache.role-refresh-seconds", 60L));
+    }
+
+    public long getKookCacheRoleTtlSeconds() {
+        return Math.max(1L, config.getLong("kook.cache.role-ttl-seconds", 1800L));
+    }
+
+    public long getKookCacheMaxSize() {
+        return Math.max(1L, config.getLong("kook.cache.max-size", 1000L));
+    }
+
+    public long getKookOutboundCoalesceWindowMillis() {
+        return Math.max(0L, config.getLong("kook.outbound.coalesce-window-ms", 300L));
+    }
+
+    public int getKookOutboundMaxBatchChars() {
+        return Math.max(1, config.getInt("kook.outbound.max-batch-chars", 2000));
+    }
+
+    public int getKookOutboundMaxQueuedPerChannel() {
+        return Math.max(1, config.getInt("kook.outbound.max-queued-per-channel", 200));
+    }
+
     public String getGuildId() {
         return config.getString("setting.guild");
     }
@@ -89,7 +138,7 @@ public class Config {
     }
 
     public Map<String, Integer> getRoles() {
-        Map<String, Integer> roles = new HashMap<>();
+        Map<String, Integer> roles = new LinkedHashMap<>();
         ConfigurationSection section = config.getConfigurationSection("setting.roles");
         if (section != null) {
             for (String roleName : section.getKeys(false)) {
@@ -134,6 +183,10 @@ public class Config {
         return config.getBoolean("setting.whitelist.check-range.join", false);
     }
 
+    public boolean isWhitelistPreLoginGateEnabled() {
+        return config.getBoolean("setting.whitelist.check-range.pre-login", false);
+    }
+
     public boolean isWhitelistActionCheckEnabled() {
         return config.getBoolean("setting.whitelist.check-range.action", false);
     }
@@ -150,6 +203,163 @@ public class Config {
         return config.getInt("setting.whitelist.title-reminder.interval-seconds", 30);
     }
 
+    public long getVerifyCodeExpireMinutes() {
+        return Math.max(1L, config.getLong("setting.verify-code.expire-minutes", 5L));
+    }
+
+    public long getVerifyCodePurgeIntervalMinutes() {
+        return Math.max(1L, config.getLong("setting.verify-code.purge-interval-minutes", 10L));
+    }
+
+    public PlayerUuidResolver.Mode getUuidResolverMode() {
+        String mode = config.getString("setting.uuid-resolver.mode", "auto");
+        try {
+            return PlayerUuidResolver.Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("setting.uuid-resolver.mode 配置无效: " + mode + "，使用 auto");
+            return PlayerUuidResolver.Mode.AUTO;
+        }
+    }
+
+    public int getUuidResolverRemoteThreads() {
+        return Math.max(1, config.getInt("setting.uuid-resolver.remote-threads", 2));
+    }
+
+    public int getUuidResolverRemoteQueueSize() {
+        return Math.max(1, config.getInt("setting.uuid-resolver.remote-queue-size", 64));
+    }
+
+    public int getUuidResolverTimeoutMillis() {
+        return Math.max(100, config.getInt("setting.uuid-resolver.timeout-ms", 5000));
+    }
+
+    public long getUuidResolverNegativeCacheMinutes() {
+        return Math.max(1L, config.getLong("setting.uuid-resolver.not-found-cache-minutes", 10L));
+    }
+
+    public int getStorageReaderPoolSize() {
+        return config.getInt("storage.pool.readers", Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public long getStorageAcquireTimeoutMillis() {
+        return config.getLong("storage.pool.acquire-timeout-ms", 5000L);
+    }
+
+    public int getStorageMaxWaiting() {
+        return config.getInt("storage.pool.max-waiting", 64);
+    }
+
+    public int getStorageQueryTimeoutSeconds() {
+        return config.getInt("storage.pool.query-timeout-seconds", 10);
+    }
+
+    public int getStorageBusyTimeoutMillis() {
+        return config.getInt("storage.pool.busy-timeout-ms", 5000);
+    }
+
+    public int getStorageStatementCacheSize() {
+        return config.getInt("storage.pool.statement-cache-size", 64);
+    }
+
+    public int getStorageFetchSize() {
+        return config.getInt("storage.pool.fetch-size", 500);
+    }
+
+    public String getStorageSqliteJournalMode() {
+        return getChoice("storage.sqlite.journal-mode", "WAL", "WAL", "DELETE", "TRUNCATE", "PERSIST");
+    }
+
+    public String getStorageSqliteSynchronous() {
+        return getChoice("storage.sqlite.synchronous", "NORMAL", "OFF", "NORMAL", "FULL", "EXTRA");
+    }
+
+    public long getStorageSqliteMmapSizeMb() {
+        return Math.max(0L, config.getLong("storage.sqlite.mmap-size-mb", 64L));
+    }
+
+    public int getStorageSqliteCacheSizeKb() {
+        return Math.max(0, config.getInt("storage.sqlite.cache-size-kb", 8192));
+    }
+
+    public int getStorageSqliteWalAutoCheckpointPages() {
+        return Math.max(0, config.getInt("storage.sqlite.wal-autocheckpoint-pages", 1000));
+    }
+
+    public long getStorageSqliteCheckpointIntervalMinutes() {
+        return Math.max(0L, config.getLong("storage.sqlite.checkpoint.interval-minutes", 5L));
+    }
+
+    public int getStorageSqliteCheckpointTruncateMaxPlayers() {
+        return config.getInt("storage.sqlite.checkpoint.truncate-max-players", 0);
+    }
+
+    public long getStorageWriteBehindFlushIntervalMillis() {
+        return config.getLong("storage.write-behind.flush-interval-ms", 1000L);
+    }
+
+    public int getStorageWriteBehindBatchSize() {
+        return config.getInt("storage.write-behind.batch-size", 200);
+    }
+
+    public long getStorageProfileCacheSize() {
+        return Math.max(1L, config.getLong("storage.cache.profile.max-size", 5000L));
+    }
+
+    public long getStorageProfileCacheExpireMinutes() {
+        return Math.max(1L, config.getLong("storage.cache.profile.expire-minutes", 30L));
+    }
+
+    public long getStorageProfileCacheRefreshMinutes() {
+        return Math.max(1L, config.getLong("storage.cache.profile.refresh-minutes", 5L));
+    }
+
+    public int getStorageUnlinkedCacheSeconds() {
+        return config.getInt("storage.cache.unlinked-ttl-seconds", 60);
+    }
+
+    public int getStorageTransferBatchSize() {
+        return Math.max(1, config.getInt("storage.transfer.batch-size", 1000));
+    }
+
+    public boolean isStorageBackupEnabled() {
+        return config.getBoolean("storage.backup.enabled", true);
+    }
+
+    public long getStorageBackupIntervalMinutes() {
+        return Math.max(0L, config.getLong("storage.backup.interval-minutes", 360L));
+    }
+
+    public int getStorageBackupKeep() {
+        return Math.max(1, config.getInt("storage.backup.keep", 7));
+    }
+
+    public int getStorageBackupPagesPerStep() {
+        return Math.max(1, config.getInt("storage.backup.pages-per-step", 64));
+    }
+
+    public long getStorageBackupStepPauseMillis() {
+        return Math.max(0L, config.getLong("storage.backup.step-pause-ms", 10L));
+    }
+
+    public int getStorageBackupMaxRestarts() {
+        return Math.max(0, config.getInt("storage.backup.max-restarts", 3));
+    }
+
+    /**
+     * 读取只能取固定几个值之一的配置项 (不区分大小写)，无效时使用默认值
+     */
+    private String getChoice(String path, String def, String... choices) {
+        String value = config.getString(path, def);
+        String normalized = value == null ? def : value.trim().toUpperCase(Locale.ROOT);
+        for (String choice : choices) {
+            if (choice.equals(normalized)) {
+                return choice;
+            }
+        }
+        plugin.getLogger().warning(path + " 配置无效: " + value + "，使用 " + def);
+        return def;
+    }
+
     public void set(String path, Object value) {
         config.set(path, value);
     }
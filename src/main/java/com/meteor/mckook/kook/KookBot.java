@@ -2,9 +2,12 @@ package com.meteor.mckook.kook;
 
 
 import com.meteor.mckook.McKook;
+import com.meteor.mckook.kook.cache.KookEntityCache;
+import com.meteor.mckook.kook.dispatch.OutboundDispatcher;
+import com.meteor.mckook.kook.permission.RolePermissionEvaluator;
+import com.meteor.mckook.kook.ratelimit.RateLimitInterceptor;
 import com.meteor.mckook.kook.service.LinkService;
 import com.meteor.mckook.config.Config;
-import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import snw.jkook.HttpAPI;
 import snw.jkook.config.file.YamlConfiguration;
@@ -15,13 +18,25 @@ import snw.jkook.event.Listener;
 import snw.jkook.message.component.BaseComponent;
 import snw.kookbc.impl.CoreImpl;
 import snw.kookbc.impl.KBCClient;
+import snw.kookbc.impl.network.exceptions.BadResponseException;
 
 
 import java.io.File;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level; // Import Level for logging
 
 public class KookBot {
@@ -33,12 +48,68 @@ public class KookBot {
     private boolean invalid;
 
     /**
-     * 使用频道
+     * 后台重试解析频道的最短与最长间隔 (秒)
      */
-    private Map<String,Channel> channelMap;
+    private static final long CHANNEL_RETRY_MIN_SECONDS = 5L;
+    private static final long CHANNEL_RETRY_MAX_SECONDS = 300L;
+    /**
+     * 首次使用时解析频道最多等待的时间 (秒)
+     */
+    private static final long CHANNEL_LAZY_TIMEOUT_SECONDS = 10L;
+    /**
+     * 频道解析失败后最多重试的次数
+     */
+    private static final int CHANNEL_MAX_RETRIES = 8;
+
+    /**
+     * 使用频道 (已解析成功的)，不可修改的快照，解析出新的频道时整体替换
+     */
+    private volatile Map<String,Channel> channelMap = Collections.emptyMap();
+
+    /**
+     * 配置中的频道 名称 -> ID
+     */
+    private Map<String, String> channelIds = Collections.emptyMap();
+
+    /**
+     * 正在解析的频道，同一频道同时只发起一次请求
+     */
+    private final Map<String, CompletableFuture<Channel>> pendingChannels = new ConcurrentHashMap<>();
+
+    /**
+     * 解析失败的频道 (后台重试中或已放弃)，使用时不再当场解析
+     */
+    private final Set<String> unresolvedChannels = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closed;
 
     private Map<Class<? extends KookService>,KookService> kookServiceMap;
 
+    /**
+     * 发往频道的消息按频道排队、合并后发送
+     */
+    private OutboundDispatcher outboundDispatcher;
+
+    /**
+     * KOOK 接口限速，未启用或安装失败时为 null
+     */
+    private RateLimitInterceptor rateLimiter;
+
+    /**
+     * 服务器/频道/用户信息缓存
+     */
+    private KookEntityCache entityCache;
+
+    /**
+     * KOOK 命令的角色权限判断
+     */
+    private RolePermissionEvaluator roleEvaluator;
+
+    /**
+     * 机器人自身使用的监听器，注销全部监听器 (重载消息) 后重新注册
+     */
+    private final List<Listener> internalListeners = new ArrayList<>();
+
     public KookBot(McKook plugin){
         this.plugin = plugin;
 
@@ -51,24 +122,16 @@ public class KookBot {
                     new File(plugin.getDataFolder(),"plugins"),
                     Config.get().getBotToken()
             );
+            installRateLimiter();
             kbcClient.start();
             this.guild = Config.get().getGuildId();
-            channelMap = new HashMap<>();
+            Map<String, String> ids = new LinkedHashMap<>();
             ConfigurationSection channelConfig = Config.get().getChannelSection();
             if (channelConfig != null) { // Add null check for channelConfig
                 channelConfig.getKeys(false).forEach(name -> {
                     String channelId = channelConfig.getString(name);
                     if (channelId != null && !channelId.isEmpty()) {
-                        try {
-                            Channel channel = httpAPI().getChannel(channelId);
-                            if (channel != null) {
-                                channelMap.put(name, channel);
-                            } else {
-                                plugin.getLogger().warning("[KookBot] Failed to get channel '" + name + "' with ID: " + channelId + ". It might be invalid or inaccessible.");
-                            }
-                        } catch (Exception ex) {
-                            plugin.getLogger().log(Level.WARNING, "[KookBot] Error fetching channel '" + name + "' with ID: " + channelId, ex);
-                        }
+                        ids.put(name, channelId);
                     } else {
                         plugin.getLogger().warning("[KookBot] Channel ID for '" + name + "' is null or empty in config.");
                     }
@@ -76,19 +139,224 @@ public class KookBot {
             } else {
                 plugin.getLogger().warning("[KookBot] 'setting.channel' configuration section not found.");
             }
+            this.channelIds = Collections.unmodifiableMap(ids);
             plugin.getLogger().info("已连接kook bot");
         } catch (Exception e) {
             invalid = true;
             plugin.getLogger().log(Level.SEVERE, "KookBot 初始化失败 (可能是token错误或网络问题)，插件相关功能将不可用。检查配置正确后使用 /mkook reload 重载", e);
         }
 
+        Config config = Config.get();
+        this.entityCache = new KookEntityCache(this::httpAPI, plugin.getAsyncExecutor(), plugin.getLogger(),
+                config.getKookCacheGuildTtlSeconds(), config.getKookCacheChannelTtlSeconds(),
+                config.getKookCacheUserTtlSeconds(), config.getKookCacheMaxSize());
+        this.roleEvaluator = new RolePermissionEvaluator(() -> Config.get().getConfiguredRoles(),
+                entityCache::getUser, this::getGuild, plugin.getAsyncExecutor(), plugin.getLogger(),
+                config.getKookCacheRoleRefreshSeconds(), config.getKookCacheRoleTtlSeconds(), config.getKookCacheMaxSize());
+        this.outboundDispatcher = new OutboundDispatcher(plugin.getAsyncExecutor(), plugin.getLogger(),
+                this::getChannel,
+                config.getKookOutboundCoalesceWindowMillis(), config.getKookOutboundMaxBatchChars(),
+                config.getKookOutboundMaxQueuedPerChannel());
+
         this.registerService();
 
+        if (!invalid) {
+            internalListeners.add(entityCache);
+            internalListeners.add(roleEvaluator);
+            internalListeners.forEach(this::registerKookListener);
+            resolveChannels();
+        }
+    }
+
+    /**
+     * 并行解析全部配置的频道，不阻塞机器人启动；失败的频道在后台按退避间隔重试，重试期间发往该频道的消息直接丢弃
+     */
+    private void resolveChannels() {
+        if (channelIds.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        List<CompletableFuture<Channel>> futures = new ArrayList<>();
+        channelIds.keySet().forEach(name -> futures.add(resolveChannel(name).handle((channel, error) -> {
+            if (channel == null) {
+                handleUnresolvedChannel(name, unwrap(error), 0);
+            }
+            return channel;
+        })));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((ignored, error) ->
+                plugin.getLogger().info("[KookBot] 频道解析完成: " + channelMap.size() + "/" + channelIds.size()
+                        + " 个, 耗时 " + (System.currentTimeMillis() - startTime) + " ms"));
+    }
+
+    /**
+     * 发起一次频道解析，已有同一频道的解析在进行时复用它
+     * @return 解析结果，频道不存在时为 null
+     */
+    private CompletableFuture<Channel> resolveChannel(String name) {
+        CompletableFuture<Channel> future = new CompletableFuture<>();
+        CompletableFuture<Channel> existing = pendingChannels.putIfAbsent(name, future);
+        if (existing != null) {
+            return existing;
+        }
+        entityCache.loadChannel(channelIds.get(name)).whenComplete((channel, error) -> {
+            if (channel != null) {
+                publishChannel(name, channel);
+                unresolvedChannels.remove(name);
+            } else {
+                // 先标记再移除进行中的解析，之后的 getChannel 不会再发起请求
+                unresolvedChannels.add(name);
+            }
+            pendingChannels.remove(name, future);
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(channel);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 频道解析失败: 频道不存在或无权访问时不再重试，其他错误按退避间隔重试，超过次数后放弃；每种结果只记录一次日志
+     * @param attempt 已经重试的次数
+     */
+    private void handleUnresolvedChannel(String name, Throwable error, int attempt) {
+        unresolvedChannels.add(name);
+        String channel = "频道 '" + name + "' (ID: " + channelIds.get(name) + ")";
+        if (isChannelNotFound(error)) {
+            plugin.getLogger().warning("[KookBot] " + channel + " 不存在或机器人无权访问"
+                    + (error != null ? ": " + error.getMessage() : "") + "，不再重试。请检查配置后使用 /mckook reload 重载。");
+            return;
+        }
+        if (attempt >= CHANNEL_MAX_RETRIES) {
+            plugin.getLogger().warning("[KookBot] " + channel + " 重试 " + attempt + " 次后仍解析失败"
+                    + (error != null ? ": " + error.getMessage() : "") + "，不再重试。请检查网络后使用 /mckook reload 重载。");
+            return;
+        }
+        if (attempt == 0) {
+            plugin.getLogger().warning("[KookBot] 解析" + channel + " 失败"
+                    + (error != null ? ": " + error.getMessage() : "") + "，将在后台重试。");
+        }
+        long delaySeconds = Math.min(CHANNEL_RETRY_MIN_SECONDS << Math.min(attempt, 16), CHANNEL_RETRY_MAX_SECONDS);
+        try {
+            CompletableFuture.delayedExecutor(delaySeconds, TimeUnit.SECONDS, plugin.getAsyncExecutor()).execute(() -> {
+                if (closed || invalid || channelMap.containsKey(name)) {
+                    return;
+                }
+                resolveChannel(name).whenComplete((resolved, retryError) -> {
+                    if (resolved != null) {
+                        plugin.getLogger().info("[KookBot] " + channel + " 已在重试后解析成功。");
+                    } else {
+                        handleUnresolvedChannel(name, unwrap(retryError), attempt + 1);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException ignored) {
+            // 插件正在关闭
+        }
+    }
+
+    /**
+     * 接口返回空结果，或 KOOK 返回的错误码为 403/404 类 (无权访问 / 不存在) 时，重试也不会成功
+     * 只按错误码判断，不解析错误信息文本
+     */
+    private static boolean isChannelNotFound(Throwable error) {
+        if (error == null) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BadResponseException && isDefinitiveCode(((BadResponseException) cause).getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param code KOOK 接口错误码 (如 40300、40400) 或 HTTP 状态码
+     */
+    private static boolean isDefinitiveCode(int code) {
+        int status = code >= 10_000 ? code / 100 : code;
+        return status == 403 || status == 404;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 以新快照替换频道表，读取方总是看到完整的不可修改的 Map
+     */
+    private synchronized void publishChannel(String name, Channel channel) {
+        Map<String, Channel> next = new HashMap<>(channelMap);
+        next.put(name, channel);
+        channelMap = Collections.unmodifiableMap(next);
+    }
+
+    /**
+     * 按配置中的名称获取频道，启动时的解析尚未完成时等待它 (阻塞调用线程，最多等待 10 秒)
+     * 解析已失败 (后台重试中或已放弃) 的频道直接返回 null，不发起请求
+     * @return 频道，未配置或解析失败时为 null
+     */
+    public Channel getChannel(String name) {
+        Channel channel = channelMap.get(name);
+        if (channel != null || closed || isInvalid() || !channelIds.containsKey(name) || unresolvedChannels.contains(name)) {
+            return channel;
+        }
+        try {
+            return resolveChannel(name).get(CHANNEL_LAZY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 在 KookBC 的 OkHttpClient 上安装限速拦截器，需在 start() 之前调用，使启动期间的请求也经过限速
+     * OkHttpClient 不可修改，以原客户端为基础创建带拦截器的新客户端 (共用线程池与连接池) 替换回去
+     */
+    private void installRateLimiter() {
+        Config config = Config.get();
+        if (!config.isKookRateLimitEnabled()) {
+            return;
+        }
+        try {
+            Object networkClient = readField(kbcClient, "networkClient");
+            okhttp3.OkHttpClient client = (okhttp3.OkHttpClient) readField(networkClient, "client");
+            RateLimitInterceptor interceptor = new RateLimitInterceptor(plugin.getLogger(),
+                    config.getKookRateLimitMaxWaitMillis(), config.getKookRateLimitMaxRetries());
+            writeField(networkClient, "client", client.newBuilder().addInterceptor(interceptor).build());
+            this.rateLimiter = interceptor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            plugin.getLogger().warning("[KookBot] 安装 KOOK 接口限速失败，将不做客户端限速: " + e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private static java.lang.reflect.Field findField(Class<?> type, String name) throws NoSuchFieldException {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                java.lang.reflect.Field field = current.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException ignored) {
+            }
+        }
+        throw new NoSuchFieldException(type.getName() + "." + name);
+    }
+
+    private static Object readField(Object target, String name) throws ReflectiveOperationException {
+        return findField(target.getClass(), name).get(target);
+    }
+
+    private static void writeField(Object target, String name, Object value) throws ReflectiveOperationException {
+        findField(target.getClass(), name).set(target, value);
     }
 
     private void registerService(){
         this.kookServiceMap = new HashMap<>();
-        this.kookServiceMap.put(LinkService.class,new LinkService(this));
+        this.kookServiceMap.put(LinkService.class,new LinkService(plugin, this));
     }
 
     public <T extends KookService> T getService(Class<T> kookService){
@@ -100,8 +368,6 @@ public class KookBot {
      * 获取使用服务器
      */
     public Guild getGuild(){
-        plugin.getLogger().info("[DEBUG] KookBot: 尝试获取 Guild，ID: " + this.guild);
-
         if (isInvalid()) {
             plugin.getLogger().warning("[KookBot] 无法获取 Guild: KookBot 实例无效。");
             return null;
@@ -111,17 +377,21 @@ public class KookBot {
             return null;
         }
 
-        try {
-            HttpAPI api = httpAPI();
-            if (api == null) {
-                plugin.getLogger().severe("[KookBot] 无法获取 Guild: HttpAPI 实例为 null。机器人可能未正确初始化。");
-                return null;
-            }
-            return api.getGuild(this.guild);
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.WARNING, "[KookBot] 获取 Guild (ID: " + this.guild + ") 时发生异常: " + e.getMessage(), e);
-            return null; // Return null to indicate failure
-        }
+        return entityCache.getGuild(this.guild);
+    }
+
+    /**
+     * @return 服务器/频道/用户信息缓存
+     */
+    public KookEntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * @return KOOK 命令的角色权限判断
+     */
+    public RolePermissionEvaluator getRoleEvaluator() {
+        return roleEvaluator;
     }
 
     public HttpAPI httpAPI(){
@@ -157,11 +427,15 @@ public class KookBot {
         }
         try {
             kbcClient.getCore().getEventManager().unregisterAllHandlers(kbcClient.getInternalPlugin());
+            internalListeners.forEach(this::registerKookListener);
         } catch (Exception e) {
             plugin.getLogger().log(Level.WARNING, "[KookBot] 注销 Kook 监听器时发生错误: ", e);
         }
     }
 
+    /**
+     * @return 已解析成功的频道快照 (不可修改)，启动后频道陆续解析完成，按名称取用请使用 {@link #getChannel(String)}
+     */
     public Map<String, Channel> getChannelMap() {
         return channelMap;
     }
@@ -170,6 +444,16 @@ public class KookBot {
      * 关闭链接
      */
     public void close(){
+        closed = true;
+        if (outboundDispatcher != null) {
+            outboundDispatcher.close();
+        }
+        if (entityCache != null) {
+            entityCache.invalidateAll();
+        }
+        if (roleEvaluator != null) {
+            roleEvaluator.invalidateAll();
+        }
         if (isInvalid()) return;
     
         if (kbcClient != null) {
@@ -225,7 +509,7 @@ public class KookBot {
 
 
     /**
-     * 发送消息
+     * 发送消息，按频道排队发送，同一频道内保持提交顺序
      * @param channels 指定频道名称列表 (从配置中读取的键名)
      * @param baseComponent 消息
      */
@@ -234,27 +518,11 @@ public class KookBot {
             plugin.getLogger().warning("[KookBot] 无法发送消息: KookBot 实例无效。");
             return;
         }
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            for (String channelName : channels) { // Iterate by channel name
-                Channel channel = channelMap.get(channelName); // Get channel by name from map
-                if (channel instanceof TextChannel textChannel) {
-                    try {
-                        textChannel.sendComponent(baseComponent);
-                    } catch (Exception e) {
-                        plugin.getLogger().warning("[McKook] 向频道 '" + channelName + "' (ID: " + textChannel.getId() + ") 发送消息失败: " + e.getMessage());
-                        // e.printStackTrace(); // Consider logging the full stack trace to server logs if needed for debugging
-                    }
-                } else if (channel == null) {
-                    plugin.getLogger().warning("[McKook] 尝试向未找到或未初始化的频道 '" + channelName + "' 发送消息。请检查配置。");
-                } else {
-                    plugin.getLogger().warning("[McKook] 频道 '" + channelName + "' (ID: " + channel.getId() + ") 不是文本频道，无法发送消息。类型: " + channel.getClass().getSimpleName());
-                }
-            }
-        });
+        outboundDispatcher.sendComponent(channels, baseComponent);
     }
 
     /**
-     * 发送纯文本消息
+     * 发送纯文本消息，短时间内发往同一频道的连续文本会合并为一条消息
      * @param channels 指定频道名称列表 (从配置中读取的键名)
      * @param message 消息文本
      */
@@ -263,21 +531,17 @@ public class KookBot {
             plugin.getLogger().warning("[KookBot] 无法发送纯文本消息: KookBot 实例无效。");
             return;
         }
-        Bukkit.getScheduler().runTaskAsynchronously(plugin,()->{
-            for (String channelName : channels) { // Iterate by channel name
-                Channel channel = channelMap.get(channelName); // Get channel by name from map
-                if(channel instanceof TextChannel textChannel){
-                    try {
-                        textChannel.sendComponent(message); // TextChannel can directly send string as plain text
-                    } catch (Exception e) {
-                        plugin.getLogger().warning("[McKook] 向频道 '" + channelName + "' (ID: " + textChannel.getId() + ") 发送纯文本消息失败: " + e.getMessage());
-                    }
-                } else if (channel == null) {
-                    plugin.getLogger().warning("[McKook] 尝试向未找到或未初始化的频道 '" + channelName + "' 发送纯文本消息。请检查配置。");
-                } else {
-                    plugin.getLogger().warning("[McKook] 频道 '" + channelName + "' (ID: " + channel.getId() + ") 不是文本频道，无法发送纯文本消息。类型: " + channel.getClass().getSimpleName());
-                }
-            }
-        });
+        outboundDispatcher.sendText(channels, message);
+    }
+
+    public OutboundDispatcher getOutboundDispatcher() {
+        return outboundDispatcher;
+    }
+
+    /**
+     * @return KOOK 接口限速，未启用或安装失败时为 null
+     */
+    public RateLimitInterceptor getRateLimiter() {
+        return rateLimiter;
     }
 }
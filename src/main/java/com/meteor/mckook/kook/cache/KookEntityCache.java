@@ -0,0 +1,227 @@
+package com.meteor.mckook.kook.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import snw.jkook.HttpAPI;
+import snw.jkook.entity.Guild;
+import snw.jkook.entity.User;
+import snw.jkook.entity.channel.Channel;
+import snw.jkook.event.EventHandler;
+import snw.jkook.event.Listener;
+import snw.jkook.event.channel.ChannelDeleteEvent;
+import snw.jkook.event.channel.ChannelInfoUpdateEvent;
+import snw.jkook.event.guild.GuildInfoUpdateEvent;
+import snw.jkook.event.guild.GuildUserNickNameUpdateEvent;
+import snw.jkook.event.user.UserInfoUpdateEvent;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * KOOK 实体缓存 (服务器、频道、用户、服务器昵称)
+ * 每种实体按 TTL 缓存，同一实体同时只发起一次请求，并发的调用方共用这次请求的结果；请求失败或实体不存在时不缓存。
+ * 同时作为 KOOK 事件监听器，收到服务器/频道/用户信息更新、成员服务器昵称修改事件时立即移除对应条目。
+ */
+public class KookEntityCache implements Listener {
+
+    /**
+     * 同步获取时最多等待的时间
+     */
+    private static final long LOAD_TIMEOUT_SECONDS = 10L;
+
+    private final Logger logger;
+    private final AsyncLoadingCache<String, Guild> guilds;
+    private final AsyncLoadingCache<String, Channel> channels;
+    private final AsyncLoadingCache<String, User> users;
+    private final AsyncCache<NickNameKey, String> nickNames;
+
+    /**
+     * @param httpAPI     KOOK 接口 (机器人不可用时返回 null)
+     * @param executor    执行请求的线程池
+     * @param logger      日志
+     * @param guildTtl    服务器信息缓存时间 (秒)
+     * @param channelTtl  频道信息缓存时间 (秒)
+     * @param userTtl     用户信息与服务器昵称缓存时间 (秒)
+     * @param maxSize     每种实体最多缓存的数量
+     */
+    public KookEntityCache(Supplier<HttpAPI> httpAPI, Executor executor, Logger logger,
+                           long guildTtl, long channelTtl, long userTtl, long maxSize) {
+        this.logger = logger;
+        this.guilds = Caffeine.newBuilder()
+                .expireAfterWrite(Math.max(1L, guildTtl), TimeUnit.SECONDS)
+                .maximumSize(Math.max(1L, maxSize))
+                .executor(executor)
+                .buildAsync(id -> api(httpAPI).getGuild(id));
+        this.channels = Caffeine.newBuilder()
+                .expireAfterWrite(Math.max(1L, channelTtl), TimeUnit.SECONDS)
+                .maximumSize(Math.max(1L, maxSize))
+                .executor(executor)
+                .buildAsync(id -> api(httpAPI).getChannel(id));
+        this.users = Caffeine.newBuilder()
+                .expireAfterWrite(Math.max(1L, userTtl), TimeUnit.SECONDS)
+                .maximumSize(Math.max(1L, maxSize))
+                .executor(executor)
+                .buildAsync(id -> api(httpAPI).getUser(id));
+        this.nickNames = Caffeine.newBuilder()
+                .expireAfterWrite(Math.max(1L, userTtl), TimeUnit.SECONDS)
+                .maximumSize(Math.max(1L, maxSize))
+                .executor(executor)
+                .buildAsync();
+    }
+
+    /**
+     * @return 服务器，获取失败时为 null (阻塞调用线程)
+     */
+    public Guild getGuild(String guildId) {
+        return guildId == null || guildId.isEmpty() ? null : await(guilds.get(guildId), "服务器 " + guildId);
+    }
+
+    /**
+     * @return 频道，获取失败时为 null (阻塞调用线程)
+     */
+    public Channel getChannel(String channelId) {
+        return channelId == null || channelId.isEmpty() ? null : await(channels.get(channelId), "频道 " + channelId);
+    }
+
+    /**
+     * 异步获取频道，失败时以异常结束 (不记录日志，由调用方区分错误)
+     * @return 频道，不存在时结果为 null
+     */
+    public CompletableFuture<Channel> loadChannel(String channelId) {
+        if (channelId == null || channelId.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return channels.get(channelId);
+    }
+
+    /**
+     * @return 用户，获取失败时为 null (阻塞调用线程)
+     */
+    public User getUser(String userId) {
+        return userId == null || userId.isEmpty() ? null : await(users.get(userId), "用户 " + userId);
+    }
+
+    /**
+     * @return 用户在服务器中的昵称，获取失败时为 null (阻塞调用线程)
+     */
+    public String getNickName(User user, Guild guild) {
+        if (user == null || guild == null) {
+            return null;
+        }
+        NickNameKey key = new NickNameKey(user.getId(), guild.getId());
+        return await(nickNames.get(key, (k, executor) -> CompletableFuture.supplyAsync(() -> user.getNickName(guild), executor)),
+                "用户 " + user.getId() + " 的服务器昵称");
+    }
+
+    public void invalidateGuild(String guildId) {
+        guilds.synchronous().invalidate(guildId);
+        nickNames.synchronous().asMap().keySet().removeIf(key -> key.guildId.equals(guildId));
+    }
+
+    public void invalidateChannel(String channelId) {
+        channels.synchronous().invalidate(channelId);
+    }
+
+    public void invalidateUser(String userId) {
+        users.synchronous().invalidate(userId);
+        nickNames.synchronous().asMap().keySet().removeIf(key -> key.userId.equals(userId));
+    }
+
+    public void invalidateNickName(String userId, String guildId) {
+        nickNames.synchronous().invalidate(new NickNameKey(userId, guildId));
+    }
+
+    public void invalidateAll() {
+        guilds.synchronous().invalidateAll();
+        channels.synchronous().invalidateAll();
+        users.synchronous().invalidateAll();
+        nickNames.synchronous().invalidateAll();
+    }
+
+    @EventHandler
+    public void onGuildInfoUpdate(GuildInfoUpdateEvent event) {
+        if (event.getGuild() != null) {
+            invalidateGuild(event.getGuild().getId());
+        }
+    }
+
+    @EventHandler
+    public void onChannelInfoUpdate(ChannelInfoUpdateEvent event) {
+        if (event.getChannel() != null) {
+            invalidateChannel(event.getChannel().getId());
+        }
+    }
+
+    @EventHandler
+    public void onChannelDelete(ChannelDeleteEvent event) {
+        invalidateChannel(event.getChannelId());
+    }
+
+    @EventHandler
+    public void onGuildUserNickNameUpdate(GuildUserNickNameUpdateEvent event) {
+        if (event.getUser() != null && event.getGuild() != null) {
+            invalidateNickName(event.getUser().getId(), event.getGuild().getId());
+        }
+    }
+
+    @EventHandler
+    public void onUserInfoUpdate(UserInfoUpdateEvent event) {
+        if (event.getUser() != null) {
+            invalidateUser(event.getUser().getId());
+        }
+    }
+
+    private static HttpAPI api(Supplier<HttpAPI> httpAPI) {
+        HttpAPI api = httpAPI.get();
+        if (api == null) {
+            throw new IllegalStateException("KookBot 不可用");
+        }
+        return api;
+    }
+
+    private <V> V await(CompletableFuture<V> future, String description) {
+        try {
+            return future.get(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warning("[KookCache] 获取" + description + "失败: " + cause.getMessage());
+            return null;
+        } catch (TimeoutException e) {
+            logger.warning("[KookCache] 获取" + description + "超时 (" + LOAD_TIMEOUT_SECONDS + " 秒)");
+            return null;
+        }
+    }
+
+    private static final class NickNameKey {
+        final String userId;
+        final String guildId;
+
+        NickNameKey(String userId, String guildId) {
+            this.userId = userId;
+            this.guildId = guildId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof NickNameKey)) return false;
+            NickNameKey that = (NickNameKey) o;
+            return userId.equals(that.userId) && guildId.equals(that.guildId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, guildId);
+        }
+    }
+}
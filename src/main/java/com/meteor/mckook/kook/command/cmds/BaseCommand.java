@@ -1,17 +1,15 @@
 package com.meteor.mckook.kook.command.cmds;
 
 import com.meteor.mckook.McKook;
-import com.meteor.mckook.config.Config;
 import com.meteor.mckook.kook.KookBot;
+import com.meteor.mckook.kook.permission.RolePermissionEvaluator;
 import com.meteor.mckook.util.BaseConfig;
 import snw.jkook.command.JKookCommand;
-import snw.jkook.entity.Guild;
 import snw.jkook.entity.User;
 import snw.jkook.message.Message;
 import snw.jkook.message.component.MarkdownComponent;
 import snw.jkook.message.component.TextComponent;
 
-import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -22,8 +20,8 @@ public abstract class BaseCommand {
     protected final KookBot kookBot;
 
     // 定义常用的角色键名
-    protected static final String ADMIN_ROLE_KEY = "管理员";
-    protected static final String PLAYER_ROLE_KEY = "玩家";
+    protected static final String ADMIN_ROLE_KEY = RolePermissionEvaluator.ADMIN_ROLE_KEY;
+    protected static final String PLAYER_ROLE_KEY = RolePermissionEvaluator.PLAYER_ROLE_KEY;
 
     public BaseCommand(McKook mcKookPlugin, KookBot kookBot) {
         this.mcKookPlugin = mcKookPlugin;
@@ -98,33 +96,24 @@ public abstract class BaseCommand {
             return false;
         }
 
-        Guild primaryGuild = kookBot.getGuild();
-        if (primaryGuild == null) {
-            sendErrorMessage(message, "guild_error");
-            return false;
-        }
-
-        Map<String, Integer> configuredRolesMap = Config.get().getConfiguredRoles();
-        if (configuredRolesMap == null || configuredRolesMap.isEmpty()) {
-            sendErrorMessage(message, "roles_config_error");
-            mcKookPlugin.getLogger().warning("[" + getCommandName() + "] Configured roles map is null or empty.");
-            return false;
-        }
-
-        Integer adminRoleId = configuredRolesMap.get(ADMIN_ROLE_KEY);
-        if (adminRoleId == null) {
-            sendErrorMessage(message, "admin_role_undefined");
-            mcKookPlugin.getLogger().warning("[" + getCommandName() + "] Admin role ID not found in configuration.");
-            return false;
+        switch (kookBot.getRoleEvaluator().checkAdmin(sender)) {
+            case ALLOWED:
+                return true;
+            case ROLES_NOT_CONFIGURED:
+                sendErrorMessage(message, "roles_config_error");
+                logWarning("Configured roles map is null or empty.");
+                return false;
+            case ADMIN_ROLE_UNDEFINED:
+                sendErrorMessage(message, "admin_role_undefined");
+                logWarning("Admin role ID for key '" + ADMIN_ROLE_KEY + "' not found in configuration.");
+                return false;
+            case LOOKUP_FAILED:
+                sendErrorMessage(message, "guild_error");
+                return false;
+            default:
+                sendErrorMessage(message, "no_permission");
+                return false;
         }
-
-        Collection<Integer> userRoles = sender.getRoles(primaryGuild);
-        if (userRoles != null && userRoles.contains(adminRoleId)) {
-            return true;
-        }
-
-        sendErrorMessage(message, "no_permission");
-        return false;
     }
 
     /**
@@ -1,22 +1,16 @@
 package com.meteor.mckook.kook.command.cmds;
 
 import com.meteor.mckook.McKook;
-import com.meteor.mckook.config.Config;
 import com.meteor.mckook.kook.KookBot;
 import com.meteor.mckook.kook.service.LinkService;
 import snw.jkook.command.JKookCommand;
-import snw.jkook.entity.Guild;
 import snw.jkook.entity.User;
 import snw.jkook.message.Message;
 
-import java.util.Collection;
 import java.util.Map;
 
 public class BindCmd extends BaseCommand {
 
-    // 定义了配置文件中管理员角色的键名
-    private static final String ADMIN_ROLE_KEY = "管理员";
-
     public BindCmd(McKook mcKookPlugin, KookBot kookBot) {
         super(mcKookPlugin, kookBot);
     }
@@ -31,48 +25,6 @@ public class BindCmd extends BaseCommand {
         return "管理 Minecraft 账户和 Kook 账户的绑定。 (仅限管理员)";
     }
 
-    /**
-     * 检查用户是否拥有执行绑定命令所需的管理员权限。
-     * @param sender 指令发送者
-     * @param message 用于回复消息的对象
-     * @return 如果用户拥有权限则返回 true，否则返回 false 并发送拒绝消息。
-     */
-    @Override
-    protected boolean checkAdminPermission(User sender, Message message) {
-        if (!checkBotAvailable(message)) {
-            return false;
-        }
-
-        Guild primaryGuild = kookBot.getGuild();
-        if (primaryGuild == null) {
-            sendErrorMessage(message, "guild_error");
-            return false;
-        }
-
-        Map<String, Integer> configuredRolesMap = Config.get().getConfiguredRoles();
-        if (configuredRolesMap == null || configuredRolesMap.isEmpty()) {
-            sendErrorMessage(message, "roles_config_error");
-            logWarning("Configured roles map is null or empty when checking admin permission. This might indicate a config loading issue.");
-            return false;
-        }
-
-        Integer adminRoleId = configuredRolesMap.get(ADMIN_ROLE_KEY);
-        if (adminRoleId == null) {
-            sendErrorMessage(message, "admin_role_undefined");
-            logWarning("Admin role ID for key '" + ADMIN_ROLE_KEY + "' not found in configuration. Please ensure it's defined in config.yml under setting.roles.");
-            return false;
-        }
-
-        Collection<Integer> userRoles = sender.getRoles(primaryGuild);
-
-        if (userRoles != null && userRoles.contains(adminRoleId)) {
-            return true;
-        }
-
-        sendErrorMessage(message, "no_permission");
-        return false;
-    }
-
     // 辅助方法：获取 LinkService 实例
     private LinkService getLinkService(User sender, Message message) {
         if (!checkBotAvailable(message)) {
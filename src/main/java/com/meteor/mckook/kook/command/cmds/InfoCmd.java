@@ -1,26 +1,18 @@
 package com.meteor.mckook.kook.command.cmds;
 
 import com.meteor.mckook.McKook;
-import com.meteor.mckook.config.Config;
 import com.meteor.mckook.kook.KookBot;
+import com.meteor.mckook.kook.permission.RolePermissionEvaluator;
 import snw.jkook.command.JKookCommand;
 import snw.jkook.entity.Guild;
-import snw.jkook.entity.User;
 import snw.jkook.message.component.MarkdownComponent;
 
-import java.util.Collection;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class InfoCmd extends BaseCommand {
 
-    // 定义配置文件中可能的角色键名，用于优先级判断或特定处理
-    // 你可以根据需要调整或增加这些常量
-    private static final String ADMIN_ROLE_KEY = "管理员";
-    private static final String PLAYER_ROLE_KEY = "玩家";
-    // 如果有其他特殊角色，也可以在这里定义
-
     public InfoCmd(McKook mcKookPlugin, KookBot kookBot) {
         super(mcKookPlugin, kookBot);
     }
@@ -35,44 +27,6 @@ public class InfoCmd extends BaseCommand {
         return "获取您在插件主服务器的 Kook 用户信息。";
     }
 
-    /**
-     * 获取用户在指定服务器中的主要角色名称
-     */
-    private Optional<String> getUserPrimaryConfiguredRoleName(User user, Guild guild, Map<String, Integer> configuredRolesMap) {
-        if (user == null || guild == null || configuredRolesMap == null || configuredRolesMap.isEmpty()) {
-            return Optional.empty();
-        }
-
-        Collection<Integer> userRoleIdsOnServer = user.getRoles(guild);
-        if (userRoleIdsOnServer == null || userRoleIdsOnServer.isEmpty()) {
-            return Optional.empty();
-        }
-
-        // 优先检查 "管理员" 角色
-        Integer adminRoleIdFromConfig = configuredRolesMap.get(ADMIN_ROLE_KEY);
-        if (adminRoleIdFromConfig != null && userRoleIdsOnServer.contains(adminRoleIdFromConfig)) {
-            return Optional.of(ADMIN_ROLE_KEY);
-        }
-
-        // 其次检查 "玩家" 角色
-        Integer playerRoleIdFromConfig = configuredRolesMap.get(PLAYER_ROLE_KEY);
-        if (playerRoleIdFromConfig != null && userRoleIdsOnServer.contains(playerRoleIdFromConfig)) {
-            return Optional.of(PLAYER_ROLE_KEY);
-        }
-
-        // 检查其他角色
-        for (Map.Entry<String, Integer> entry : configuredRolesMap.entrySet()) {
-            if (entry.getKey().equals(ADMIN_ROLE_KEY) || entry.getKey().equals(PLAYER_ROLE_KEY)) {
-                continue;
-            }
-            if (userRoleIdsOnServer.contains(entry.getValue())) {
-                return Optional.of(entry.getKey());
-            }
-        }
-
-        return Optional.empty();
-    }
-
     @Override
     public JKookCommand buildCommand() {
         return new JKookCommand(getCommandName())
@@ -99,12 +53,15 @@ public class InfoCmd extends BaseCommand {
                     String userId = sender.getId();
                     int identifyNum = sender.getIdentifyNumber();
 
-                    Map<String, Integer> configuredRolesMap = Config.get().getConfiguredRoles();
+                    RolePermissionEvaluator roleEvaluator = kookBot.getRoleEvaluator();
+                    boolean rolesConfigured = roleEvaluator.hasConfiguredRoles();
+                    // 角色只获取一次，主要身份与角色列表共用
+                    Set<Integer> roleIds = roleEvaluator.getMemberRoles(sender);
                     Optional<String> userPrimaryRoleNameOpt = Optional.empty();
                     String greetingPrefix = "你好，";
 
-                    if (primaryGuild != null && configuredRolesMap != null && !configuredRolesMap.isEmpty()) {
-                        userPrimaryRoleNameOpt = getUserPrimaryConfiguredRoleName(sender, primaryGuild, configuredRolesMap);
+                    if (primaryGuild != null && rolesConfigured) {
+                        userPrimaryRoleNameOpt = roleEvaluator.getPrimaryRoleName(roleIds);
 
                         if (userPrimaryRoleNameOpt.isPresent()) {
                             String roleName = userPrimaryRoleNameOpt.get();
@@ -129,17 +86,16 @@ public class InfoCmd extends BaseCommand {
 
                         if (userPrimaryRoleNameOpt.isPresent()) {
                             replyContent.append("  你的主要身份: `").append(userPrimaryRoleNameOpt.get()).append("`\n");
-                        } else if (configuredRolesMap != null && !configuredRolesMap.isEmpty()) {
+                        } else if (rolesConfigured) {
                             replyContent.append("  你的主要身份: `未识别 (无匹配的配置角色)`\n");
                         }
 
-                        String serverNickname = sender.getNickName(primaryGuild);
+                        String serverNickname = kookBot.getEntityCache().getNickName(sender, primaryGuild);
                         if (serverNickname != null && !serverNickname.isEmpty() && !serverNickname.equals(globalName)) {
                             replyContent.append("  服务器昵称: `").append(serverNickname).append("`\n");
                         }
                         replyContent.append("  完整名称: `").append(sender.getFullName(primaryGuild)).append("`\n");
 
-                        Collection<Integer> roleIds = sender.getRoles(primaryGuild);
                         if (roleIds != null && !roleIds.isEmpty()) {
                             String rolesString = roleIds.stream()
                                     .map(String::valueOf)
@@ -0,0 +1,244 @@
+package com.meteor.mckook.kook.dispatch;
+
+import snw.jkook.entity.channel.Channel;
+import snw.jkook.entity.channel.TextChannel;
+import snw.jkook.message.component.BaseComponent;
+import snw.jkook.message.component.MarkdownComponent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * 发往 KOOK 频道的消息调度
+ * 每个频道一条串行通道: 同一频道内按提交顺序发送，不同频道之间并行发送。
+ * 纯文本消息在通道空闲时等待一个合并窗口，窗口内 (以及上一条请求发送期间) 到达的连续纯文本合并为一条 KMarkdown 消息发送，
+ * 聊天刷屏时请求数成倍减少；卡片等其他消息不参与合并，也不会被合并的文本越过。
+ */
+public class OutboundDispatcher {
+
+    private final Executor executor;
+    private final Logger logger;
+    /**
+     * 频道名 -> 频道，发送时才解析，频道在启动后才加载成功也能发送
+     */
+    private final Function<String, Channel> channelResolver;
+    private final long coalesceWindowMillis;
+    private final int maxBatchChars;
+    private final int maxQueuedPerChannel;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * @param executor             执行发送的线程池
+     * @param logger               日志
+     * @param channelResolver      按频道名获取频道，找不到时返回 null
+     * @param coalesceWindowMillis 纯文本合并窗口 (毫秒)，0 为不等待 (仍会合并发送期间积压的文本)
+     * @param maxBatchChars        合并后单条消息的最大字符数
+     * @param maxQueuedPerChannel  每个频道最多排队的消息数，超出后丢弃新消息
+     */
+    public OutboundDispatcher(Executor executor, Logger logger, Function<String, Channel> channelResolver,
+                              long coalesceWindowMillis, int maxBatchChars, int maxQueuedPerChannel) {
+        this.executor = executor;
+        this.logger = logger;
+        this.channelResolver = channelResolver;
+        this.coalesceWindowMillis = Math.max(0L, coalesceWindowMillis);
+        this.maxBatchChars = Math.max(1, maxBatchChars);
+        this.maxQueuedPerChannel = Math.max(1, maxQueuedPerChannel);
+    }
+
+    /**
+     * 向多个频道发送纯文本 (按 KMarkdown 解析)
+     * @param channels 频道名称列表 (配置中的键名)
+     */
+    public void sendText(List<String> channels, String message) {
+        for (String channel : channels) {
+            submit(channel, new Outbound(message, null));
+        }
+    }
+
+    /**
+     * 向多个频道发送消息组件 (卡片等)，不参与合并
+     * @param channels 频道名称列表 (配置中的键名)
+     */
+    public void sendComponent(List<String> channels, BaseComponent component) {
+        for (String channel : channels) {
+            submit(channel, new Outbound(null, component));
+        }
+    }
+
+    /**
+     * @return 提交的消息数 (每个频道计一条)
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * @return 实际发出的请求数
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return 因队列已满或已关闭被丢弃的消息数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 停止接收新消息，尚未发送的消息被丢弃
+     */
+    public void close() {
+        closed = true;
+        int pending = 0;
+        for (Lane lane : lanes.values()) {
+            pending += lane.size.get();
+            lane.queue.clear();
+        }
+        if (pending > 0) {
+            dropped.addAndGet(pending);
+            logger.info("[Outbound] 机器人关闭，丢弃 " + pending + " 条未发送的消息。");
+        }
+    }
+
+    private void submit(String channelName, Outbound outbound) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return;
+        }
+        Lane lane = lanes.computeIfAbsent(channelName, Lane::new);
+        if (lane.size.incrementAndGet() > maxQueuedPerChannel) {
+            lane.size.decrementAndGet();
+            if (dropped.getAndIncrement() % 100 == 0) {
+                logger.warning("[Outbound] 频道 '" + channelName + "' 待发送的消息超过 " + maxQueuedPerChannel + " 条，新消息已丢弃 (累计丢弃 " + dropped.get() + " 条)。");
+            }
+            return;
+        }
+        submitted.incrementAndGet();
+        lane.queue.add(outbound);
+        lane.schedule(outbound.isText() ? coalesceWindowMillis : 0L);
+    }
+
+    /**
+     * 一个频道的串行通道，同一时间最多一个线程在发送
+     */
+    private final class Lane {
+        private final String channelName;
+        private final Queue<Outbound> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Lane(String channelName) {
+            this.channelName = channelName;
+        }
+
+        void schedule(long delayMillis) {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                Executor target = delayMillis > 0
+                        ? CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor)
+                        : executor;
+                target.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                logger.warning("[Outbound] 发送线程池已关闭，频道 '" + channelName + "' 的消息无法发送。");
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Outbound first = queue.poll();
+                if (first == null) {
+                    scheduled.set(false);
+                    // 释放标记后又有消息进入且没有其他线程接手时继续发送
+                    if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                size.decrementAndGet();
+                if (!first.isText()) {
+                    send(first.component, null, 1);
+                    continue;
+                }
+                StringBuilder text = new StringBuilder(first.text);
+                int merged = 1;
+                Outbound next;
+                while ((next = queue.peek()) != null && next.isText()
+                        && text.length() + 1 + next.text.length() <= maxBatchChars) {
+                    queue.poll();
+                    size.decrementAndGet();
+                    text.append('\n').append(next.text);
+                    merged++;
+                }
+                send(merged == 1 ? null : new MarkdownComponent(text.toString()), first.text, merged);
+            }
+        }
+
+        /**
+         * @param component 要发送的组件，为 null 时发送 text
+         * @param merged    包含的消息数
+         */
+        private void send(BaseComponent component, String text, int merged) {
+            Channel channel = channelResolver.apply(channelName);
+            if (!(channel instanceof TextChannel textChannel)) {
+                dropped.addAndGet(merged);
+                if (channel == null) {
+                    logger.warning("[Outbound] 尝试向未找到或未初始化的频道 '" + channelName + "' 发送消息。请检查配置。");
+                } else {
+                    logger.warning("[Outbound] 频道 '" + channelName + "' (ID: " + channel.getId() + ") 不是文本频道，无法发送消息。类型: " + channel.getClass().getSimpleName());
+                }
+                return;
+            }
+            try {
+                requests.incrementAndGet();
+                if (component != null) {
+                    textChannel.sendComponent(component);
+                } else {
+                    textChannel.sendComponent(text);
+                }
+            } catch (Exception e) {
+                logger.warning("[Outbound] 向频道 '" + channelName + "' (ID: " + textChannel.getId() + ") 发送消息失败"
+                        + (merged > 1 ? " (合并的 " + merged + " 条)" : "") + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 一条待发送的消息，text 与 component 二选一
+     */
+    private static final class Outbound {
+        final String text;
+        final BaseComponent component;
+
+        Outbound(String text, BaseComponent component) {
+            this.text = text;
+            this.component = component;
+        }
+
+        boolean isText() {
+            return text != null;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.meteor.mckook.kook.permission;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import snw.jkook.entity.Guild;
+import snw.jkook.entity.User;
+import snw.jkook.event.EventHandler;
+import snw.jkook.event.Listener;
+import snw.jkook.event.role.RoleDeleteEvent;
+import snw.jkook.event.user.UserLeaveGuildEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * KOOK 命令的角色权限判断
+ * 配置中的角色 名称 -> ID 每次加载配置后只解析一次，成员在主服务器中的角色按用户缓存为集合，判断权限只是一次集合查找。
+ * 管理员判断只使用刷新间隔内获取的角色，超过刷新间隔时等待重新获取后再判断，角色被撤销后最多在一个刷新间隔内失去权限；
+ * 展示信息 (/info) 则直接使用缓存，同时在后台重新获取。
+ * KOOK 不推送成员角色变化，因此角色被删除、成员退出服务器时更新缓存，其余变化依靠刷新；
+ * 判断为无权限时，若角色获取于若干秒之前则重新获取一次再下结论 (每个用户在该间隔内最多一次，刷屏不会放大请求)。
+ */
+public class RolePermissionEvaluator implements Listener {
+
+    public static final String ADMIN_ROLE_KEY = "管理员";
+    public static final String PLAYER_ROLE_KEY = "玩家";
+
+    /**
+     * 缓存中没有时获取角色最多等待的时间
+     */
+    private static final long LOAD_TIMEOUT_SECONDS = 10L;
+    /**
+     * 判断为无权限时，角色获取超过该时间才重新获取
+     */
+    private static final long DENIED_RECHECK_MILLIS = 10_000L;
+
+    public enum Result {
+        ALLOWED,
+        DENIED,
+        /**
+         * 配置中没有任何角色
+         */
+        ROLES_NOT_CONFIGURED,
+        /**
+         * 配置中没有管理员角色
+         */
+        ADMIN_ROLE_UNDEFINED,
+        /**
+         * 无法获取成员的角色 (服务器或用户获取失败)
+         */
+        LOOKUP_FAILED
+    }
+
+    private final Logger logger;
+    private final Supplier<Map<String, Integer>> configuredRoles;
+    private final AsyncLoadingCache<String, MemberRoles> memberRoles;
+    private final long refreshMillis;
+
+    private volatile RoleIndex roleIndex = RoleIndex.EMPTY;
+
+    /**
+     * @param configuredRoles 配置中的角色 名称 -> ID，每次加载配置返回新的实例
+     * @param users           按 ID 获取用户
+     * @param guild           获取主服务器
+     * @param executor        获取角色的线程池
+     * @param logger          日志
+     * @param refreshSeconds  成员角色超过该时间后重新获取，管理员判断等待获取完成 (秒)
+     * @param expireSeconds   成员角色超过该时间未刷新则丢弃 (秒)
+     * @param maxSize         最多缓存的成员数量
+     */
+    public RolePermissionEvaluator(Supplier<Map<String, Integer>> configuredRoles, Function<String, User> users,
+                                   Supplier<Guild> guild, Executor executor, Logger logger,
+                                   long refreshSeconds, long expireSeconds, long maxSize) {
+        this.logger = logger;
+        this.configuredRoles = configuredRoles;
+        long refresh = Math.max(1L, refreshSeconds);
+        this.refreshMillis = TimeUnit.SECONDS.toMillis(refresh);
+        this.memberRoles = Caffeine.newBuilder()
+                .refreshAfterWrite(refresh, TimeUnit.SECONDS)
+                .expireAfterWrite(Math.max(refresh + 1, expireSeconds), TimeUnit.SECONDS)
+                .maximumSize(Math.max(1L, maxSize))
+                .executor(executor)
+                .buildAsync(userId -> loadRoles(userId, users, guild));
+    }
+
+    /**
+     * 判断用户是否拥有管理员角色
+     */
+    public Result checkAdmin(User user) {
+        RoleIndex index = index();
+        if (index.isEmpty()) {
+            return Result.ROLES_NOT_CONFIGURED;
+        }
+        if (index.adminRoleId == null) {
+            return Result.ADMIN_ROLE_UNDEFINED;
+        }
+        String userId = user.getId();
+        MemberRoles entry = await(memberRoles.get(userId), userId);
+        if (entry != null && entry.ageMillis() >= refreshMillis) {
+            // 超过刷新间隔的角色不用于授权，等待重新获取 (同一用户同时只有一次刷新)
+            entry = await(memberRoles.synchronous().refresh(userId), userId);
+        }
+        if (entry == null) {
+            return Result.LOOKUP_FAILED;
+        }
+        if (entry.roles.contains(index.adminRoleId)) {
+            return Result.ALLOWED;
+        }
+        if (entry.ageMillis() < DENIED_RECHECK_MILLIS) {
+            return Result.DENIED;
+        }
+        // 刚被授予角色时缓存可能还是旧的，重新获取一次
+        MemberRoles refreshed = await(memberRoles.synchronous().refresh(userId), userId);
+        return refreshed != null && refreshed.roles.contains(index.adminRoleId) ? Result.ALLOWED : Result.DENIED;
+    }
+
+    /**
+     * @return 用户在主服务器中的角色 ID 集合 (不可修改)，获取失败时为 null；缓存中有时不等待
+     */
+    public Set<Integer> getMemberRoles(User user) {
+        if (user == null) {
+            return null;
+        }
+        MemberRoles entry = await(memberRoles.get(user.getId()), user.getId());
+        return entry == null ? null : entry.roles;
+    }
+
+    /**
+     * 获取角色集合中的主要角色名称: 管理员优先，其次玩家，再按配置顺序
+     */
+    public Optional<String> getPrimaryRoleName(Set<Integer> roles) {
+        if (roles == null || roles.isEmpty()) {
+            return Optional.empty();
+        }
+        for (RoleEntry entry : index().priority) {
+            if (roles.contains(entry.id)) {
+                return Optional.of(entry.name);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return 配置中是否有角色
+     */
+    public boolean hasConfiguredRoles() {
+        return !index().isEmpty();
+    }
+
+    public void invalidate(String userId) {
+        memberRoles.synchronous().invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        memberRoles.synchronous().invalidateAll();
+    }
+
+    @EventHandler
+    public void onRoleDelete(RoleDeleteEvent event) {
+        if (event.getRole() == null) {
+            return;
+        }
+        int roleId = event.getRole().getId();
+        memberRoles.synchronous().asMap().replaceAll((userId, entry) -> {
+            if (!entry.roles.contains(roleId)) {
+                return entry;
+            }
+            Set<Integer> next = new HashSet<>(entry.roles);
+            next.remove(roleId);
+            return new MemberRoles(Collections.unmodifiableSet(next), entry.loadedAtMillis);
+        });
+    }
+
+    @EventHandler
+    public void onUserLeaveGuild(UserLeaveGuildEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    /**
+     * 配置重新加载后 (角色 Map 换成新的实例) 重建索引
+     */
+    private RoleIndex index() {
+        Map<String, Integer> roles = configuredRoles.get();
+        RoleIndex index = roleIndex;
+        if (index.source != roles) {
+            index = RoleIndex.build(roles);
+            roleIndex = index;
+        }
+        return index;
+    }
+
+    private static MemberRoles loadRoles(String userId, Function<String, User> users, Supplier<Guild> guild) {
+        Guild primaryGuild = guild.get();
+        if (primaryGuild == null) {
+            throw new IllegalStateException("无法获取主服务器");
+        }
+        User user = users.apply(userId);
+        if (user == null) {
+            throw new IllegalStateException("无法获取用户 " + userId);
+        }
+        Collection<Integer> roles = user.getRoles(primaryGuild);
+        Set<Integer> set = roles == null || roles.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(roles));
+        return new MemberRoles(set, System.currentTimeMillis());
+    }
+
+    private MemberRoles await(CompletableFuture<MemberRoles> future, String userId) {
+        try {
+            return future.get(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warning("[RolePermission] 获取用户 " + userId + " 的角色失败: " + cause.getMessage());
+            return null;
+        } catch (TimeoutException e) {
+            logger.warning("[RolePermission] 获取用户 " + userId + " 的角色超时 (" + LOAD_TIMEOUT_SECONDS + " 秒)");
+            return null;
+        }
+    }
+
+    /**
+     * 成员的角色集合与获取时间
+     */
+    private static final class MemberRoles {
+        final Set<Integer> roles;
+        final long loadedAtMillis;
+
+        MemberRoles(Set<Integer> roles, long loadedAtMillis) {
+            this.roles = roles;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        long ageMillis() {
+            return System.currentTimeMillis() - loadedAtMillis;
+        }
+    }
+
+    /**
+     * 一次配置加载对应的角色索引
+     */
+    private static final class RoleIndex {
+        static final RoleIndex EMPTY = new RoleIndex(null, null, Collections.emptyList());
+
+        final Map<String, Integer> source;
+        final Integer adminRoleId;
+        /**
+         * 判断主要角色的顺序
+         */
+        final List<RoleEntry> priority;
+
+        RoleIndex(Map<String, Integer> source, Integer adminRoleId, List<RoleEntry> priority) {
+            this.source = source;
+            this.adminRoleId = adminRoleId;
+            this.priority = priority;
+        }
+
+        boolean isEmpty() {
+            return priority.isEmpty();
+        }
+
+        static RoleIndex build(Map<String, Integer> roles) {
+            if (roles == null || roles.isEmpty()) {
+                return new RoleIndex(roles, null, Collections.emptyList());
+            }
+            List<RoleEntry> priority = new ArrayList<>();
+            Integer adminRoleId = roles.get(ADMIN_ROLE_KEY);
+            if (adminRoleId != null) {
+                priority.add(new RoleEntry(ADMIN_ROLE_KEY, adminRoleId));
+            }
+            Integer playerRoleId = roles.get(PLAYER_ROLE_KEY);
+            if (playerRoleId != null) {
+                priority.add(new RoleEntry(PLAYER_ROLE_KEY, playerRoleId));
+            }
+            roles.forEach((name, id) -> {
+                if (!name.equals(ADMIN_ROLE_KEY) && !name.equals(PLAYER_ROLE_KEY) && id != null) {
+                    priority.add(new RoleEntry(name, id));
+                }
+            });
+            return new RoleIndex(roles, adminRoleId, Collections.unmodifiableList(priority));
+        }
+    }
+
+    private static final class RoleEntry {
+        final String name;
+        final int id;
+
+        RoleEntry(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+    }
+}
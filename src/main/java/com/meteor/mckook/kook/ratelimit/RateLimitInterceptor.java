@@ -0,0 +1,301 @@
+package com.meteor.mckook.kook.ratelimit;
+
+import lombok.Getter;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * KOOK 接口客户端限速
+ * 按响应头 X-Rate-Limit-* 记录每个限速桶的剩余次数与重置时间 (接口路径 -> 桶 的对应关系同样从响应头得知)，
+ * 桶用完时在发送前等待到重置，而不是等服务端返回 429；仍然收到 429 时按服务端给出的时间等待后重试。
+ * 作为 OkHttp 拦截器安装在 KookBC 的 HTTP 客户端上，HttpAPI 与频道发消息等全部接口调用都会经过这里；
+ * 等待发生在调用线程中，超过最长等待时间时直接失败，由调用方按原来的方式处理。
+ */
+public class RateLimitInterceptor implements Interceptor {
+
+    private static final String HEADER_LIMIT = "X-Rate-Limit-Limit";
+    private static final String HEADER_REMAINING = "X-Rate-Limit-Remaining";
+    private static final String HEADER_RESET = "X-Rate-Limit-Reset";
+    private static final String HEADER_BUCKET = "X-Rate-Limit-Bucket";
+    private static final String HEADER_GLOBAL = "X-Rate-Limit-Global";
+    private static final int TOO_MANY_REQUESTS = 429;
+    /**
+     * 429 响应没有给出等待时间时的默认等待
+     */
+    private static final long DEFAULT_RETRY_MILLIS = 1000L;
+
+    private final Logger logger;
+    private final long maxWaitMillis;
+    private final int maxRetries;
+
+    /**
+     * 接口路径 -> 桶名
+     */
+    private final Map<String, String> routeBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    /**
+     * 触发全局限速后的解除时间 (毫秒时间戳)
+     */
+    private volatile long globalResetAtMillis;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder throttledMillis = new LongAdder();
+    private final LongAdder tooManyRequests = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param logger        日志
+     * @param maxWaitMillis 单次请求最多等待的时间 (毫秒)，超过时请求直接失败
+     * @param maxRetries    收到 429 后最多重试的次数
+     */
+    public RateLimitInterceptor(Logger logger, long maxWaitMillis, int maxRetries) {
+        this.logger = logger;
+        this.maxWaitMillis = Math.max(0L, maxWaitMillis);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String route = routeOf(request);
+        if (route == null) {
+            return chain.proceed(request);
+        }
+        long waitedMillis = 0L;
+        for (int attempt = 0; ; attempt++) {
+            waitedMillis += acquire(route, waitedMillis);
+            requests.increment();
+            Response response = chain.proceed(request);
+            update(route, response);
+            if (response.code() != TOO_MANY_REQUESTS) {
+                return response;
+            }
+            tooManyRequests.increment();
+            long delay = retryDelayMillis(response);
+            if (response.header(HEADER_GLOBAL) != null) {
+                globalResetAtMillis = System.currentTimeMillis() + delay;
+            }
+            if (attempt >= maxRetries || waitedMillis + delay > maxWaitMillis) {
+                logger.warning("[RateLimit] " + route + " 被 KOOK 限速 (429)，已重试 " + attempt + " 次，放弃本次请求。");
+                return response;
+            }
+            response.close();
+            retries.increment();
+            sleep(delay);
+            waitedMillis += delay;
+        }
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return 因桶用完在发送前等待的次数
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * @return 发送前等待的总时间 (毫秒)
+     */
+    public long getThrottledMillis() {
+        return throttledMillis.sum();
+    }
+
+    /**
+     * @return 收到 429 的次数
+     */
+    public long getTooManyRequestsCount() {
+        return tooManyRequests.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * @return 需要等待的时间超过上限而直接失败的请求数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return 已知的全部桶的当前状态，按桶名排序
+     */
+    public List<BucketSnapshot> snapshotBuckets() {
+        long now = System.currentTimeMillis();
+        List<BucketSnapshot> snapshots = new ArrayList<>();
+        buckets.forEach((name, bucket) -> snapshots.add(bucket.snapshot(name, now)));
+        snapshots.sort(Comparator.comparing(BucketSnapshot::getName));
+        return snapshots;
+    }
+
+    /**
+     * 等待直到桶中有剩余次数 (并预占一次)
+     * @param alreadyWaited 本次请求已经等待的时间，与本次等待合计不超过上限
+     * @return 本次等待的时间 (毫秒)
+     */
+    private long acquire(String route, long alreadyWaited) throws IOException {
+        long waited = 0L;
+        while (true) {
+            long now = System.currentTimeMillis();
+            long waitMillis = globalResetAtMillis - now;
+            if (waitMillis <= 0) {
+                String bucketName = routeBuckets.get(route);
+                Bucket bucket = bucketName == null ? null : buckets.get(bucketName);
+                waitMillis = bucket == null ? 0L : bucket.reserve(now);
+            }
+            if (waitMillis <= 0) {
+                if (waited > 0) {
+                    throttled.increment();
+                    throttledMillis.add(waited);
+                }
+                return waited;
+            }
+            if (alreadyWaited + waited + waitMillis > maxWaitMillis) {
+                rejected.increment();
+                throw new IOException("KOOK 接口限速: " + route + " 需要等待 " + waitMillis + " ms，超过上限 " + maxWaitMillis + " ms");
+            }
+            sleep(waitMillis);
+            waited += waitMillis;
+        }
+    }
+
+    private void update(String route, Response response) {
+        String bucketName = response.header(HEADER_BUCKET);
+        if (bucketName == null) {
+            return;
+        }
+        routeBuckets.put(route, bucketName);
+        Integer limit = parseInt(response.header(HEADER_LIMIT));
+        Integer remaining = parseInt(response.header(HEADER_REMAINING));
+        Double reset = parseDouble(response.header(HEADER_RESET));
+        if (remaining == null || reset == null) {
+            return;
+        }
+        long resetAt = System.currentTimeMillis() + (long) Math.ceil(reset * 1000);
+        buckets.computeIfAbsent(bucketName, name -> new Bucket()).update(limit == null ? 0 : limit, remaining, resetAt);
+    }
+
+    /**
+     * @return 429 响应要求的等待时间 (毫秒)
+     */
+    private static long retryDelayMillis(Response response) {
+        Double reset = parseDouble(response.header(HEADER_RESET));
+        if (reset == null) {
+            reset = parseDouble(response.header("Retry-After"));
+        }
+        if (reset == null || reset < 0) {
+            return DEFAULT_RETRY_MILLIS;
+        }
+        return Math.max(1L, (long) Math.ceil(reset * 1000));
+    }
+
+    /**
+     * @return 需要限速的接口路径，不是 KOOK HTTP 接口 (例如 WebSocket) 时为 null
+     */
+    private static String routeOf(Request request) {
+        String path = request.url().encodedPath();
+        if (!path.startsWith("/api/")) {
+            return null;
+        }
+        return request.method() + " " + path;
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待 KOOK 接口限速时被中断");
+        }
+    }
+
+    private static Integer parseInt(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 一个限速桶，服务端响应为准，两次响应之间按本地预占计数
+     */
+    private static final class Bucket {
+        private int limit;
+        private int remaining = 1;
+        private long resetAtMillis;
+
+        /**
+         * 有剩余次数时预占一次
+         * @return 0 表示已预占；否则为需要等待的时间 (毫秒)
+         */
+        synchronized long reserve(long now) {
+            if (now >= resetAtMillis && remaining <= 0) {
+                // 已过重置时间，按上限放行，真实的剩余次数等响应头更新
+                remaining = Math.max(1, limit);
+            }
+            if (remaining > 0) {
+                remaining--;
+                return 0L;
+            }
+            return Math.max(1L, resetAtMillis - now);
+        }
+
+        synchronized void update(int limit, int remaining, long resetAtMillis) {
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetAtMillis = resetAtMillis;
+        }
+
+        synchronized BucketSnapshot snapshot(String name, long now) {
+            return new BucketSnapshot(name, limit, remaining, Math.max(0L, resetAtMillis - now));
+        }
+    }
+
+    @Getter
+    public static final class BucketSnapshot {
+        private final String name;
+        private final int limit;
+        private final int remaining;
+        private final long resetInMillis;
+
+        BucketSnapshot(String name, int limit, int remaining, long resetInMillis) {
+            this.name = name;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetInMillis = resetInMillis;
+        }
+    }
+}
@@ -1,22 +1,18 @@
 package com.meteor.mckook.kook.service;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.meteor.mckook.McKook;
 import com.meteor.mckook.kook.KookBot;
 import com.meteor.mckook.kook.KookService;
 import com.meteor.mckook.model.link.KookUser;
-import com.meteor.mckook.model.link.LinkCache;
 import com.meteor.mckook.storage.DataManager;
 import com.meteor.mckook.storage.mapper.LinkRepository;
-import com.meteor.mckook.util.VerificationCodeGenerator;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
+import com.meteor.mckook.storage.mapper.result.BindResult;
 import snw.jkook.entity.User;
 
-import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 
 /**
@@ -28,20 +24,13 @@ public class LinkService implements KookService {
 
     public LinkRepository linkRepository;
 
-    /**
-     * 验证码缓存
-     */
-    private Cache<String, LinkCache> linkCacheCache;
+    private static final long RESOLVE_TIMEOUT_SECONDS = 15;
 
-    public LinkService(KookBot kookBot){
+    public LinkService(McKook plugin, KookBot kookBot){
 
+        this.plugin = plugin;
         this.kookBot = kookBot;
 
-        this.linkCacheCache = Caffeine.newBuilder()
-                .expireAfterWrite(5, TimeUnit.MINUTES) // 验证码有效期为5分钟
-                .maximumSize(500)
-                .build();
-
         this.linkRepository = DataManager.instance.getMapper(LinkRepository.class);
     }
 
@@ -50,55 +39,64 @@ public class LinkService implements KookService {
         return linkRepository.isLinked(player);
     }
 
-    public String buildVerifyCode(String player){
-        String verifyCode = VerificationCodeGenerator.generateVerificationCode();
-        linkCacheCache.put(verifyCode,new LinkCache(player));
-        return verifyCode;
+    /**
+     * 只查询绑定状态，供定时检查等高频场景使用
+     */
+    public boolean isLinked(UUID playerUuid){
+        return linkRepository.isLinked(playerUuid);
     }
 
     public KookUser getLinkUser(String player){
         return linkRepository.getLinkedKookUser(player);
     }
 
-    public KookUser link(String player,User user){
+    /**
+     * 绑定玩家与 KOOK 用户，写入是原子的，并发绑定同一玩家或同一 KOOK 账号时只有一个会成功
+     * @return 绑定结果，成功时 {@link BindResult#getLinkedUser()} 为写入的资料
+     */
+    public BindResult link(String player,User user){
+        String playerUuid = resolvePlayerUuid(player);
+        if (playerUuid == null) {
+            return BindResult.playerNotFound(player, user.getId());
+        }
+        return link(UUID.fromString(playerUuid), player, user);
+    }
+
+    /**
+     * 绑定已知 UUID 的玩家 (例如验证码中记录的 UUID)，不再按玩家名解析
+     */
+    public BindResult link(UUID playerUuid, String player, User user){
+        plugin.getUuidResolver().remember(player, playerUuid);
         KookUser kookUser = new KookUser();
-        kookUser.setPlayer_uuid(setPlayerUuid(player));
+        kookUser.setPlayer_uuid(playerUuid.toString());
         kookUser.setKook_id(user.getId());
         kookUser.setPlayer(player);
         kookUser.setUserName(user.getName());
         kookUser.setAvatar(user.getAvatarUrl(false));
         kookUser.setMobileVerified(true);
         kookUser.setJoinedAt(System.currentTimeMillis());
-        kookUser.setNickName(user.getNickName(kookBot.getGuild()));
-        linkRepository.link(player,kookUser);
-        return kookUser;
+        kookUser.setNickName(kookBot.getEntityCache().getNickName(user, kookBot.getGuild()));
+        return linkRepository.bindUser(kookUser);
     }
 
-    private String setPlayerUuid(String player) {
-        if (Bukkit.getPlayerExact(player) == null) {
-            //说明玩家不在线
-            try {
-                // Bukkit.getOfflinePlayer 可能会执行阻塞的网络调用。
-                OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(player);
-                UUID uuid = offlinePlayer.getUniqueId();
-
-                if (uuid == null) {
-                    // 这种情况对于有效的 playerName 来说比较罕见，但最好处理。
-                    this.plugin.getLogger().warning("[LinkService] 无法获取玩家 " + player + " 的UUID。该玩家可能从未在此服务器或以该名称登录。");
-                    return null;
-                }
-                return uuid.toString();
-            } catch (Exception e) {
-                // 捕获泛型 Exception 可能隐藏具体问题，但在此处作为基本错误处理。
-                this.plugin.getLogger().log(Level.WARNING, "[LinkService] 获取玩家 " + player + " 的UUID时发生异常: " + e.getMessage(), e);
+    /**
+     * 解析玩家 UUID，本地无法确定时等待远程查询 (在 KOOK 事件线程中调用，不会阻塞服务器主线程)
+     */
+    private String resolvePlayerUuid(String player) {
+        try {
+            UUID uuid = plugin.getUuidResolver().resolve(player).get(RESOLVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (uuid == null) {
+                this.plugin.getLogger().warning("[LinkService] 无法获取玩家 " + player + " 的UUID。该玩家可能不存在或从未在此服务器登录。");
                 return null;
             }
+            return uuid.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            this.plugin.getLogger().log(Level.WARNING, "[LinkService] 获取玩家 " + player + " 的UUID时发生异常: " + e.getMessage(), e);
+            return null;
         }
-        return Objects.requireNonNull(Bukkit.getPlayerExact(player)).getUniqueId().toString();
-    }
-
-    public LinkCache getLinkCache(String verifyCode){
-        return linkCacheCache.getIfPresent(verifyCode);
     }
 
     public boolean kookUserIsLinked(String kookId){
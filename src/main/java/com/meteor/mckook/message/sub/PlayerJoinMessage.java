@@ -90,7 +90,8 @@ public class PlayerJoinMessage extends AbstractKookMessage implements Listener {
 
         if (this.linkService != null) {
             try {
-                boolean isLinked = this.linkService.isLinked(playerName);
+                // 绑定状态已在登录前异步获取，这里不访问数据库
+                boolean isLinked = getPlugin().getLinkSessionManager().isLinked(joinEvent.getPlayer());
                 kookStatusText = isLinked ? "已绑定Kook" : "未绑定Kook";
             } catch (Exception e) {
                 getPlugin().getLogger().log(Level.WARNING, LOG_PREFIX + "查询玩家 " + playerName + " 的Kook绑定状态时出错: " + e.getMessage(), e);
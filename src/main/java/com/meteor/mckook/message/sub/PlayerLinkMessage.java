@@ -6,6 +6,7 @@ import com.meteor.mckook.message.AbstractKookMessage;
 import com.meteor.mckook.config.Config;
 import com.meteor.mckook.model.link.KookUser;
 import com.meteor.mckook.model.link.LinkCache;
+import com.meteor.mckook.storage.mapper.result.BindResult;
 import com.meteor.mckook.util.TextComponentHelper;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
@@ -80,7 +81,7 @@ public class PlayerLinkMessage extends AbstractKookMessage {
             String verifyCode = channelMessageEvent.getMessage().getComponent().toString();
             getPlugin().getLogger().info("[DEBUG] 消息内容（验证码）: " + verifyCode);
             // 2. 获取验证码对应玩家
-            LinkCache linkCache = linkService.getLinkCache(verifyCode);
+            LinkCache linkCache = getPlugin().getVerificationCodeRegistry().getByCode(verifyCode);
             if (linkCache == null) {
                 getPlugin().getLogger().info("[DEBUG] 无效验证码或已过期");
                 getPlugin().getKookBot().sendPlainText(getUseChannelList(), verifyCode_Error_message);
@@ -90,7 +91,7 @@ public class PlayerLinkMessage extends AbstractKookMessage {
             User sender = channelMessageEvent.getMessage().getSender();
             getPlugin().getLogger().info("[DEBUG] 验证码对应玩家: " + playerName);
             getPlugin().getLogger().info("[DEBUG] 消息发送者 ID: " + sender.getId());
-            if (linkService.isLinked(playerName)) {
+            if (linkService.isLinked(linkCache.getPlayerUuid())) {
                 getPlugin().getLogger().info("[DEBUG] 玩家已绑定: " + playerName);
                 return;
             }
@@ -102,7 +103,19 @@ public class PlayerLinkMessage extends AbstractKookMessage {
             }
             // 3. 执行绑定
             getPlugin().getLogger().info("[DEBUG] 执行绑定: " + playerName + " <-> " + sender.getId());
-            KookUser kookUser = linkService.link(playerName, sender);
+            BindResult bindResult = linkService.link(linkCache.getPlayerUuid(), playerName, sender);
+            // 上面的检查与写入之间可能有并发绑定，以写入结果为准
+            if (bindResult.getStatus() == BindResult.Status.KOOK_ID_ALREADY_LINKED) {
+                getPlugin().getKookBot().sendPlainText(getUseChannelList(), alreadybind_Message);
+                return;
+            }
+            if (!bindResult.isSuccess()) {
+                getPlugin().getLogger().info("[DEBUG] 绑定未完成: " + bindResult.getMessage());
+                return;
+            }
+            KookUser kookUser = bindResult.getLinkedUser();
+            // 验证码只能使用一次
+            getPlugin().getVerificationCodeRegistry().invalidate(linkCache);
 
             // 4. KOOK内发送绑定成功消息
             Map<String, String> context = new HashMap<>();
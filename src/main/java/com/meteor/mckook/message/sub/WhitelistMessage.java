@@ -1,11 +1,10 @@
 package com.meteor.mckook.message.sub;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.meteor.mckook.McKook;
 import com.meteor.mckook.kook.service.LinkService;
 import com.meteor.mckook.message.AbstractKookMessage;
 import com.meteor.mckook.config.Config;
+import com.meteor.mckook.model.link.LinkCache;
 import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.ClickEvent;
 import net.md_5.bungee.api.chat.HoverEvent;
@@ -15,6 +14,8 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
@@ -22,7 +23,7 @@ import org.bukkit.event.player.PlayerQuitEvent;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.UUID;
 import java.util.logging.Level; // 新增导入
 
 public class WhitelistMessage extends AbstractKookMessage {
@@ -40,13 +41,13 @@ public class WhitelistMessage extends AbstractKookMessage {
     private final String channelName; // 从 WhitelistMessage.yml 读取
     private final boolean whitelistModuleEnabled; // 从 config.yml 的 setting.whitelist.enable 读取
     private final boolean actionCheckEnabled; // 新增：从 config.yml 的 setting.whitelist.check-range.action 读取
+    private final boolean preLoginGateEnabled; // 从 config.yml 的 setting.whitelist.check-range.pre-login 读取
 
     private final List<String> promptLinkMessageTemplate; // 从 WhitelistMessage.yml 读取
     private final String kickForUnlinkedMessageTemplate; // 从 WhitelistMessage.yml 读取
     private final long kickDelayTicks; // 从 config.yml 计算
 
     private final LinkService linkService;
-    private final Cache<String, String> playerToVerifyCodeCache;
     // ... 其他字段 ...
     private final YamlConfiguration messageFileConfiguration; // 新增字段
     private static final String LOG_PREFIX = "[白名单检测 PlayerJoinEvent] ";
@@ -63,6 +64,7 @@ public class WhitelistMessage extends AbstractKookMessage {
         int kickDelaySeconds = Config.get().getWhitelistKickDelaySeconds();
         this.kickDelayTicks = kickDelaySeconds * 20L;
         this.actionCheckEnabled = Config.get().isWhitelistActionCheckEnabled();
+        this.preLoginGateEnabled = Config.get().isWhitelistPreLoginGateEnabled();
         this.titleReminderEnabled = Config.get().isTitleReminderEnabled();
         int intervalSeconds = Config.get().getTitleReminderIntervalSeconds();
         this.titleReminderIntervalTicks = intervalSeconds * 20L;
@@ -86,13 +88,11 @@ public class WhitelistMessage extends AbstractKookMessage {
             // this.whitelistModuleEnabled = false; // 如果 LinkService 必须，则强制禁用
         }
 
-        this.playerToVerifyCodeCache = Caffeine.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .maximumSize(500)
-                .build();
-
         if (this.whitelistModuleEnabled) {
             plugin.getLogger().info(LOG_PREFIX + "白名单模块已启用 (根据 config.yml)。");
+            if (this.preLoginGateEnabled) {
+                plugin.getLogger().info(LOG_PREFIX + "登录前拦截已启用，未绑定玩家将无法进入服务器。");
+            }
             if (this.actionCheckEnabled) {
                 plugin.getLogger().info(LOG_PREFIX + "未绑定玩家移动限制功能已启用。");
             } else {
@@ -111,6 +111,32 @@ public class WhitelistMessage extends AbstractKookMessage {
         return "服务器白名单处理";
     }
 
+    /**
+     * 登录前拦截: 在异步线程中检查绑定状态，未绑定的玩家直接拒绝登录，不会加载世界与玩家数据
+     * 检查失败时放行，交由加入服务器后的检测处理
+     */
+    @org.bukkit.event.EventHandler(priority = EventPriority.HIGH)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (!this.whitelistModuleEnabled || !this.preLoginGateEnabled || this.linkService == null) {
+            return;
+        }
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        String playerName = event.getName();
+        try {
+            if (linkService.isLinked(event.getUniqueId())) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            getPlugin().getLogger().log(Level.WARNING, LOG_PREFIX + "登录前检查玩家 " + playerName + " 的绑定状态失败，放行至加入服务器后再检测。", e);
+            return;
+        }
+        String verifyCode = obtainVerifyCode(event.getUniqueId(), playerName);
+        event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_WHITELIST, buildKickMessage(playerName, verifyCode));
+        getPlugin().getLogger().info(LOG_PREFIX + "玩家 " + playerName + " 未绑定KOOK账户，已在登录前拒绝。验证码: " + verifyCode);
+    }
+
     @org.bukkit.event.EventHandler
     public void onJoin(PlayerJoinEvent joinEvent) {
         Player player = joinEvent.getPlayer();
@@ -126,8 +152,8 @@ public class WhitelistMessage extends AbstractKookMessage {
             return;
         }
 
-        // 检查3: 玩家是否已经绑定
-        if (linkService.isLinked(playerName)) {
+        // 检查3: 玩家是否已经绑定 (登录前已异步获取，这里不访问数据库)
+        if (getPlugin().getLinkSessionManager().isLinked(player)) {
             getPlugin().getLogger().info(LOG_PREFIX + "玩家 " + playerName + " 已绑定KOOK账户。");
             // 如果玩家之前因为某些原因在缓存中，确保移除
             if (this.unlinkedPlayerCache.containsKey(player)) {
@@ -153,14 +179,7 @@ public class WhitelistMessage extends AbstractKookMessage {
     }
     private void processUnlinkedPlayerOnJoin(Player player, String playerName) {
         // 1. 生成/获取验证码
-        String verifyCode = playerToVerifyCodeCache.getIfPresent(playerName);
-        if (verifyCode == null || linkService.getLinkCache(verifyCode) == null) {
-            verifyCode = linkService.buildVerifyCode(playerName);
-            playerToVerifyCodeCache.put(playerName, verifyCode);
-            getPlugin().getLogger().info(LOG_PREFIX + "为玩家 " + playerName + " 生成了新的验证码: " + verifyCode);
-        } else {
-            getPlugin().getLogger().info(LOG_PREFIX + "玩家 " + playerName + " 复用已存在的验证码: " + verifyCode);
-        }
+        String verifyCode = obtainVerifyCode(player.getUniqueId(), playerName);
 
         // 2. 发送绑定提示消息
         sendLinkPromptMessage(player, verifyCode);
@@ -175,17 +194,29 @@ public class WhitelistMessage extends AbstractKookMessage {
         boolean joinKickEnabledInConfig = Config.get().isWhitelistJoinKickEnabled();
         if (joinKickEnabledInConfig) {
             getPlugin().getLogger().info(LOG_PREFIX + "玩家 " + playerName + " 的 join 踢出检查已启用，将计划踢出。");
-            String kickMessage = ChatColor.translateAlternateColorCodes('&',
-                    this.kickForUnlinkedMessageTemplate
-                            .replace("{player}", playerName)
-                            .replace("{channel_name}", this.channelName)
-                            .replace("{verifyCode}", verifyCode)
-            );
-            scheduleKickForUnlinkedPlayer(player, playerName, kickMessage, verifyCode);
+            scheduleKickForUnlinkedPlayer(player, playerName, buildKickMessage(playerName, verifyCode), verifyCode);
         } else {
             getPlugin().getLogger().finer(LOG_PREFIX + "玩家 " + playerName + " 的 'setting.whitelist.check-range.join' (踢出逻辑) 为 false，不执行踢出。");
         }
     }
+
+    /**
+     * 复用玩家仍然有效的验证码，没有时生成新的 (登录前检查在异步线程调用，验证码登记表是线程安全的)
+     */
+    private String obtainVerifyCode(UUID playerUuid, String playerName) {
+        LinkCache linkCache = getPlugin().getVerificationCodeRegistry().issue(playerUuid, playerName);
+        getPlugin().getLogger().info(LOG_PREFIX + "玩家 " + playerName + " 的验证码: " + linkCache.getVerifyCode());
+        return linkCache.getVerifyCode();
+    }
+
+    private String buildKickMessage(String playerName, String verifyCode) {
+        return ChatColor.translateAlternateColorCodes('&',
+                this.kickForUnlinkedMessageTemplate
+                        .replace("{player}", playerName)
+                        .replace("{channel_name}", this.channelName)
+                        .replace("{verifyCode}", verifyCode)
+        );
+    }
     private void sendLinkPromptMessage(Player player, String verifyCode) {
         if (promptLinkMessageTemplate.isEmpty()) {
             player.sendMessage(ChatColor.RED + "错误: 白名单提示消息模板未在 WhitelistMessage.yml 中配置。");
@@ -253,10 +284,10 @@ public class WhitelistMessage extends AbstractKookMessage {
      */
     private void scheduleKickForUnlinkedPlayer(Player player, String playerName, String kickMessage, String verifyCodeForLog) {
         Bukkit.getScheduler().runTaskLater(getPlugin(), () -> {
-            if (player.isOnline() && !linkService.isLinked(playerName)) {
+            if (player.isOnline() && !linkService.isLinked(player.getUniqueId())) {
                 player.kickPlayer(kickMessage);
                 getPlugin().getLogger().info(LOG_PREFIX + "玩家 " + playerName + " 因未在 " + (this.kickDelayTicks / 20L) + " 秒内绑定KOOK而被踢出。验证码: " + verifyCodeForLog);
-            } else if (player.isOnline() && linkService.isLinked(playerName)) {
+            } else if (player.isOnline()) {
                 getPlugin().getLogger().info(LOG_PREFIX + "玩家 " + playerName + " 在计划踢出前已成功绑定。");
             }
         }, this.kickDelayTicks);
@@ -309,7 +340,7 @@ public class WhitelistMessage extends AbstractKookMessage {
 
         // 创建新的循环任务
         int taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(getPlugin(), () -> {
-            if (player.isOnline() && !linkService.isLinked(player.getName())) {
+            if (player.isOnline() && !linkService.isLinked(player.getUniqueId())) {
                 // 从配置文件获取Title消息
                 String titleText = messageFileConfiguration.getString("message.prompt-title.title", "&c请绑定KOOK账户！");
                 String subtitleText = messageFileConfiguration.getString("message.prompt-title.subtitle", "&f您的验证码是: &b&l{verifyCode}");
@@ -1,8 +1,11 @@
 package com.meteor.mckook.model.link;
 
+import com.meteor.mckook.reflect.orm.Convert;
 import com.meteor.mckook.reflect.orm.FieldListable;
 import com.meteor.mckook.reflect.orm.FieldOrder;
 import com.meteor.mckook.reflect.orm.ResultSetPopulatable;
+import com.meteor.mckook.storage.codec.KookIdConverter;
+import com.meteor.mckook.storage.codec.UuidBytesConverter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,9 +17,11 @@ import lombok.NoArgsConstructor;
 public class KookUser implements FieldListable {
     //绑定玩家游戏的uuid
     @FieldOrder(1)
+    @Convert(UuidBytesConverter.class)
     private String player_uuid;
     // 绑定玩家KOOK身份 KOOK_id
     @FieldOrder(2)
+    @Convert(KookIdConverter.class)
     private String kook_id;
     // 绑定玩家名
     @FieldOrder(3)
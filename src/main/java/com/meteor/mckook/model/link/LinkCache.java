@@ -3,11 +3,19 @@ package com.meteor.mckook.model.link;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.util.UUID;
+
 /**
- * 绑定账户缓存
+ * 绑定账户缓存 (一条待使用的验证码)
  */
 @Data
 @AllArgsConstructor
 public class LinkCache {
+    private String verifyCode;
+    private UUID playerUuid;
     private String playerName;
+    /**
+     * 过期时间 (毫秒时间戳)
+     */
+    private long expiresAt;
 }
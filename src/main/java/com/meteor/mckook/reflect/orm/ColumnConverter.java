@@ -0,0 +1,25 @@
+package com.meteor.mckook.reflect.orm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 字段与数据库列之间的类型转换，通过 {@link Convert} 声明在字段上
+ * 实现类需要提供无参构造函数，每个实体类只会创建一次。
+ * @param <J> 字段类型
+ */
+public interface ColumnConverter<J> {
+
+    /**
+     * @param value 字段值
+     * @return 写入数据库的值
+     */
+    Object toDatabase(J value);
+
+    /**
+     * @param resultSet   结果集
+     * @param columnIndex 列下标 (从 1 开始)
+     * @return 字段值
+     */
+    J fromResultSet(ResultSet resultSet, int columnIndex) throws SQLException;
+}
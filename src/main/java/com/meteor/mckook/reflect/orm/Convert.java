@@ -0,0 +1,15 @@
+package com.meteor.mckook.reflect.orm;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定字段读写数据库时使用的转换器
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Convert {
+    Class<? extends ColumnConverter<?>> value();
+}
@@ -0,0 +1,207 @@
+package com.meteor.mckook.reflect.orm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 实体与数据库行之间的映射
+ * 每个实体类只在第一次使用时解析一次 @FieldOrder / @Convert，并生成字段的 MethodHandle 访问器，
+ * 之后按列下标使用对应类型的 getXxx 读取，不再逐行反射。
+ * 读取时结果集的列顺序需要与 {@link #getColumnList()} 一致。
+ * @param <T> 实体类型
+ */
+public final class EntityMapper<T> {
+
+    private static final ClassValue<EntityMapper<?>> MAPPERS = new ClassValue<EntityMapper<?>>() {
+        @Override
+        protected EntityMapper<?> computeValue(Class<?> type) {
+            return new EntityMapper<>(type);
+        }
+    };
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet resultSet, int columnIndex) throws SQLException;
+    }
+
+    private static final class Column {
+        final String name;
+        final MethodHandle getter;
+        final MethodHandle setter;
+        final ColumnReader reader;
+        final ColumnConverter<Object> converter;
+
+        Column(String name, MethodHandle getter, MethodHandle setter, ColumnReader reader, ColumnConverter<Object> converter) {
+            this.name = name;
+            this.getter = getter;
+            this.setter = setter;
+            this.reader = reader;
+            this.converter = converter;
+        }
+    }
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final Column[] columns;
+    private final String columnList;
+
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMapper<T> of(Class<T> type) {
+        return (EntityMapper<T>) MAPPERS.get(type);
+    }
+
+    private EntityMapper(Class<T> type) {
+        this.type = type;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+
+            List<Field> fields = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && field.isAnnotationPresent(FieldOrder.class)) {
+                    fields.add(field);
+                }
+            }
+            fields.sort(Comparator.comparingInt(f -> f.getAnnotation(FieldOrder.class).value()));
+
+            this.columns = new Column[fields.size()];
+            StringJoiner joiner = new StringJoiner(", ");
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
+                MethodHandle getter = lookup.unreflectGetter(field)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                MethodHandle setter = lookup.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                Convert convert = field.getAnnotation(Convert.class);
+                ColumnConverter<Object> converter = convert == null ? null : createConverter(convert.value());
+                columns[i] = new Column(field.getName(), getter, setter, readerFor(field.getType()), converter);
+                joiner.add(field.getName());
+            }
+            this.columnList = joiner.toString();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("无法为实体类 " + type.getName() + " 创建映射: " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ColumnConverter<Object> createConverter(Class<? extends ColumnConverter<?>> converterType)
+            throws ReflectiveOperationException {
+        return (ColumnConverter<Object>) converterType.getDeclaredConstructor().newInstance();
+    }
+
+    private static ColumnReader readerFor(Class<?> fieldType) {
+        if (fieldType == String.class) return ResultSet::getString;
+        if (fieldType == boolean.class) return ResultSet::getBoolean;
+        if (fieldType == long.class) return ResultSet::getLong;
+        if (fieldType == int.class) return ResultSet::getInt;
+        if (fieldType == double.class) return ResultSet::getDouble;
+        if (fieldType == float.class) return ResultSet::getFloat;
+        if (fieldType == short.class) return ResultSet::getShort;
+        if (fieldType == byte.class) return ResultSet::getByte;
+        if (fieldType == byte[].class) return ResultSet::getBytes;
+        if (fieldType == Boolean.class) return (rs, i) -> {
+            boolean value = rs.getBoolean(i);
+            return rs.wasNull() ? null : value;
+        };
+        if (fieldType == Long.class) return (rs, i) -> {
+            long value = rs.getLong(i);
+            return rs.wasNull() ? null : value;
+        };
+        if (fieldType == Integer.class) return (rs, i) -> {
+            int value = rs.getInt(i);
+            return rs.wasNull() ? null : value;
+        };
+        return (rs, i) -> rs.getObject(i, fieldType);
+    }
+
+    /**
+     * @return 按 @FieldOrder 排列的列名，以逗号分隔，可直接用于 SELECT / INSERT
+     */
+    public String getColumnList() {
+        return columnList;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * 从结果集当前行创建实体，列从第 1 列开始按 {@link #getColumnList()} 的顺序读取
+     */
+    public T map(ResultSet resultSet) throws SQLException {
+        T instance = newInstance();
+        populate(instance, resultSet);
+        return instance;
+    }
+
+    /**
+     * 使用结果集当前行填充已有实体
+     */
+    public void populate(T instance, ResultSet resultSet) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            Object value = column.converter != null
+                    ? column.converter.fromResultSet(resultSet, i + 1)
+                    : column.reader.read(resultSet, i + 1);
+            // 基本类型字段遇到 NULL 时保留默认值
+            if (value != null) {
+                set(column, instance, value);
+            }
+        }
+    }
+
+    /**
+     * @return 按列顺序排列、已经过转换器处理的参数值，可直接传给 PreparedStatement
+     */
+    public List<Object> toParams(T instance) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            Object value = get(column, instance);
+            values[i] = column.converter != null ? column.converter.toDatabase(value) : value;
+        }
+        return Arrays.asList(values);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() {
+        try {
+            return (T) (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("创建实体 " + type.getName() + " 失败", e);
+        }
+    }
+
+    private Object get(Column column, Object instance) {
+        try {
+            return (Object) column.getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("读取字段 " + column.name + " 失败", e);
+        }
+    }
+
+    private void set(Column column, Object instance, Object value) {
+        try {
+            column.setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("写入字段 " + column.name + " 失败", e);
+        }
+    }
+}
@@ -1,63 +1,31 @@
 package com.meteor.mckook.reflect.orm;
 
-import java.lang.reflect.Field;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 
 /**
  * 数据库实体接口
+ * 字段的读写由 {@link EntityMapper} 完成，每个实体类只解析一次。
  */
 public interface FieldListable {
 
     /**
-     * 获取类所有字段 (按照定义的列顺序)
+     * 获取类所有字段 (按照定义的列顺序，已经过 @Convert 转换，可直接作为 SQL 参数)
      * @return
      */
+    @SuppressWarnings({"unchecked", "rawtypes"})
     default List<Object> getFieldList() {
-        Field[] fields = this.getClass().getDeclaredFields();
-        Arrays.sort(fields, Comparator.comparingInt(f -> f.getAnnotation(FieldOrder.class).value()));
-
-        List<Object> values = new ArrayList<>();
-        for (Field field : fields) {
-            field.setAccessible(true);
-            try {
-                values.add(field.get(this));
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
-        }
-        return values;
+        return ((EntityMapper) EntityMapper.of(this.getClass())).toParams(this);
     }
 
     /**
-     * 从 ResultSet 初始化字段
+     * 从 ResultSet 当前行初始化字段，列顺序需与 @FieldOrder 一致
      * @param resultSet
      * @throws SQLException
      */
+    @SuppressWarnings({"unchecked", "rawtypes"})
     default void populateFieldsFromResultSet(ResultSet resultSet) throws SQLException {
-        Field[] fields = this.getClass().getDeclaredFields();
-
-        for (Field field : fields) {
-            field.setAccessible(true);
-            String fieldName = field.getName();
-            try {
-                Object value = resultSet.getObject(fieldName);
-                if (value != null) {
-                    if(value instanceof Integer it){
-                        field.set(this,it==1);
-                        return;
-                    }
-                    field.set(this, value);
-                }
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException("Error accessing field: " + fieldName, e);
-            } catch (SQLException e) {
-                System.out.println("Column not found in ResultSet: " + fieldName);
-            }
-        }
+        ((EntityMapper) EntityMapper.of(this.getClass())).populate(this, resultSet);
     }
 }
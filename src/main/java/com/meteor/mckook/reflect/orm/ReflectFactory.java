@@ -7,25 +7,18 @@ import java.sql.SQLException;
 public class ReflectFactory {
 
     /**
-     * 通过 ResultSet 填充对象
+     * 通过 ResultSet 当前行创建对象，列顺序需与 @FieldOrder 一致
      * @param clazz
      * @param resultSet
      * @return
      * @param <T>
      * @throws SQLException
-     * @throws IllegalAccessException
-     * @throws InstantiationException
      */
-    public static <T> T createAndPopulate(Class<T> clazz, ResultSet resultSet) throws
-            SQLException, IllegalAccessException, InstantiationException {
+    public static <T> T createAndPopulate(Class<T> clazz, ResultSet resultSet) throws SQLException {
         if (!clazz.isAnnotationPresent(ResultSetPopulatable.class)) {
             throw new IllegalArgumentException("Class " + clazz.getName() + " is not annotated with ResultSetPopulatable");
         }
-        T instance = clazz.newInstance();
-        if (instance instanceof FieldListable) {
-            ((FieldListable) instance).populateFieldsFromResultSet(resultSet);
-        }
-        return instance;
+        return EntityMapper.of(clazz).map(resultSet);
     }
 
 
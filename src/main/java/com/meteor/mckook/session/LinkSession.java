@@ -0,0 +1,33 @@
+package com.meteor.mckook.session;
+
+import com.meteor.mckook.model.link.KookUser;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 玩家本次会话的绑定状态快照，在登录前 (AsyncPlayerPreLoginEvent) 异步获取
+ */
+@Getter
+public final class LinkSession {
+
+    private final UUID playerUuid;
+    private final String playerName;
+    private final boolean linked;
+    /**
+     * 绑定资料，未绑定时为 null
+     */
+    private final KookUser kookUser;
+    /**
+     * 获取快照的时间 (毫秒)
+     */
+    private final long resolvedAt;
+
+    public LinkSession(UUID playerUuid, String playerName, boolean linked, KookUser kookUser) {
+        this.playerUuid = playerUuid;
+        this.playerName = playerName;
+        this.linked = linked;
+        this.kookUser = kookUser;
+        this.resolvedAt = System.currentTimeMillis();
+    }
+}
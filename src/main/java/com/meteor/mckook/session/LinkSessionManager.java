@@ -0,0 +1,98 @@
+package com.meteor.mckook.session;
+
+import com.meteor.mckook.McKook;
+import com.meteor.mckook.model.link.KookUser;
+import com.meteor.mckook.storage.mapper.LinkRepository;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * 玩家会话的绑定状态
+ * 登录前在异步线程中解析绑定状态并预热绑定资料，加入服务器时的处理直接读取快照，不在主线程访问数据库。
+ * 快照反映的是登录时的状态，之后的绑定变化请直接查询 LinkRepository。
+ */
+public class LinkSessionManager implements Listener {
+
+    private final McKook plugin;
+    private final Map<UUID, LinkSession> sessions = new ConcurrentHashMap<>();
+
+    public LinkSessionManager(McKook plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        UUID playerUuid = event.getUniqueId();
+        String playerName = event.getName();
+        // 登录时 UUID 已确定，直接登记，后续按玩家名的查询无需再解析
+        plugin.getUuidResolver().remember(playerName, playerUuid);
+
+        LinkRepository linkRepository = plugin.getLinkRepository();
+        if (linkRepository == null) {
+            return;
+        }
+        try {
+            boolean linked = linkRepository.isLinked(playerUuid, playerName);
+            KookUser kookUser = linked
+                    ? linkRepository.getLinkedKookUsers(Collections.singletonList(playerUuid)).get(playerUuid)
+                    : null;
+            sessions.put(playerUuid, new LinkSession(playerUuid, playerName, linked, kookUser));
+        } catch (RuntimeException e) {
+            // 获取失败时不保存快照，加入服务器时回退到直接查询
+            sessions.remove(playerUuid);
+            plugin.getLogger().log(Level.WARNING, "[LinkSession] 预取玩家 " + playerName + " 的绑定状态失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 预取之后被其他插件拒绝登录的玩家不会触发退出事件，在这里清理
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            sessions.remove(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        sessions.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * @return 登录时获取的会话快照，未能预取时为 null
+     */
+    public LinkSession getSession(UUID playerUuid) {
+        return sessions.get(playerUuid);
+    }
+
+    /**
+     * 玩家是否已绑定：优先使用登录时的快照，没有快照时按 UUID 查询
+     */
+    public boolean isLinked(Player player) {
+        LinkSession session = sessions.get(player.getUniqueId());
+        if (session != null) {
+            return session.isLinked();
+        }
+        LinkRepository linkRepository = plugin.getLinkRepository();
+        return linkRepository != null && linkRepository.isLinked(player.getUniqueId());
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+}
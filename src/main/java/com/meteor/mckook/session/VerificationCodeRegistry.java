@@ -0,0 +1,159 @@
+package com.meteor.mckook.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.meteor.mckook.model.link.LinkCache;
+import com.meteor.mckook.storage.mapper.VerifyCodeRepository;
+import com.meteor.mckook.util.VerificationCodeGenerator;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 绑定验证码登记表
+ * 同时维护 验证码 -> 玩家 与 玩家 UUID -> 验证码 两个方向，两边共用同一条记录与同一个过期时间。
+ * 分配时从随机位置开始在验证码空间中顺序查找空位，不会覆盖其他玩家仍然有效的验证码；不限制条目数量，有效的验证码不会被提前淘汰。
+ * 所有方法都是线程安全的，可以在登录前的异步线程中调用。
+ * 设置了 {@link VerifyCodeRepository} 时，分配与作废经延迟写入队列持久化，重启后由 {@link #restore} 恢复；查询只读内存。
+ */
+public class VerificationCodeRegistry {
+
+    private final long expireMillis;
+    private final Cache<String, LinkCache> byCode;
+    private final Cache<UUID, LinkCache> byPlayer;
+    /**
+     * 数据库不可用时为 null，验证码只保存在内存中
+     */
+    private final VerifyCodeRepository repository;
+
+    public VerificationCodeRegistry(long expireMinutes, VerifyCodeRepository repository) {
+        this.repository = repository;
+        this.expireMillis = TimeUnit.MINUTES.toMillis(Math.max(1L, expireMinutes));
+        this.byCode = Caffeine.newBuilder().expireAfter(new UntilExpiresAt<String>()).build();
+        this.byPlayer = Caffeine.newBuilder().expireAfter(new UntilExpiresAt<UUID>()).build();
+    }
+
+    /**
+     * 获取玩家仍然有效的验证码，没有时分配一个新的
+     * @throws IllegalStateException 验证码空间已全部占用
+     */
+    public LinkCache issue(UUID playerUuid, String playerName) {
+        LinkCache[] allocated = new LinkCache[1];
+        LinkCache linkCache = byPlayer.asMap().compute(playerUuid, (uuid, existing) -> {
+            if (existing != null && byCode.getIfPresent(existing.getVerifyCode()) == existing) {
+                return existing;
+            }
+            if (existing != null) {
+                byCode.asMap().remove(existing.getVerifyCode(), existing);
+            }
+            return allocated[0] = allocate(uuid, playerName);
+        });
+        if (allocated[0] != null && repository != null) {
+            repository.save(allocated[0]);
+        }
+        return linkCache;
+    }
+
+    /**
+     * 恢复启动前保存的验证码，需在分配任何验证码之前调用；
+     * 否则新分配的验证码可能与尚未恢复的验证码相同，并在持久化时覆盖它。已存在的验证码或玩家保持不变。
+     * @return 恢复的数量
+     */
+    public int restore(Collection<LinkCache> saved) {
+        int restored = 0;
+        long now = System.currentTimeMillis();
+        for (LinkCache linkCache : saved) {
+            if (linkCache.getExpiresAt() <= now) {
+                continue;
+            }
+            if (byCode.asMap().putIfAbsent(linkCache.getVerifyCode(), linkCache) != null) {
+                continue;
+            }
+            if (byPlayer.asMap().putIfAbsent(linkCache.getPlayerUuid(), linkCache) != null) {
+                byCode.asMap().remove(linkCache.getVerifyCode(), linkCache);
+                continue;
+            }
+            restored++;
+        }
+        return restored;
+    }
+
+    /**
+     * @return 玩家仍然有效的验证码，没有时为 null
+     */
+    public LinkCache getByPlayer(UUID playerUuid) {
+        LinkCache linkCache = byPlayer.getIfPresent(playerUuid);
+        if (linkCache == null || byCode.getIfPresent(linkCache.getVerifyCode()) != linkCache) {
+            return null;
+        }
+        return linkCache;
+    }
+
+    /**
+     * @return 验证码对应的记录，无效或已过期时为 null
+     */
+    public LinkCache getByCode(String verifyCode) {
+        if (verifyCode == null) {
+            return null;
+        }
+        return byCode.getIfPresent(verifyCode.trim());
+    }
+
+    /**
+     * 验证码使用后作废，两个方向同时移除
+     */
+    public void invalidate(LinkCache linkCache) {
+        if (linkCache == null) {
+            return;
+        }
+        boolean removed = byCode.asMap().remove(linkCache.getVerifyCode(), linkCache);
+        byPlayer.asMap().remove(linkCache.getPlayerUuid(), linkCache);
+        if (removed && repository != null) {
+            repository.expire(linkCache);
+        }
+    }
+
+    public void invalidate(UUID playerUuid) {
+        invalidate(byPlayer.getIfPresent(playerUuid));
+    }
+
+    public long size() {
+        byCode.cleanUp();
+        return byCode.estimatedSize();
+    }
+
+    private LinkCache allocate(UUID playerUuid, String playerName) {
+        long expiresAt = System.currentTimeMillis() + expireMillis;
+        int start = VerificationCodeGenerator.randomIndex();
+        for (int offset = 0; offset < VerificationCodeGenerator.CODE_SPACE; offset++) {
+            String verifyCode = VerificationCodeGenerator.format(start + offset);
+            LinkCache linkCache = new LinkCache(verifyCode, playerUuid, playerName, expiresAt);
+            if (byCode.asMap().putIfAbsent(verifyCode, linkCache) == null) {
+                return linkCache;
+            }
+        }
+        throw new IllegalStateException("没有可用的验证码，当前有效验证码数量: " + byCode.estimatedSize());
+    }
+
+    /**
+     * 按记录中的过期时间过期，读取与更新都不会延长有效期
+     */
+    private static final class UntilExpiresAt<K> implements Expiry<K, LinkCache> {
+        @Override
+        public long expireAfterCreate(K key, LinkCache value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, value.getExpiresAt() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, LinkCache value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, LinkCache value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,70 +1,110 @@
 package com.meteor.mckook.storage;
 
+import com.meteor.mckook.storage.pool.ConnectionPool;
+import com.meteor.mckook.storage.pool.PoolSettings;
+
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public abstract class AbstractDatabase implements Database {
 
+    private volatile ConnectionPool connectionPool;
+
+    /**
+     * 初始化连接池，由具体数据库实现在 connect() 中调用
+     * @param settings 连接池参数
+     * @throws SQLException
+     */
+    protected void initPool(PoolSettings settings) throws SQLException {
+        this.connectionPool = new ConnectionPool(this, settings);
+    }
+
+    /**
+     * 关闭连接池
+     * @throws SQLException
+     */
+    protected void closePool() throws SQLException {
+        ConnectionPool pool = this.connectionPool;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    protected ConnectionPool getPool() {
+        ConnectionPool pool = this.connectionPool;
+        if (pool == null) {
+            throw new IllegalStateException("数据库尚未连接");
+        }
+        return pool;
+    }
+
     /**
      * 设置具体参数
      * @param preparedStatement
      * @param objects
      * @return
      */
-    private PreparedStatement preparedStatementSetObject(PreparedStatement preparedStatement,List<Object> objects){
+    private PreparedStatement preparedStatementSetObject(PreparedStatement preparedStatement,List<Object> objects) throws SQLException {
         if(objects==null) return preparedStatement;
         for (int i = 0; i < objects.size(); i++) {
-            try {
-                preparedStatement.setObject(i+1,objects.get(i));
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
+            preparedStatement.setObject(i+1,objects.get(i));
         }
         return preparedStatement;
     }
 
     /**
-     * 替换sql语句 {path}
-     * @param sql
-     * @param params
-     * @return
+     * 编译 SQL 模板，{key} 占位符在此一次性替换
+     * 返回的句柄不可变，适合作为字段保存，执行时会复用连接上缓存的 PreparedStatement
+     * @param template SQL 模板
+     * @param params   占位符参数，可为 null
+     * @return 编译后的句柄
      */
-    private String putParams(String sql,Map<String,String> params){
-        return params.entrySet().stream().reduce(sql, (r, entry) -> {
-            return r.replace("{" + entry.getKey() + "}", entry.getValue());
-        }, (r1, r2) -> r2);
+    public SqlStatement compile(String template, Map<String, String> params) {
+        return SqlStatement.compile(template, params);
     }
 
 
     /**
-     * 执行更新sql语句
+     * 执行更新sql语句 (写通道)
      *
      * @param sql            SQL语句，可能包含 {key} 格式的占位符
      * @param params         用于替换SQL语句中 {key} 占位符的参数映射
      * @param parameterValue PreparedStatement 的参数值列表
-     * @return
+     * @return 受影响的行数
      */
     public int executeUpdate(String sql, Map<String, String> params, List<Object> parameterValue) {
-        // 如果 params 不为 null且不为空, 则替换SQL中的占位符
-        if (params != null && !params.isEmpty()) {
-            sql = putParams(sql, params);
-        }
-        try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-            preparedStatementSetObject(ps, parameterValue);
-            ps.executeUpdate();
+        return executeUpdate(SqlStatement.compile(sql, params), parameterValue);
+    }
+
+    /**
+     * 执行已编译的更新语句 (写通道)
+     * @param statement      编译后的句柄
+     * @param parameterValue PreparedStatement 的参数值列表
+     * @return 受影响的行数
+     */
+    public int executeUpdate(SqlStatement statement, List<Object> parameterValue) {
+        final ConnectionPool pool = getPool();
+        final int queryTimeout = pool.getSettings().getQueryTimeoutSeconds();
+        try {
+            return pool.withWriter(connection -> pool.withStatement(connection, statement.getSql(), ps -> {
+                ps.setQueryTimeout(queryTimeout);
+                preparedStatementSetObject(ps, parameterValue);
+                return ps.executeUpdate();
+            }));
         } catch (SQLException e) {
             throw new RuntimeException("执行数据库更新操作失败: " + e.getMessage(), e);
         }
-        return 1;
     }
 
 
     /**
-     * 查询结果集
+     * 查询结果集 (读通道)
      * @param sql
      * @param params
      * @param parameterValue
@@ -72,18 +112,183 @@ public abstract class AbstractDatabase implements Database {
      */
     public <T> T executeQuery(String sql, Map<String,String> params, List<Object> parameterValue,
                                   Function<ResultSet,T> handler){
-        if(params!=null) sql = putParams(sql,params);
-        try(PreparedStatement preparedStatement = preparedStatementSetObject(getConnection().prepareStatement(sql),parameterValue);
-            ResultSet resultSet = preparedStatement.executeQuery();)
-        {
-            return handler.apply(resultSet);
+        return executeQuery(SqlStatement.compile(sql, params), parameterValue, handler);
+    }
+
+    /**
+     * 执行已编译的查询语句 (读通道)
+     * @param statement      编译后的句柄
+     * @param parameterValue PreparedStatement 的参数值列表
+     * @param handler        结果集处理，结果集在返回后关闭
+     * @return handler 的返回值
+     */
+    public <T> T executeQuery(SqlStatement statement, List<Object> parameterValue, Function<ResultSet,T> handler){
+        final ConnectionPool pool = getPool();
+        final int queryTimeout = pool.getSettings().getQueryTimeoutSeconds();
+        try {
+            return pool.withReader(connection -> pool.withStatement(connection, statement.getSql(), preparedStatement -> {
+                preparedStatement.setQueryTimeout(queryTimeout);
+                preparedStatementSetObject(preparedStatement, parameterValue);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    return handler.apply(resultSet);
+                }
+            }));
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
 
+    /**
+     * 打开流式查询游标 (读通道)，使用配置的 fetch size
+     * @see #openCursor(SqlStatement, List, RowMapper, int)
+     */
+    public <T> QueryCursor<T> openCursor(SqlStatement statement, List<Object> parameterValue, RowMapper<T> rowMapper) throws SQLException {
+        return openCursor(statement, parameterValue, rowMapper, getPool().getSettings().getFetchSize());
+    }
+
+    /**
+     * 打开流式查询游标 (读通道)，用于全表遍历等结果过大、不适合一次读入内存的查询
+     * 游标占用一条读连接直到关闭，且不设置查询超时；语句不进入预编译缓存，关闭游标时一并关闭
+     * @param statement      编译后的句柄
+     * @param parameterValue PreparedStatement 的参数值列表
+     * @param rowMapper      每行的转换
+     * @param fetchSize      每次从驱动读取的行数，0 为驱动默认值
+     * @return 游标，调用方负责关闭
+     * @throws SQLException 获取连接或执行查询失败
+     */
+    public <T> QueryCursor<T> openCursor(SqlStatement statement, List<Object> parameterValue, RowMapper<T> rowMapper,
+                                         int fetchSize) throws SQLException {
+        ConnectionPool.ReaderLease lease = getPool().acquireReader();
+        PreparedStatement ps = null;
+        try {
+            ps = lease.getConnection().prepareStatement(statement.getSql());
+            if (fetchSize > 0) {
+                ps.setFetchSize(fetchSize);
+            }
+            preparedStatementSetObject(ps, parameterValue);
+            return new QueryCursor<>(lease, ps, ps.executeQuery(), rowMapper);
+        } catch (SQLException | RuntimeException e) {
+            if (ps != null) {
+                try {
+                    ps.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 在写通道中以单个事务执行操作，失败时回滚
+     * @param work 使用写连接的操作
+     * @return 操作结果
+     * @throws SQLException 执行失败或等待写通道超时
+     */
+    public <T> T executeInTransaction(SqlFunction<Connection, T> work) throws SQLException {
+        return getPool().withWriter(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            // 嵌套调用时沿用外层事务
+            if (!autoCommit) {
+                return work.apply(connection);
+            }
+            connection.setAutoCommit(false);
+            try {
+                T result = work.apply(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                // 回滚失败时保留原始异常
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
+    }
+
+
+    /**
+     * 在写通道中以单个事务执行操作，提交成功后仍在写通道内执行 afterCommit
+     * 用于与数据库写入保持同一顺序的内存状态 (如绑定索引): 其他写操作要等 afterCommit 完成后才开始，
+     * 不会出现后提交的写入先更新内存的情况。嵌套在外层事务中时 afterCommit 在外层提交前执行。
+     * @param work        使用写连接的操作
+     * @param afterCommit 提交成功后执行，参数为 work 的返回值
+     * @return 操作结果
+     * @throws SQLException 执行失败或等待写通道超时 (此时不执行 afterCommit)
+     */
+    public <T> T executeInTransaction(SqlFunction<Connection, T> work, Consumer<? super T> afterCommit) throws SQLException {
+        return getPool().withWriter(connection -> {
+            T result = executeInTransaction(work);
+            afterCommit.accept(result);
+            return result;
+        });
+    }
+
+    /**
+     * 占用写通道直到关闭返回值，期间其他写操作排队等待，必须在同一线程中关闭
+     * @throws SQLException 等待写通道超时
+     */
+    public ConnectionPool.WriterHold holdWriter() throws SQLException {
+        return getPool().holdWriter();
+    }
+
+    /**
+     * 在事务内执行更新语句，connection 为 {@link #executeInTransaction} 传入的写连接
+     * @return 受影响的行数
+     */
+    public int update(Connection connection, SqlStatement statement, List<Object> parameterValue) throws SQLException {
+        final ConnectionPool pool = getPool();
+        final int queryTimeout = pool.getSettings().getQueryTimeoutSeconds();
+        return pool.withStatement(connection, statement.getSql(), ps -> {
+            ps.setQueryTimeout(queryTimeout);
+            preparedStatementSetObject(ps, parameterValue);
+            return ps.executeUpdate();
+        });
+    }
+
+    /**
+     * 在事务内以 JDBC batch 执行同一条更新语句的多组参数
+     * @return 每组参数受影响的行数
+     */
+    public int[] updateBatch(Connection connection, SqlStatement statement, List<List<Object>> parameterValues) throws SQLException {
+        final ConnectionPool pool = getPool();
+        final int queryTimeout = pool.getSettings().getQueryTimeoutSeconds();
+        return pool.withStatement(connection, statement.getSql(), ps -> {
+            ps.setQueryTimeout(queryTimeout);
+            for (List<Object> parameterValue : parameterValues) {
+                preparedStatementSetObject(ps, parameterValue);
+                ps.addBatch();
+            }
+            return ps.executeBatch();
+        });
+    }
+
+    /**
+     * 在事务内执行查询语句，connection 为 {@link #executeInTransaction} 传入的写连接，可以读到本事务未提交的写入
+     * @return handler 的返回值，结果集在返回后关闭
+     */
+    public <T> T query(Connection connection, SqlStatement statement, List<Object> parameterValue,
+                       SqlFunction<ResultSet, T> handler) throws SQLException {
+        final ConnectionPool pool = getPool();
+        final int queryTimeout = pool.getSettings().getQueryTimeoutSeconds();
+        return pool.withStatement(connection, statement.getSql(), ps -> {
+            ps.setQueryTimeout(queryTimeout);
+            preparedStatementSetObject(ps, parameterValue);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                return handler.apply(resultSet);
+            }
+        });
+    }
+
+
     public boolean isConnected() {
-        return false;
+        ConnectionPool pool = this.connectionPool;
+        return pool != null && !pool.isClosed();
     }
 }
@@ -1,10 +1,17 @@
 package com.meteor.mckook.storage;
 
 import com.meteor.mckook.McKook;
+import com.meteor.mckook.config.Config;
+import com.meteor.mckook.storage.backup.DatabaseBackup;
 import com.meteor.mckook.storage.database.SqliteDatabase;
 import com.meteor.mckook.storage.mapper.BaseMapper;
 import com.meteor.mckook.storage.mapper.LinkRepository;
+import com.meteor.mckook.storage.mapper.VerifyCodeRepository;
 import com.meteor.mckook.storage.mapper.impl.LinkRepositoryImpl;
+import com.meteor.mckook.storage.mapper.impl.VerifyCodeRepositoryImpl;
+import com.meteor.mckook.storage.migration.SchemaMigrations;
+import com.meteor.mckook.storage.migration.SchemaMigrator;
+import com.meteor.mckook.storage.transfer.BindingTransfer;
 
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -21,6 +28,21 @@ public class DataManager {
 
     private Map<Class<?>, BaseMapper> baseMapperMap;
 
+    /**
+     * 改名等非关键更新的延迟写入队列
+     */
+    private WriteBehindQueue writeBehindQueue;
+
+    /**
+     * 绑定数据的批量导入导出
+     */
+    private BindingTransfer bindingTransfer;
+
+    /**
+     * 数据库在线备份
+     */
+    private DatabaseBackup databaseBackup;
+
     private DataManager(McKook plugin){
         this.plugin = plugin;
         this.abstractDatabase = new SqliteDatabase(plugin);
@@ -33,12 +55,58 @@ public class DataManager {
             plugin.getLogger().info("数据库连接失败");
         }
 
+        try {
+            int version = new SchemaMigrator(abstractDatabase, plugin.getLogger())
+                    .migrate(SchemaMigrations.all(plugin.getLogger()));
+            plugin.getLogger().info("数据库结构版本: V" + version);
+        } catch (SQLException | RuntimeException e) {
+            plugin.getLogger().log(Level.SEVERE, "数据库迁移失败，绑定数据可能无法正常读写。", e);
+        }
+
         this.baseMapperMap = new HashMap<>();
 
-        baseMapperMap.put(LinkRepository.class, new LinkRepositoryImpl(this.plugin, abstractDatabase));
+        Config config = Config.get();
+        this.writeBehindQueue = new WriteBehindQueue(abstractDatabase, plugin.getLogger(),
+                config.getStorageWriteBehindFlushIntervalMillis(), config.getStorageWriteBehindBatchSize());
+
+        LinkRepositoryImpl linkRepository = new LinkRepositoryImpl(this.plugin, abstractDatabase, writeBehindQueue);
+        try {
+            linkRepository.loadBindingIndex();
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.SEVERE, "加载绑定索引失败，绑定状态查询将直接访问数据库。", e);
+        }
+        baseMapperMap.put(LinkRepository.class, linkRepository);
+        baseMapperMap.put(VerifyCodeRepository.class, new VerifyCodeRepositoryImpl(abstractDatabase, writeBehindQueue));
+        this.bindingTransfer = new BindingTransfer(plugin, linkRepository, config.getStorageTransferBatchSize());
+        this.databaseBackup = new DatabaseBackup(abstractDatabase, plugin.getLogger(),
+                plugin.getDataFolder().toPath().resolve(SqliteDatabase.FILE_NAME), plugin.getDataFolder().toPath().resolve("backups"),
+                config.getStorageBackupKeep(), config.getStorageBackupPagesPerStep(), config.getStorageBackupStepPauseMillis(),
+                config.getStorageBackupMaxRestarts(),
+                config.isStorageBackupEnabled() ? config.getStorageBackupIntervalMinutes() : 0L);
+    }
+
+    /**
+     * 立即写入延迟队列中的全部更新，重载时调用
+     */
+    public void flushPendingWrites() {
+        try {
+            int written = writeBehindQueue.flush();
+            if (written > 0) {
+                plugin.getLogger().info("已写入 " + written + " 条延迟更新。");
+            }
+        } catch (SQLException | RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "写入延迟更新失败，将在下次刷新时重试。", e);
+        }
     }
 
     public void close(){
+        // 先停止备份、写完延迟更新再断开数据库
+        if (databaseBackup != null) {
+            databaseBackup.close();
+        }
+        if (writeBehindQueue != null) {
+            writeBehindQueue.close();
+        }
         try {
             if (abstractDatabase != null && abstractDatabase.isConnected()) { // 增加 null 和连接状态检查
                 abstractDatabase.disconnect();
@@ -67,4 +135,16 @@ public class DataManager {
     public LinkRepository getLinkRepository() {
         return getMapper(LinkRepository.class);
     }
+
+    public VerifyCodeRepository getVerifyCodeRepository() {
+        return getMapper(VerifyCodeRepository.class);
+    }
+
+    public BindingTransfer getBindingTransfer() {
+        return bindingTransfer;
+    }
+
+    public DatabaseBackup getDatabaseBackup() {
+        return databaseBackup;
+    }
 }
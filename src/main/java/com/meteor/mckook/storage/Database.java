@@ -8,5 +8,11 @@ public interface Database {
     void connect() throws SQLException;
     void disconnect() throws SQLException;
 
-    Connection getConnection();
+    /**
+     * 打开一条新的底层连接，连接的生命周期由连接池管理
+     * @param readOnly 是否为只读连接 (读通道)
+     * @return 新连接
+     * @throws SQLException
+     */
+    Connection openConnection(boolean readOnly) throws SQLException;
 }
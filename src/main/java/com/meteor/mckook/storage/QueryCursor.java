@@ -0,0 +1,116 @@
+package com.meteor.mckook.storage;
+
+import com.meteor.mckook.storage.pool.ConnectionPool;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 流式查询游标
+ * 调用方每取一行，驱动才按 fetch size 向后读取，内存中只有当前批次的数据；消费得慢时查询随之暂停，不会堆积结果。
+ * 游标在打开期间占用一条读连接，必须用 try-with-resources 关闭；读完最后一行或出错时会自动关闭，重复关闭无影响。
+ * 游标不是线程安全的，只能在打开它的线程中使用。
+ * @param <T> 行对象类型
+ */
+public final class QueryCursor<T> implements Iterator<T>, AutoCloseable {
+
+    private final ConnectionPool.ReaderLease lease;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+
+    /**
+     * 是否已经调用 next() 移动到了尚未取出的行
+     */
+    private boolean advanced;
+    private boolean hasRow;
+    private boolean closed;
+
+    QueryCursor(ConnectionPool.ReaderLease lease, PreparedStatement statement, ResultSet resultSet, RowMapper<T> rowMapper) {
+        this.lease = lease;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+    }
+
+    /**
+     * @throws UncheckedSQLException 读取下一行失败，游标已关闭
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!advanced) {
+            try {
+                hasRow = resultSet.next();
+            } catch (SQLException e) {
+                close();
+                throw new UncheckedSQLException("读取查询结果失败: " + e.getMessage(), e);
+            }
+            advanced = true;
+            if (!hasRow) {
+                close();
+            }
+        }
+        return hasRow;
+    }
+
+    /**
+     * @throws UncheckedSQLException 行转换失败，游标已关闭
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        try {
+            return rowMapper.map(resultSet);
+        } catch (SQLException e) {
+            close();
+            throw new UncheckedSQLException("转换查询结果失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return 顺序流，关闭流时关闭游标；行对象不能为 null
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭结果集与语句并归还连接
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        hasRow = false;
+        try {
+            resultSet.close();
+        } catch (SQLException ignored) {
+        }
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        } finally {
+            lease.close();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.meteor.mckook.storage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 将结果集的当前行转换为对象，只读取当前行，不要调用 next()
+ * @param <T> 行对象类型
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,13 @@
+package com.meteor.mckook.storage;
+
+import java.sql.SQLException;
+
+/**
+ * 允许抛出 SQLException 的函数，用于在连接通道内执行数据库操作
+ * @param <T> 输入类型
+ * @param <R> 返回类型
+ */
+@FunctionalInterface
+public interface SqlFunction<T, R> {
+    R apply(T t) throws SQLException;
+}
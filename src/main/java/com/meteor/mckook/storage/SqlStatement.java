@@ -0,0 +1,80 @@
+package com.meteor.mckook.storage;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 预编译的 SQL 句柄
+ * 模板中的 {key} 占位符在创建时一次性替换，之后不可变，可作为字段长期持有并在多线程间共享。
+ * 执行时以替换后的 SQL 作为键复用每条连接上缓存的 PreparedStatement。
+ */
+public final class SqlStatement {
+
+    private final String sql;
+
+    private SqlStatement(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * @param template SQL 模板，可包含 {key} 占位符
+     * @param params   占位符的替换值，可为 null
+     * @return 编译后的句柄
+     * @throws IllegalArgumentException 模板中存在未提供替换值的占位符
+     */
+    public static SqlStatement compile(String template, Map<String, String> params) {
+        return new SqlStatement(resolve(template, params == null ? Collections.emptyMap() : params));
+    }
+
+    public static SqlStatement of(String sql) {
+        return new SqlStatement(sql);
+    }
+
+    /**
+     * 单次扫描替换 {key}，未知的占位符直接报错，避免带着花括号的 SQL 进入数据库
+     */
+    private static String resolve(String template, Map<String, String> params) {
+        if (params.isEmpty() || template.indexOf('{') < 0) {
+            return template;
+        }
+        StringBuilder builder = new StringBuilder(template.length() + 32);
+        int index = 0;
+        while (index < template.length()) {
+            int open = template.indexOf('{', index);
+            int close = open < 0 ? -1 : template.indexOf('}', open + 1);
+            if (open < 0 || close < 0) {
+                builder.append(template, index, template.length());
+                break;
+            }
+            String key = template.substring(open + 1, close);
+            String value = params.get(key);
+            if (value == null) {
+                throw new IllegalArgumentException("SQL 模板占位符 {" + key + "} 没有对应的参数: " + template);
+            }
+            builder.append(template, index, open).append(value);
+            index = close + 1;
+        }
+        return builder.toString();
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SqlStatement)) return false;
+        return sql.equals(((SqlStatement) o).sql);
+    }
+
+    @Override
+    public int hashCode() {
+        return sql.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
@@ -0,0 +1,18 @@
+package com.meteor.mckook.storage;
+
+import java.sql.SQLException;
+
+/**
+ * 在 Iterator / Stream 等不能抛出受检异常的位置包装 SQLException，原始异常可通过 {@link #getCause()} 取得
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    public UncheckedSQLException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
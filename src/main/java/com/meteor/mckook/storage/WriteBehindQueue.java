@@ -0,0 +1,265 @@
+package com.meteor.mckook.storage;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 延迟写入队列
+ * 用于改名、资料刷新等非关键更新：同一语句 + 同一主键的多次更新只保留最后一次，
+ * 积累到一定数量或到达刷新间隔后在一个事务内批量写入，避免每条更新各自提交一次。
+ * 整批写入失败时逐条重试: 暂时性错误 (数据库繁忙、等待超时) 的更新放回队列，其余错误 (约束冲突、数据错误) 记录日志后丢弃，
+ * 避免一条始终失败的更新阻塞之后所有的刷新。
+ * 绑定、解绑等需要立即得到结果的写操作不要放进这里。
+ */
+public class WriteBehindQueue {
+
+    /**
+     * 合并的键: 同一语句作用在同一条记录上
+     */
+    private static final class Key {
+        final SqlStatement statement;
+        final Object id;
+
+        Key(SqlStatement statement, Object id) {
+            this.statement = statement;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return statement.equals(key.statement) && id.equals(key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(statement, id);
+        }
+    }
+
+    /**
+     * SQLite 主错误码 (扩展错误码的低 8 位)
+     */
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private final AbstractDatabase database;
+    private final Logger logger;
+    private final int batchSize;
+
+    /**
+     * 等待写入的更新，按提交顺序排列；同一键再次提交时替换参数但保留原位置
+     */
+    private Map<Key, List<Object>> pending = new LinkedHashMap<>();
+    private final Object pendingLock = new Object();
+    /**
+     * 保证同一时间只有一次刷新在执行
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean closed;
+
+    /**
+     * @param database        目标数据库
+     * @param logger          日志
+     * @param flushIntervalMs 定时刷新间隔 (毫秒)
+     * @param batchSize       积累到该数量时立即刷新
+     */
+    public WriteBehindQueue(AbstractDatabase database, Logger logger, long flushIntervalMs, int batchSize) {
+        this.database = database;
+        this.logger = logger;
+        this.batchSize = Math.max(1, batchSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "McKook-WriteBehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(50L, flushIntervalMs);
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一条延迟更新
+     * @param statement 更新语句
+     * @param id        被更新记录的主键，用于合并同一记录的多次更新 (需正确实现 equals/hashCode，不要使用数组)
+     * @param params    语句参数
+     */
+    public void submit(SqlStatement statement, Object id, List<Object> params) {
+        if (closed) {
+            // 队列已关闭时直接写入，保证更新不丢失
+            database.executeUpdate(statement, params);
+            return;
+        }
+        int size;
+        synchronized (pendingLock) {
+            pending.put(new Key(statement, id), params);
+            size = pending.size();
+        }
+        if (size >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RuntimeException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (pendingLock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * 立即在一个事务内写入全部待处理更新；整批失败时逐条写入，暂时性失败的更新放回队列等待下次刷新，其余失败的更新丢弃
+     * @return 写入的更新数量
+     * @throws SQLException 有更新因暂时性错误放回队列
+     */
+    public int flush() throws SQLException {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            Map<Key, List<Object>> batch;
+            synchronized (pendingLock) {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            // 按语句分组，同一语句使用一次 JDBC batch
+            Map<SqlStatement, List<List<Object>>> grouped = new LinkedHashMap<>();
+            for (Map.Entry<Key, List<Object>> entry : batch.entrySet()) {
+                grouped.computeIfAbsent(entry.getKey().statement, key -> new ArrayList<>()).add(entry.getValue());
+            }
+            try {
+                database.executeInTransaction(connection -> {
+                    for (Map.Entry<SqlStatement, List<List<Object>>> entry : grouped.entrySet()) {
+                        database.updateBatch(connection, entry.getKey(), entry.getValue());
+                    }
+                    return null;
+                });
+            } catch (SQLException e) {
+                if (isTransient(e)) {
+                    requeue(batch);
+                    throw e;
+                }
+                return flushEach(batch);
+            } catch (RuntimeException e) {
+                return flushEach(batch);
+            }
+            return batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 整批写入失败后逐条在各自的事务中写入，找出失败的更新
+     */
+    private int flushEach(Map<Key, List<Object>> batch) throws SQLException {
+        Map<Key, List<Object>> retry = new LinkedHashMap<>();
+        SQLException transientError = null;
+        int written = 0;
+        for (Map.Entry<Key, List<Object>> entry : batch.entrySet()) {
+            Key key = entry.getKey();
+            try {
+                database.executeInTransaction(connection -> database.update(connection, key.statement, entry.getValue()));
+                written++;
+            } catch (SQLException e) {
+                if (isTransient(e)) {
+                    retry.put(key, entry.getValue());
+                    transientError = e;
+                } else {
+                    logDropped(key, e);
+                }
+            } catch (RuntimeException e) {
+                logDropped(key, e);
+            }
+        }
+        if (!retry.isEmpty()) {
+            requeue(retry);
+            throw transientError;
+        }
+        return written;
+    }
+
+    private void logDropped(Key key, Exception e) {
+        logger.log(Level.WARNING, "[WriteBehind] 延迟更新写入失败且无法重试，已丢弃 (" + key.statement.getSql() + ", " + key.id + "): " + e.getMessage(), e);
+    }
+
+    /**
+     * @return 是否为重试可能成功的错误: 数据库繁忙/被锁 (SQLITE_BUSY、SQLITE_LOCKED) 或等待连接超时
+     */
+    static boolean isTransient(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                int primaryCode = ((SQLException) cause).getErrorCode() & 0xff;
+                if (primaryCode == SQLITE_BUSY || primaryCode == SQLITE_LOCKED) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 停止定时刷新并写入剩余的更新，之后提交的更新将直接写库
+     */
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            int written = flush();
+            if (written > 0) {
+                logger.info("[WriteBehind] 关闭前已写入 " + written + " 条延迟更新。");
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.log(Level.SEVERE, "[WriteBehind] 关闭前写入延迟更新失败，" + getPendingCount() + " 条更新丢失。", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            logger.log(Level.WARNING, "[WriteBehind] 写入延迟更新失败，将在下次刷新时重试: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 写入失败后放回队列；期间已有更新的键以新值为准
+     */
+    private void requeue(Map<Key, List<Object>> failed) {
+        synchronized (pendingLock) {
+            Map<Key, List<Object>> merged = new LinkedHashMap<>(failed);
+            merged.putAll(pending);
+            pending = merged;
+        }
+    }
+}
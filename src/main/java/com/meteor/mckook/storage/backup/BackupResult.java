@@ -0,0 +1,37 @@
+package com.meteor.mckook.storage.backup;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * 一次在线备份的结果
+ */
+@Getter
+public class BackupResult {
+
+    private final Path file;
+    private final long sizeBytes;
+    /**
+     * 备份的数据库页数
+     */
+    private final int pageCount;
+    /**
+     * 备份期间因源数据库被写入而重新开始的次数
+     */
+    private final int restarts;
+    private final long elapsedMillis;
+    /**
+     * 按保留数量删除的旧备份数
+     */
+    private final int rotated;
+
+    BackupResult(Path file, long sizeBytes, int pageCount, int restarts, long elapsedMillis, int rotated) {
+        this.file = file;
+        this.sizeBytes = sizeBytes;
+        this.pageCount = pageCount;
+        this.restarts = restarts;
+        this.elapsedMillis = elapsedMillis;
+        this.rotated = rotated;
+    }
+}
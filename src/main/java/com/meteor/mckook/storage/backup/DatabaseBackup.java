@@ -0,0 +1,391 @@
+package com.meteor.mckook.storage.backup;
+
+import com.meteor.mckook.storage.AbstractDatabase;
+import com.meteor.mckook.storage.pool.ConnectionPool;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 数据库在线备份
+ * 使用 SQLite 的备份 API 在一条单独的只读连接上分步复制: 每步只复制少量页并在步与步之间暂停，
+ * 读锁只在单步内持有，写通道最多等待一步的时间，不会因为备份而延迟绑定等写操作。
+ * 备份期间源数据库被写入时 SQLite 会自动从头开始，保证备份文件是某一时刻的完整快照；
+ * 重新开始超过 max-restarts 次后 (数据库较大、写入频繁时可能永远复制不完)，剩余部分不再暂停，并占用写通道直到复制完成，
+ * 此时写操作最多等待一次不暂停的完整复制。
+ * 先写入临时文件并校验，通过后再原子地改名为正式备份，超出保留数量的旧备份按时间顺序删除。
+ * 备份在自己的平台线程中执行 (备份 API 是本地调用，会占住虚拟线程的载体线程)，同一时间只允许一个备份。
+ */
+public class DatabaseBackup {
+
+    private static final String FILE_PREFIX = "database-";
+    private static final String FILE_SUFFIX = ".db";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    /**
+     * 写通道长时间持有锁时，备份最多等待的时间
+     */
+    private static final long BUSY_WAIT_MILLIS = 30_000L;
+    private static final int SQLITE_OK = 0;
+
+    private final AbstractDatabase database;
+    private final Logger logger;
+    private final Path databaseFile;
+    private final Path folder;
+    private final int keep;
+    private final int pagesPerStep;
+    private final long stepPauseMillis;
+    private final int maxRestarts;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * 上次成功备份的时间，定时备份时数据库文件在此之后没有修改则跳过
+     */
+    private volatile long lastBackupMillis;
+    private volatile boolean closed;
+
+    /**
+     * @param database        源数据库
+     * @param logger          日志
+     * @param databaseFile    源数据库文件，用于判断是否有修改
+     * @param folder          备份文件夹
+     * @param keep            保留的备份数量
+     * @param pagesPerStep    每步复制的页数
+     * @param stepPauseMillis 每步之后的暂停时间 (毫秒)
+     * @param maxRestarts     因写入重新开始超过该次数后，不再暂停并占用写通道直到完成
+     * @param intervalMinutes 定时备份间隔 (分钟)，0 为不定时备份
+     */
+    public DatabaseBackup(AbstractDatabase database, Logger logger, Path databaseFile, Path folder, int keep,
+                          int pagesPerStep, long stepPauseMillis, int maxRestarts, long intervalMinutes) {
+        this.database = database;
+        this.logger = logger;
+        this.databaseFile = databaseFile;
+        this.folder = folder;
+        this.keep = Math.max(1, keep);
+        this.pagesPerStep = Math.max(1, pagesPerStep);
+        this.stepPauseMillis = Math.max(0L, stepPauseMillis);
+        this.maxRestarts = Math.max(0, maxRestarts);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "McKook-Backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Path> existing = listBackups();
+        if (!existing.isEmpty()) {
+            this.lastBackupMillis = lastModified(existing.get(0));
+        }
+        if (intervalMinutes > 0) {
+            this.executor.scheduleWithFixedDelay(this::scheduledBackup, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * 立即开始一次备份
+     * @return 完成时的结果；已有备份在进行、备份或校验失败时异常完成
+     */
+    public CompletableFuture<BackupResult> backupNow() {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("数据库已关闭"));
+        }
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("已有备份正在进行"));
+        }
+        CompletableFuture<BackupResult> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(runBackup());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            future.completeExceptionally(new IllegalStateException("数据库已关闭", e));
+        }
+        return future;
+    }
+
+    /**
+     * @return 备份文件夹中的全部备份，最新的在前
+     */
+    public List<Path> listBackups() {
+        if (!Files.isDirectory(folder)) {
+            return Collections.emptyList();
+        }
+        List<Path> backups = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path path : stream) {
+                backups.add(path);
+            }
+        } catch (IOException e) {
+            logger.warning("[Backup] 读取备份文件夹失败: " + e.getMessage());
+        }
+        // 文件名中的时间戳按字典序即按时间排序
+        backups.sort(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed());
+        return backups;
+    }
+
+    /**
+     * 停止定时备份，等待进行中的备份完成 (剩余的步骤不再暂停)，在断开数据库之前调用
+     */
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warning("[Backup] 备份在 30 秒内未完成，已放弃。");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 在备份线程中直接执行，手动备份正在进行时跳过
+     */
+    private void scheduledBackup() {
+        if (closed) {
+            return;
+        }
+        long modified = Math.max(lastModified(databaseFile), lastModified(databaseFile.resolveSibling(databaseFile.getFileName() + "-wal")));
+        if (lastBackupMillis > 0 && modified > 0 && modified <= lastBackupMillis) {
+            logger.fine("[Backup] 数据库自上次备份后没有修改，跳过本次定时备份。");
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runBackup();
+        } catch (SQLException | IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "[Backup] 定时备份失败: " + e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private BackupResult runBackup() throws SQLException, IOException {
+        long startTime = System.currentTimeMillis();
+        Files.createDirectories(folder);
+        deleteStaleTempFiles();
+        Path target = folder.resolve(FILE_PREFIX + LocalDateTime.now().format(TIMESTAMP) + FILE_SUFFIX);
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        StepProgress progress = new StepProgress();
+        try {
+            // 单独的连接，不占用读通道；自动提交模式下每步结束即释放读锁
+            try (Connection connection = database.openConnection(true)) {
+                int rc = stepBackup(connection, temp.toString(), progress);
+                if (rc != SQLITE_OK) {
+                    throw new SQLException("在线备份失败，SQLite 错误码: " + rc);
+                }
+            } finally {
+                progress.releaseWriter();
+            }
+            verify(temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        lastBackupMillis = startTime;
+        int rotated = rotate();
+        BackupResult result = new BackupResult(target, Files.size(target), progress.pageCount, progress.restarts,
+                System.currentTimeMillis() - startTime, rotated);
+        logger.info("[Backup] 备份完成: " + target.getFileName() + "，" + result.getPageCount() + " 页，"
+                + result.getSizeBytes() / 1024 + " KB，重新开始 " + result.getRestarts() + " 次，耗时 "
+                + result.getElapsedMillis() + " ms" + (rotated > 0 ? "，已删除 " + rotated + " 个旧备份" : ""));
+        return result;
+    }
+
+    /**
+     * 通过 sqlite-jdbc 的分步备份接口复制数据库
+     * 驱动由服务端提供，不在编译期依赖，通过反射调用 DB.backup(dbName, destFileName, observer, sleepTimeMillis, nTimeouts, pagesPerStep)
+     * @return SQLite 结果码
+     */
+    private int stepBackup(Connection connection, String destination, StepProgress progress) throws SQLException {
+        long busyPause = Math.max(10L, stepPauseMillis);
+        int busyRetries = (int) Math.max(1L, BUSY_WAIT_MILLIS / busyPause);
+        try {
+            ClassLoader loader = connection.getClass().getClassLoader();
+            Class<?> connectionType = Class.forName("org.sqlite.SQLiteConnection", false, loader);
+            Class<?> dbType = Class.forName("org.sqlite.core.DB", false, loader);
+            Class<?> observerType = Class.forName("org.sqlite.core.DB$ProgressObserver", false, loader);
+            Object db = connectionType.getMethod("getDatabase").invoke(connection.unwrap(connectionType));
+            Method backup = dbType.getMethod("backup", String.class, String.class, observerType, int.class, int.class, int.class);
+            Object observer = Proxy.newProxyInstance(loader, new Class<?>[]{observerType}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "progress":
+                        progress.onStep((Integer) args[0], (Integer) args[1]);
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "McKookBackupProgress";
+                    default:
+                        return null;
+                }
+            });
+            return (Integer) backup.invoke(db, "main", destination, observer, (int) busyPause, busyRetries, pagesPerStep);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new SQLException("服务端自带的 sqlite-jdbc 不支持分步在线备份，请更新服务端", e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("在线备份失败: " + cause, cause);
+        } catch (IllegalAccessException e) {
+            throw new SQLException("无法调用 sqlite-jdbc 的备份接口: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 校验备份文件完整，避免保留损坏的备份
+     */
+    private void verify(Path file) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA quick_check")) {
+            String result = resultSet.next() ? resultSet.getString(1) : null;
+            if (!"ok".equalsIgnoreCase(result)) {
+                throw new SQLException("备份文件校验失败: " + result);
+            }
+        }
+    }
+
+    /**
+     * 删除超出保留数量的旧备份
+     * @return 删除的数量
+     */
+    private int rotate() {
+        List<Path> backups = listBackups();
+        int deleted = 0;
+        for (int i = keep; i < backups.size(); i++) {
+            try {
+                if (Files.deleteIfExists(backups.get(i))) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                logger.warning("[Backup] 删除旧备份失败: " + backups.get(i).getFileName() + " - " + e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 清理上次中断 (例如服务器崩溃) 留下的临时文件
+     */
+    private void deleteStaleTempFiles() {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, FILE_PREFIX + "*" + FILE_SUFFIX + TEMP_SUFFIX)) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            logger.warning("[Backup] 清理临时文件失败: " + e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 每步之后由驱动回调，在这里暂停让出锁给写通道
+     * 驱动的复制循环无法从回调中终止，因此重新开始次数过多时改为占用写通道，保证剩余部分不再被打断
+     */
+    private final class StepProgress {
+        int pageCount;
+        int restarts;
+        private int lastRemaining = Integer.MAX_VALUE;
+        private boolean interrupted;
+        private ConnectionPool.WriterHold writerHold;
+
+        void onStep(int remaining, int pageCount) {
+            this.pageCount = pageCount;
+            // 剩余页数变多说明源数据库被写入，SQLite 从头开始复制
+            if (remaining > lastRemaining) {
+                restarts++;
+                if (restarts >= maxRestarts && writerHold == null && remaining > 0) {
+                    holdWriter();
+                }
+            }
+            lastRemaining = remaining;
+            if (remaining <= 0 || stepPauseMillis <= 0 || closed || interrupted || writerHold != null) {
+                return;
+            }
+            try {
+                Thread.sleep(stepPauseMillis);
+            } catch (InterruptedException e) {
+                // 本地调用无法中途取消，剩余的步骤不再暂停，尽快完成
+                interrupted = true;
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void holdWriter() {
+            logger.info("[Backup] 备份因写入已重新开始 " + restarts + " 次，剩余部分不再暂停，完成前写操作将排队等待。");
+            try {
+                writerHold = database.holdWriter();
+            } catch (SQLException | RuntimeException e) {
+                // 拿不到写通道时仍不再暂停，尽快完成
+                logger.warning("[Backup] 占用写通道失败，继续复制: " + e.getMessage());
+                writerHold = null;
+                interrupted = true;
+            }
+        }
+
+        void releaseWriter() {
+            if (writerHold != null) {
+                writerHold.close();
+                writerHold = null;
+            }
+        }
+    }
+}
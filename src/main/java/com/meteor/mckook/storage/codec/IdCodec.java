@@ -0,0 +1,79 @@
+package com.meteor.mckook.storage.codec;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * 绑定表主键的存储格式转换
+ * 数据库中 player_uuid 以 16 字节 BLOB 存储，kook_id 以 BIGINT 存储；
+ * 业务层 (KookUser、命令参数) 仍使用字符串形式，在读写数据库时于此转换。
+ */
+public final class IdCodec {
+
+    private IdCodec() {
+    }
+
+    public static byte[] uuidToBytes(UUID uuid) {
+        if (uuid == null) return null;
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * @param uuid UUID 字符串
+     * @return 16 字节表示
+     * @throws IllegalArgumentException 字符串不是合法的 UUID
+     */
+    public static byte[] uuidToBytes(String uuid) {
+        if (uuid == null) return null;
+        return uuidToBytes(UUID.fromString(uuid));
+    }
+
+    public static UUID uuidFromBytes(byte[] bytes) {
+        if (bytes == null) return null;
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("UUID 字节长度应为 16，实际为 " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    public static String uuidStringFromBytes(byte[] bytes) {
+        UUID uuid = uuidFromBytes(bytes);
+        return uuid == null ? null : uuid.toString();
+    }
+
+    /**
+     * @param kookId KOOK 用户 ID 字符串
+     * @return 数值形式的 ID
+     * @throws NumberFormatException 字符串不是合法的 KOOK ID
+     */
+    public static long parseKookId(String kookId) {
+        if (kookId == null) {
+            throw new NumberFormatException("Kook ID 为空");
+        }
+        long value = Long.parseLong(kookId.trim());
+        if (value <= 0) {
+            throw new NumberFormatException("Kook ID 必须为正整数: " + kookId);
+        }
+        return value;
+    }
+
+    /**
+     * @return 是否为可存储的 KOOK ID (正整数)
+     */
+    public static boolean isValidKookId(String kookId) {
+        try {
+            parseKookId(kookId);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public static String kookIdToString(long kookId) {
+        return Long.toString(kookId);
+    }
+}
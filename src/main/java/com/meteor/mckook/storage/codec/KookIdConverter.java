@@ -0,0 +1,23 @@
+package com.meteor.mckook.storage.codec;
+
+import com.meteor.mckook.reflect.orm.ColumnConverter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 字符串 Kook ID 字段 <-> BIGINT 列
+ */
+public class KookIdConverter implements ColumnConverter<String> {
+
+    @Override
+    public Object toDatabase(String value) {
+        return value == null ? null : IdCodec.parseKookId(value);
+    }
+
+    @Override
+    public String fromResultSet(ResultSet resultSet, int columnIndex) throws SQLException {
+        long kookId = resultSet.getLong(columnIndex);
+        return resultSet.wasNull() ? null : IdCodec.kookIdToString(kookId);
+    }
+}
@@ -0,0 +1,22 @@
+package com.meteor.mckook.storage.codec;
+
+import com.meteor.mckook.reflect.orm.ColumnConverter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 字符串 UUID 字段 <-> 16 字节 BLOB 列
+ */
+public class UuidBytesConverter implements ColumnConverter<String> {
+
+    @Override
+    public Object toDatabase(String value) {
+        return IdCodec.uuidToBytes(value);
+    }
+
+    @Override
+    public String fromResultSet(ResultSet resultSet, int columnIndex) throws SQLException {
+        return IdCodec.uuidStringFromBytes(resultSet.getBytes(columnIndex));
+    }
+}
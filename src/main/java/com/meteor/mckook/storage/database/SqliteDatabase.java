@@ -1,18 +1,46 @@
 package com.meteor.mckook.storage.database;
 
 import com.meteor.mckook.McKook;
+import com.meteor.mckook.config.Config;
 import com.meteor.mckook.storage.AbstractDatabase;
+import com.meteor.mckook.storage.pool.PoolSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 
 public class SqliteDatabase extends AbstractDatabase {
 
+    /**
+     * 插件目录中的数据库文件名
+     */
+    public static final String FILE_NAME = "database.db";
+
     private McKook plugin;
 
-    private Connection connection;
+    private PoolSettings poolSettings;
+
+    private SqliteProfile profile;
+
+    /**
+     * WAL 模式下的定时检查点，其他模式为 null
+     */
+    private WalCheckpointer checkpointer;
+
+    /**
+     * 在线玩家数，由主线程定时采样，供检查点线程读取 (Bukkit 不保证在其他线程中读取在线玩家安全)
+     */
+    private final AtomicInteger onlinePlayers = new AtomicInteger();
+    private BukkitTask onlinePlayerSampler;
 
     public SqliteDatabase(McKook plugin){
         this.plugin = plugin;
@@ -22,22 +50,105 @@ public class SqliteDatabase extends AbstractDatabase {
     public void connect() throws SQLException {
         try {
             Class.forName("org.sqlite.JDBC");
-            this.connection = DriverManager.getConnection("jdbc:sqlite:"+plugin.getDataFolder().getPath()+"/database.db");
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
+        this.poolSettings = PoolSettings.fromConfig(Config.get());
+        this.profile = SqliteProfile.fromConfig(Config.get());
+        initPool(poolSettings);
+        plugin.getLogger().info("数据库连接池已就绪: 读连接 " + poolSettings.getReaders() + " 条, 写通道 1 条");
+        logEffectiveSettings();
+        if (profile.isWal() && profile.getCheckpointIntervalMinutes() > 0) {
+            if (Bukkit.isPrimaryThread()) {
+                onlinePlayers.set(plugin.getServer().getOnlinePlayers().size());
+            }
+            this.onlinePlayerSampler = plugin.getServer().getScheduler().runTaskTimer(plugin,
+                    () -> onlinePlayers.set(plugin.getServer().getOnlinePlayers().size()), 20L, 20L);
+            this.checkpointer = new WalCheckpointer(this, plugin.getLogger(), onlinePlayers::get,
+                    profile.getCheckpointIntervalMinutes(), profile.getCheckpointTruncateMaxPlayers());
+        }
     }
 
     @Override
     public void disconnect() throws SQLException {
-        this.connection.close();
+        if (onlinePlayerSampler != null) {
+            onlinePlayerSampler.cancel();
+            onlinePlayerSampler = null;
+        }
+        if (checkpointer != null) {
+            checkpointer.close();
+            checkpointer = null;
+        }
+        closePool();
     }
 
     @Override
-    public Connection getConnection() {
+    public Connection openConnection(boolean readOnly) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:"+plugin.getDataFolder().getPath()+"/"+FILE_NAME);
+        try (Statement statement = connection.createStatement()) {
+            // 遇到锁时等待而不是立即返回 SQLITE_BUSY
+            statement.execute("PRAGMA busy_timeout = " + poolSettings.getBusyTimeoutMillis());
+            if (!readOnly) {
+                // 日志模式保存在数据库文件中，由写连接 (连接池中第一条打开的连接) 设置即可
+                statement.execute("PRAGMA journal_mode = " + profile.getJournalMode());
+                statement.execute("PRAGMA wal_autocheckpoint = " + profile.getWalAutoCheckpointPages());
+            }
+            statement.execute("PRAGMA synchronous = " + profile.getSynchronous());
+            statement.execute("PRAGMA mmap_size = " + profile.getMmapSizeBytes());
+            if (profile.getCacheSizeKib() > 0) {
+                // 负数表示以 KiB 为单位
+                statement.execute("PRAGMA cache_size = -" + profile.getCacheSizeKib());
+            }
+            if (readOnly) {
+                statement.execute("PRAGMA query_only = 1");
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
         return connection;
     }
 
+    /**
+     * 读取写连接上实际生效的参数并输出到日志 (例如文件系统不支持 WAL 时日志模式不会改变)
+     */
+    private void logEffectiveSettings() {
+        try {
+            Map<String, String> settings = getPool().withWriter(connection -> {
+                Map<String, String> values = new LinkedHashMap<>();
+                try (Statement statement = connection.createStatement()) {
+                    for (String pragma : new String[]{"journal_mode", "synchronous", "mmap_size", "cache_size", "page_size", "wal_autocheckpoint"}) {
+                        values.put(pragma, queryPragma(statement, pragma));
+                    }
+                }
+                return values;
+            });
+            settings.put("synchronous", synchronousName(settings.get("synchronous")));
+            plugin.getLogger().info("SQLite 存储参数: " + settings);
+            if (!profile.getJournalMode().equalsIgnoreCase(settings.get("journal_mode"))) {
+                plugin.getLogger().warning("SQLite 日志模式未能设置为 " + profile.getJournalMode() + "，请检查数据库文件所在的文件系统。");
+            }
+        } catch (SQLException | RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "读取 SQLite 存储参数失败", e);
+        }
+    }
+
+    private static String queryPragma(Statement statement, String pragma) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("PRAGMA " + pragma)) {
+            return resultSet.next() ? resultSet.getString(1) : "?";
+        }
+    }
+
+    private static String synchronousName(String value) {
+        switch (value) {
+            case "0": return "OFF";
+            case "1": return "NORMAL";
+            case "2": return "FULL";
+            case "3": return "EXTRA";
+            default: return value;
+        }
+    }
+
 
 
 }
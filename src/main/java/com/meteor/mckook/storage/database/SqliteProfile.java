@@ -0,0 +1,96 @@
+package com.meteor.mckook.storage.database;
+
+import com.meteor.mckook.config.Config;
+
+/**
+ * SQLite 存储参数 (对应 config.yml 中的 storage.sqlite)
+ */
+public class SqliteProfile {
+
+    private final String journalMode;
+    private final String synchronous;
+    private final long mmapSizeBytes;
+    private final int cacheSizeKib;
+    private final int walAutoCheckpointPages;
+    private final long checkpointIntervalMinutes;
+    private final int checkpointTruncateMaxPlayers;
+
+    public SqliteProfile(String journalMode, String synchronous, long mmapSizeMb, int cacheSizeKib, int walAutoCheckpointPages,
+                         long checkpointIntervalMinutes, int checkpointTruncateMaxPlayers) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.mmapSizeBytes = Math.max(0L, mmapSizeMb) * 1024L * 1024L;
+        this.cacheSizeKib = Math.max(0, cacheSizeKib);
+        this.walAutoCheckpointPages = Math.max(0, walAutoCheckpointPages);
+        this.checkpointIntervalMinutes = Math.max(0L, checkpointIntervalMinutes);
+        this.checkpointTruncateMaxPlayers = checkpointTruncateMaxPlayers;
+    }
+
+    /**
+     * 从主配置文件读取存储参数
+     */
+    public static SqliteProfile fromConfig(Config config) {
+        return new SqliteProfile(
+                config.getStorageSqliteJournalMode(),
+                config.getStorageSqliteSynchronous(),
+                config.getStorageSqliteMmapSizeMb(),
+                config.getStorageSqliteCacheSizeKb(),
+                config.getStorageSqliteWalAutoCheckpointPages(),
+                config.getStorageSqliteCheckpointIntervalMinutes(),
+                config.getStorageSqliteCheckpointTruncateMaxPlayers()
+        );
+    }
+
+    /**
+     * @return WAL / DELETE / TRUNCATE / PERSIST
+     */
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    public boolean isWal() {
+        return "WAL".equals(journalMode);
+    }
+
+    /**
+     * @return OFF / NORMAL / FULL / EXTRA
+     */
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    /**
+     * @return 内存映射读取的最大字节数，0 表示不使用
+     */
+    public long getMmapSizeBytes() {
+        return mmapSizeBytes;
+    }
+
+    /**
+     * @return 每条连接的页缓存大小 (KiB)，0 表示使用驱动默认值
+     */
+    public int getCacheSizeKib() {
+        return cacheSizeKib;
+    }
+
+    /**
+     * @return WAL 积累到多少页时由提交的连接自动检查点，0 表示只由定时任务检查点
+     */
+    public int getWalAutoCheckpointPages() {
+        return walAutoCheckpointPages;
+    }
+
+    /**
+     * @return 定时检查点的间隔 (分钟)，0 表示不定时检查点
+     */
+    public long getCheckpointIntervalMinutes() {
+        return checkpointIntervalMinutes;
+    }
+
+    /**
+     * @return 在线玩家不超过该数量时执行 TRUNCATE 检查点并截断 WAL 文件，负数表示从不截断
+     */
+    public int getCheckpointTruncateMaxPlayers() {
+        return checkpointTruncateMaxPlayers;
+    }
+}
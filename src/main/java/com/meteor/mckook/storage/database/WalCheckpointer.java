@@ -0,0 +1,119 @@
+package com.meteor.mckook.storage.database;
+
+import com.meteor.mckook.storage.Database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * WAL 定时检查点
+ * 平时只做 PASSIVE 检查点: 不等待读写，能写回多少写回多少，不影响绑定等写操作；
+ * 在线玩家很少 (非高峰) 时改为 TRUNCATE: 等待读写结束后全部写回并把 WAL 文件截断为 0，避免 WAL 文件持续增长。
+ * 检查点在一条专用连接上执行，不占用连接池的读写通道；连接在第一次检查点时打开并一直复用，
+ * 连接初始化 (PRAGMA 设置) 只执行一次，关闭检查点时一起关闭。
+ */
+public class WalCheckpointer {
+
+    private final Database database;
+    private final Logger logger;
+    private final IntSupplier onlinePlayers;
+    private final int truncateMaxPlayers;
+    private final ScheduledExecutorService scheduler;
+    /**
+     * 检查点专用连接，由 synchronized 方法访问
+     */
+    private Connection connection;
+    private boolean closed;
+
+    /**
+     * @param database           数据库
+     * @param logger             日志
+     * @param onlinePlayers      当前在线玩家数 (在检查点线程中读取，需线程安全)
+     * @param intervalMinutes    检查点间隔 (分钟)
+     * @param truncateMaxPlayers 在线玩家不超过该数量时执行 TRUNCATE，负数表示从不截断
+     */
+    public WalCheckpointer(Database database, Logger logger, IntSupplier onlinePlayers, long intervalMinutes, int truncateMaxPlayers) {
+        this.database = database;
+        this.logger = logger;
+        this.onlinePlayers = onlinePlayers;
+        this.truncateMaxPlayers = truncateMaxPlayers;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "McKook-Checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1L, intervalMinutes);
+        this.scheduler.scheduleWithFixedDelay(this::checkpointQuietly, interval, interval, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 执行一次检查点
+     * @param truncate 是否等待读写结束并截断 WAL 文件
+     * @return 写回数据库文件的页数
+     * @throws SQLException 执行失败
+     */
+    public synchronized int checkpoint(boolean truncate) throws SQLException {
+        String mode = truncate ? "TRUNCATE" : "PASSIVE";
+        try (Statement statement = connection().createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+            if (!resultSet.next()) {
+                return 0;
+            }
+            // 结果: busy (是否因读写未能完成), WAL 中的页数, 已写回的页数
+            boolean busy = resultSet.getInt(1) != 0;
+            int walPages = resultSet.getInt(2);
+            int checkpointed = resultSet.getInt(3);
+            logger.fine("[Checkpoint] " + mode + ": WAL " + walPages + " 页，已写回 " + checkpointed + " 页" + (busy ? "，有读写未结束" : ""));
+            return Math.max(0, checkpointed);
+        }
+    }
+
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closed = true;
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.log(Level.FINE, "[Checkpoint] 关闭检查点连接失败: " + e.getMessage(), e);
+                }
+                connection = null;
+            }
+        }
+    }
+
+    /**
+     * @return 检查点专用连接，尚未打开或已断开时重新打开
+     */
+    private Connection connection() throws SQLException {
+        if (closed) {
+            throw new SQLException("检查点已关闭");
+        }
+        if (connection == null || connection.isClosed()) {
+            connection = database.openConnection(false);
+        }
+        return connection;
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint(truncateMaxPlayers >= 0 && onlinePlayers.getAsInt() <= truncateMaxPlayers);
+        } catch (SQLException | RuntimeException e) {
+            logger.log(Level.WARNING, "[Checkpoint] 定时检查点失败: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.meteor.mckook.storage.index;
+
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 绑定关系的内存索引 (玩家 UUID <-> Kook ID)
+ * 启动时从数据库全量加载，之后每次写库成功后同步更新，所有绑定状态的查询都直接读内存。
+ * 使用一张基本类型的双向开放寻址表 ({@link BindingTable})，每个槽 28 字节，装载因子 0.75，
+ * 每条绑定约 37-75 字节 (随容量翻倍变化)，50 万条绑定约 28 MB。
+ * 玩家名、头像等资料不在索引中，需要时再从数据库读取。
+ */
+public class BindingIndex {
+
+    /**
+     * 表示"未绑定"的 Kook ID
+     */
+    public static final long NO_KOOK_ID = 0L;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+    private final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+
+    private BindingTable table;
+
+    /**
+     * 是否已完成加载，加载前的查询结果不可信
+     */
+    private volatile boolean loaded;
+
+    public BindingIndex() {
+        this.table = new BindingTable(16);
+    }
+
+    /**
+     * 批量加载时的写入入口
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void accept(UUID playerUuid, long kookId);
+    }
+
+    /**
+     * 批量加载时的数据来源
+     */
+    @FunctionalInterface
+    public interface Source<E extends Exception> {
+        void forEach(Sink sink) throws E;
+    }
+
+    /**
+     * 使用新数据整体替换索引内容，加载期间旧数据仍可正常查询
+     * @param expectedSize 预计的绑定数量，用于预分配容量
+     * @param source       数据来源
+     * @return 加载的绑定数量
+     */
+    public <E extends Exception> int reload(int expectedSize, Source<E> source) throws E {
+        BindingTable newTable = new BindingTable(expectedSize);
+        source.forEach((playerUuid, kookId) -> {
+            if (playerUuid == null || kookId <= 0) {
+                return;
+            }
+            newTable.put(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits(), kookId);
+        });
+        writeLock.lock();
+        try {
+            this.table = newTable;
+            this.loaded = true;
+            return newTable.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return 玩家绑定的 Kook ID，未绑定时为 {@link #NO_KOOK_ID}
+     */
+    public long getKookId(UUID playerUuid) {
+        if (playerUuid == null) return NO_KOOK_ID;
+        readLock.lock();
+        try {
+            return table.getKookId(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return Kook ID 绑定的玩家 UUID，未绑定时为 null
+     */
+    public UUID getPlayerUuid(long kookId) {
+        readLock.lock();
+        try {
+            int index = table.indexOfKookId(kookId);
+            return index < 0 ? null : new UUID(table.mostBitsAt(index), table.leastBitsAt(index));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public boolean isPlayerLinked(UUID playerUuid) {
+        return getKookId(playerUuid) != NO_KOOK_ID;
+    }
+
+    public boolean isKookIdLinked(long kookId) {
+        readLock.lock();
+        try {
+            return table.indexOfKookId(kookId) >= 0;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * 记录一条绑定，两侧已有的旧绑定会被一并替换
+     */
+    public void put(UUID playerUuid, long kookId) {
+        if (kookId <= 0) {
+            throw new IllegalArgumentException("Kook ID 必须为正整数: " + kookId);
+        }
+        writeLock.lock();
+        try {
+            table.put(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits(), kookId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return 被移除绑定的 Kook ID，未绑定时为 {@link #NO_KOOK_ID}
+     */
+    public long removeByPlayer(UUID playerUuid) {
+        writeLock.lock();
+        try {
+            return table.removeByPlayer(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return 被移除绑定的玩家 UUID，未绑定时为 null
+     */
+    public UUID removeByKookId(long kookId) {
+        writeLock.lock();
+        try {
+            int index = table.indexOfKookId(kookId);
+            if (index < 0) {
+                return null;
+            }
+            UUID playerUuid = new UUID(table.mostBitsAt(index), table.leastBitsAt(index));
+            table.removeByKookId(kookId);
+            return playerUuid;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        readLock.lock();
+        try {
+            return table.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return 表当前占用的数组内存 (字节，估算值)
+     */
+    public long estimatedMemoryBytes() {
+        readLock.lock();
+        try {
+            return (long) table.capacity() * BindingTable.BYTES_PER_SLOT;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    static int mix(long value) {
+        // MurmurHash3 fmix64
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb93e53bba1bdL;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+
+    static int tableSizeFor(int expectedSize, float loadFactor) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / loadFactor) + 1;
+        int capacity = 16;
+        while (capacity < needed && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,261 @@
+package com.meteor.mckook.storage.index;
+
+/**
+ * 玩家 UUID (两个 long) <-> Kook ID 的双向开放寻址哈希表 (线性探测)
+ * 正向表按 UUID 存放 UUID 与 Kook ID (每槽 24 字节)；反向表按 Kook ID 探测，只存放正向表的槽位下标 + 1 (每槽 4 字节)，
+ * 比较键时回到正向表读取 Kook ID。两张表容量相同，正向表的元素移动 (删除时前移、扩容) 时同步更新反向表。
+ * Kook ID 0 表示空槽，所以只能存放非 0 的 Kook ID (均为正数)。
+ * 不创建任何包装对象；非线程安全，由 {@link BindingIndex} 加锁访问。
+ */
+final class BindingTable {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * 每个槽位占用的字节数 (正向 3 个 long + 反向 1 个 int)
+     */
+    static final int BYTES_PER_SLOT = 28;
+
+    private long[] mostBits;
+    private long[] leastBits;
+    private long[] kookIds;
+    /**
+     * 反向表: 正向表槽位下标 + 1，0 为空槽
+     */
+    private int[] refs;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    BindingTable(int expectedSize) {
+        allocate(BindingIndex.tableSizeFor(expectedSize, LOAD_FACTOR));
+    }
+
+    private void allocate(int capacity) {
+        mostBits = new long[capacity];
+        leastBits = new long[capacity];
+        kookIds = new long[capacity];
+        refs = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long most, long least) {
+        return BindingIndex.mix(most ^ Long.rotateLeft(least, 32)) & mask;
+    }
+
+    private int slot(long kookId) {
+        return BindingIndex.mix(kookId) & mask;
+    }
+
+    /**
+     * @return UUID 对应的 Kook ID，不存在时为 0
+     */
+    long getKookId(long most, long least) {
+        int index = indexOfPlayer(most, least);
+        return index < 0 ? 0 : kookIds[index];
+    }
+
+    /**
+     * @return Kook ID 所在的正向表槽位下标，不存在时为 -1
+     */
+    int indexOfKookId(long kookId) {
+        if (kookId == 0) {
+            return -1;
+        }
+        int index = slot(kookId);
+        while (refs[index] != 0) {
+            int entry = refs[index] - 1;
+            if (kookIds[entry] == kookId) {
+                return entry;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    long mostBitsAt(int index) {
+        return mostBits[index];
+    }
+
+    long leastBitsAt(int index) {
+        return leastBits[index];
+    }
+
+    /**
+     * 记录一条绑定，两侧已有的旧绑定会被一并替换
+     * @return 该 UUID 原先的 Kook ID，不存在时为 0
+     */
+    long put(long most, long least, long kookId) {
+        if (kookId == 0) {
+            throw new IllegalArgumentException("Kook ID 不能为 0");
+        }
+        int index = indexOfPlayer(most, least);
+        if (index >= 0 && kookIds[index] == kookId) {
+            return kookId;
+        }
+        // Kook ID 已绑定到其他 UUID 时先移除那一条
+        int other = indexOfKookId(kookId);
+        if (other >= 0) {
+            removeAt(other);
+            index = indexOfPlayer(most, least);
+        }
+        if (index >= 0) {
+            long previous = kookIds[index];
+            removeRef(previous, index);
+            kookIds[index] = kookId;
+            insertRef(kookId, index);
+            return previous;
+        }
+        index = slot(most, least);
+        while (kookIds[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        mostBits[index] = most;
+        leastBits[index] = least;
+        kookIds[index] = kookId;
+        insertRef(kookId, index);
+        if (++size > resizeAt) {
+            rehash(kookIds.length << 1);
+        }
+        return 0;
+    }
+
+    /**
+     * @return 被移除的 Kook ID，不存在时为 0
+     */
+    long removeByPlayer(long most, long least) {
+        int index = indexOfPlayer(most, least);
+        if (index < 0) {
+            return 0;
+        }
+        long kookId = kookIds[index];
+        removeAt(index);
+        return kookId;
+    }
+
+    boolean removeByKookId(long kookId) {
+        int index = indexOfKookId(kookId);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    private int indexOfPlayer(long most, long least) {
+        int index = slot(most, least);
+        while (kookIds[index] != 0) {
+            if (mostBits[index] == most && leastBits[index] == least) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        removeRef(kookIds[index], index);
+        shiftDelete(index);
+        size--;
+    }
+
+    /**
+     * 正向表的删除：把后续同一探测链上的元素前移，避免使用墓碑标记；被移动元素的反向引用随之更新
+     */
+    private void shiftDelete(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            if (kookIds[index] == 0) {
+                break;
+            }
+            int ideal = slot(mostBits[index], leastBits[index]);
+            if (stays(hole, ideal, index)) {
+                continue;
+            }
+            mostBits[hole] = mostBits[index];
+            leastBits[hole] = leastBits[index];
+            kookIds[hole] = kookIds[index];
+            refs[refSlotOf(kookIds[hole], index)] = hole + 1;
+            hole = index;
+        }
+        mostBits[hole] = 0;
+        leastBits[hole] = 0;
+        kookIds[hole] = 0;
+    }
+
+    private void insertRef(long kookId, int entry) {
+        int index = slot(kookId);
+        while (refs[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        refs[index] = entry + 1;
+    }
+
+    /**
+     * @return 指向正向表 entry 的反向表槽位
+     */
+    private int refSlotOf(long kookId, int entry) {
+        int index = slot(kookId);
+        while (refs[index] != entry + 1) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * 反向表的删除 (后移删除)，调用时正向表中的 Kook ID 仍需保持不变
+     */
+    private void removeRef(long kookId, int entry) {
+        int hole = refSlotOf(kookId, entry);
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            if (refs[index] == 0) {
+                break;
+            }
+            int ideal = slot(kookIds[refs[index] - 1]);
+            if (stays(hole, ideal, index)) {
+                continue;
+            }
+            refs[hole] = refs[index];
+            hole = index;
+        }
+        refs[hole] = 0;
+    }
+
+    /**
+     * @return 理想位置为 ideal、当前在 index 的元素是否应留在原处 (即 ideal 位于 (hole, index] 环形区间内)
+     */
+    private static boolean stays(int hole, int ideal, int index) {
+        return hole <= index ? (hole < ideal && ideal <= index) : (hole < ideal || ideal <= index);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldMost = mostBits;
+        long[] oldLeast = leastBits;
+        long[] oldKookIds = kookIds;
+        allocate(capacity);
+        for (int i = 0; i < oldKookIds.length; i++) {
+            if (oldKookIds[i] != 0) {
+                int index = slot(oldMost[i], oldLeast[i]);
+                while (kookIds[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                mostBits[index] = oldMost[i];
+                leastBits[index] = oldLeast[i];
+                kookIds[index] = oldKookIds[i];
+                insertRef(oldKookIds[i], index);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return kookIds.length;
+    }
+}
@@ -0,0 +1,81 @@
+package com.meteor.mckook.storage.mapper;
+
+import com.meteor.mckook.model.link.KookUser;
+import com.meteor.mckook.storage.mapper.result.BindResult;
+import com.meteor.mckook.storage.mapper.result.LookupResult;
+import com.meteor.mckook.storage.mapper.result.UnbindResult;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 返回 CompletableFuture 的绑定仓库
+ * 所有操作都在插件自己的异步执行器上完成，不占用 Bukkit 的异步任务线程。
+ * 业务上的失败 (玩家不存在、已被绑定等) 通过结果对象的状态表示；只有数据库错误等异常情况才会让 future 异常完成。
+ * 回调默认在异步线程执行，需要操作 Bukkit API 时使用 {@link com.meteor.mckook.util.MainThreadExecutor} 切回主线程。
+ */
+public interface AsyncLinkRepository {
+
+    /**
+     * @see LinkRepository#isLinked(String)
+     */
+    CompletableFuture<Boolean> isLinked(String player);
+
+    /**
+     * @see LinkRepository#isLinked(UUID)
+     */
+    CompletableFuture<Boolean> isLinked(UUID playerUuid);
+
+    /**
+     * @see LinkRepository#getLinkedKookUser(String)
+     */
+    CompletableFuture<Optional<KookUser>> getLinkedKookUser(String player);
+
+    /**
+     * @see LinkRepository#getLinkedKookUsers(Collection)
+     */
+    CompletableFuture<Map<UUID, KookUser>> getLinkedKookUsers(Collection<UUID> playerUuids);
+
+    /**
+     * @see LinkRepository#link(String, KookUser)
+     */
+    CompletableFuture<Void> link(String player, KookUser kookUser);
+
+    /**
+     * @see LinkRepository#bindUser(KookUser)
+     */
+    CompletableFuture<BindResult> bindUser(KookUser kookUser);
+
+    /**
+     * @see LinkRepository#kookUserIsLinked(String)
+     */
+    CompletableFuture<Boolean> kookUserIsLinked(String kookId);
+
+    /**
+     * 将 Minecraft 玩家名与 Kook ID 绑定
+     */
+    CompletableFuture<BindResult> bind(String playerName, String kookId);
+
+    /**
+     * 根据玩家名查询绑定的 Kook ID
+     */
+    CompletableFuture<LookupResult<String>> getKookIdByPlayerName(String playerName);
+
+    /**
+     * 根据 Kook ID 查询绑定的玩家名
+     */
+    CompletableFuture<LookupResult<String>> getPlayerNameByKookId(String kookId);
+
+    /**
+     * 根据玩家名解除绑定
+     */
+    CompletableFuture<UnbindResult> unbindByPlayerName(String playerName);
+
+    /**
+     * 根据 Kook ID 解除绑定
+     */
+    CompletableFuture<UnbindResult> unbindByKookId(String kookId);
+}
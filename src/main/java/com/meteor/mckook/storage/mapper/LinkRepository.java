@@ -1,11 +1,23 @@
 package com.meteor.mckook.storage.mapper;
 
 import com.meteor.mckook.model.link.KookUser;
+import com.meteor.mckook.storage.QueryCursor;
+import com.meteor.mckook.storage.mapper.result.BindResult;
+import com.meteor.mckook.storage.transfer.ConflictPolicy;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 public interface LinkRepository{
 
+    /**
+     * @return 返回 CompletableFuture 的版本，新代码应优先使用
+     */
+    AsyncLinkRepository async();
+
     /**
      * 是否已绑定KOOK账户
      * @param player
@@ -13,6 +25,23 @@ public interface LinkRepository{
      */
     boolean isLinked(String player);
 
+    /**
+     * 按 UUID 查询是否已绑定KOOK账户，只查询绑定状态，不做改名检查
+     * 适合定时任务等需要频繁轮询的场景，可以在主线程调用
+     * @param playerUuid 玩家 UUID
+     * @return
+     */
+    boolean isLinked(UUID playerUuid);
+
+    /**
+     * 已知玩家 UUID 时查询是否已绑定KOOK账户，并处理玩家改名的情况
+     * 索引不可用时会访问数据库，建议在异步线程调用
+     * @param playerUuid        玩家 UUID
+     * @param currentPlayerName 当前的玩家名
+     * @return
+     */
+    boolean isLinked(UUID playerUuid, String currentPlayerName);
+
     /**
      * 获取绑定KOOK账户
      * @param player
@@ -20,17 +49,50 @@ public interface LinkRepository{
      */
     KookUser getLinkedKookUser(String player);
 
+    /**
+     * 批量获取绑定资料，缓存未命中的部分合并为一次查询
+     * @param playerUuids 玩家 UUID
+     * @return UUID -> 绑定资料，未绑定的玩家不在结果中
+     */
+    Map<UUID, KookUser> getLinkedKookUsers(Collection<UUID> playerUuids);
+
     /**
      * 绑定账号旧版，将被废弃或内部使用
+     * 基于 {@link #bindUser(KookUser)}，任意一侧已被绑定时抛出 RuntimeException
      * @param player
      * @param kookUser
      */
     void link(String player,KookUser kookUser);
 
+    /**
+     * 在单个事务中原子地写入绑定，依靠唯一约束检测冲突，不需要事先查询
+     * @param kookUser 完整的绑定资料，player_uuid 与 kook_id 不能为空
+     * @return 绑定结果，冲突时说明是哪一侧已被绑定
+     */
+    BindResult bindUser(KookUser kookUser);
+
     boolean kookUserIsLinked(String kookId);
 
+    /**
+     * 批量导入绑定，整批在一个事务内写入，提交后同步内存索引与缓存
+     * 阻塞调用线程，不要在主线程调用
+     * @param users  绑定资料，player_uuid 与 kook_id 必须有效
+     * @param policy 与已有绑定冲突时的处理方式
+     * @return 每条资料是否被写入，与 users 的顺序一致
+     */
+    boolean[] importBindings(List<KookUser> users, ConflictPolicy policy);
+
+    /**
+     * 以游标逐条读取全部绑定资料，结果不会整体加载到内存
+     * 游标占用一条读连接，调用方必须关闭；阻塞调用线程，不要在主线程调用
+     * @return 游标
+     * @throws com.meteor.mckook.storage.UncheckedSQLException 查询失败
+     */
+    QueryCursor<KookUser> openBindingCursor();
+
     /**
      * 异步地将 Minecraft 玩家名与 Kook ID 绑定。
+     * 基于 {@link AsyncLinkRepository#bind(String, String)} 的回调适配。
      *
      * @param playerName Minecraft 玩家名。
      * @param kookId     要绑定的 Kook ID。
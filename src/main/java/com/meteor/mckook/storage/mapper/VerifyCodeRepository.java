@@ -0,0 +1,33 @@
+package com.meteor.mckook.storage.mapper;
+
+import com.meteor.mckook.model.link.LinkCache;
+
+import java.util.List;
+
+/**
+ * 未使用的绑定验证码的持久化
+ * 写入走延迟写入队列，不阻塞调用线程；同一验证码的多次写入合并，以最后一次为准
+ */
+public interface VerifyCodeRepository {
+
+    /**
+     * 保存 (或覆盖) 一条验证码
+     */
+    void save(LinkCache linkCache);
+
+    /**
+     * 验证码已使用或作废，标记为立即过期，由后台清理删除
+     */
+    void expire(LinkCache linkCache);
+
+    /**
+     * 读取全部未过期的验证码，启动时在分配验证码之前同步调用
+     */
+    List<LinkCache> loadActive();
+
+    /**
+     * 删除已过期的验证码
+     * @return 删除的数量
+     */
+    int purgeExpired();
+}
@@ -0,0 +1,155 @@
+package com.meteor.mckook.storage.mapper.impl;
+
+import com.meteor.mckook.McKook;
+import com.meteor.mckook.model.link.KookUser;
+import com.meteor.mckook.storage.codec.IdCodec;
+import com.meteor.mckook.storage.mapper.AsyncLinkRepository;
+import com.meteor.mckook.storage.mapper.result.BindResult;
+import com.meteor.mckook.storage.mapper.result.LookupResult;
+import com.meteor.mckook.storage.mapper.result.UnbindResult;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * {@link AsyncLinkRepository} 的实现
+ * 玩家 UUID 的解析直接组合解析器返回的 future，不占用线程等待；数据库操作委托给 {@link LinkRepositoryImpl}，在插件的异步执行器上执行。
+ */
+public class AsyncLinkRepositoryImpl implements AsyncLinkRepository {
+
+    /**
+     * 等待玩家 UUID 解析的最长时间，超时视为玩家不存在
+     */
+    private static final long RESOLVE_TIMEOUT_SECONDS = 15;
+
+    private final McKook plugin;
+    private final LinkRepositoryImpl repository;
+    private final Executor executor;
+
+    public AsyncLinkRepositoryImpl(McKook plugin, LinkRepositoryImpl repository, Executor executor) {
+        this.plugin = plugin;
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isLinked(String player) {
+        return supply("查询绑定状态 (Player: " + player + ")", () -> repository.isLinked(player));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isLinked(UUID playerUuid) {
+        return supply("查询绑定状态 (UUID: " + playerUuid + ")", () -> repository.isLinked(playerUuid));
+    }
+
+    @Override
+    public CompletableFuture<Optional<KookUser>> getLinkedKookUser(String player) {
+        return supply("查询绑定资料 (Player: " + player + ")", () -> Optional.ofNullable(repository.getLinkedKookUser(player)));
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, KookUser>> getLinkedKookUsers(Collection<UUID> playerUuids) {
+        return supply("批量查询绑定资料 (" + playerUuids.size() + " 名玩家)", () -> repository.getLinkedKookUsers(playerUuids));
+    }
+
+    @Override
+    public CompletableFuture<Void> link(String player, KookUser kookUser) {
+        return supply("写入绑定 (Player: " + player + ")", () -> {
+            repository.link(player, kookUser);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<BindResult> bindUser(KookUser kookUser) {
+        return supply("写入绑定 (Player: " + kookUser.getPlayer() + ", Kook ID: " + kookUser.getKook_id() + ")", () -> repository.bindUser(kookUser));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> kookUserIsLinked(String kookId) {
+        return supply("查询 Kook ID 绑定状态 (Kook ID: " + kookId + ")", () -> repository.kookUserIsLinked(kookId));
+    }
+
+    @Override
+    public CompletableFuture<BindResult> bind(String playerName, String kookId) {
+        String operation = "绑定 (Player: " + playerName + ", Kook ID: " + kookId + ")";
+        if (!IdCodec.isValidKookId(kookId)) {
+            BindResult result = BindResult.invalidKookId(playerName, kookId);
+            plugin.getLogger().warning("[LinkService] (Async) " + result.getMessage());
+            return CompletableFuture.completedFuture(result);
+        }
+        return logFailure(operation, resolveUuid(playerName).thenApplyAsync(uuid -> {
+            if (uuid == null) {
+                BindResult result = BindResult.playerNotFound(playerName, kookId);
+                plugin.getLogger().warning("[LinkService] (Async) " + result.getMessage());
+                return result;
+            }
+            return repository.bindResolved(playerName, uuid, kookId);
+        }, executor));
+    }
+
+    @Override
+    public CompletableFuture<LookupResult<String>> getKookIdByPlayerName(String playerName) {
+        String operation = "查询 Kook ID (Player: " + playerName + ")";
+        return logFailure(operation, resolveUuid(playerName).thenApplyAsync(uuid -> {
+            if (uuid == null) {
+                String msg = "无法为玩家 " + playerName + " 获取UUID，查询 Kook ID 操作中止。";
+                plugin.getLogger().warning("[LinkService] (Async) " + msg);
+                return LookupResult.<String>playerNotFound(msg);
+            }
+            return repository.findKookIdByUuid(playerName, uuid);
+        }, executor));
+    }
+
+    @Override
+    public CompletableFuture<LookupResult<String>> getPlayerNameByKookId(String kookId) {
+        return supply("查询玩家名 (Kook ID: " + kookId + ")", () -> repository.findPlayerNameByKookId(kookId));
+    }
+
+    @Override
+    public CompletableFuture<UnbindResult> unbindByPlayerName(String playerName) {
+        String operation = "解绑 (Player: " + playerName + ")";
+        return logFailure(operation, resolveUuid(playerName).thenApplyAsync(uuid -> {
+            if (uuid == null) {
+                UnbindResult result = UnbindResult.playerNotFound(playerName);
+                plugin.getLogger().warning("[LinkService] (Async) " + result.getMessage());
+                return result;
+            }
+            return repository.unbindByUuid(playerName, uuid);
+        }, executor));
+    }
+
+    @Override
+    public CompletableFuture<UnbindResult> unbindByKookId(String kookId) {
+        return supply("解绑 (Kook ID: " + kookId + ")", () -> repository.unbindByKookId(kookId));
+    }
+
+    /**
+     * 解析玩家 UUID，超时后以 null 完成
+     * 解析器对同一玩家名的并发查询共用一个 future，这里先 copy 再设置超时，避免影响其他调用方
+     */
+    private CompletableFuture<UUID> resolveUuid(String playerName) {
+        return plugin.getUuidResolver().resolve(playerName).copy()
+                .completeOnTimeout(null, RESOLVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private <T> CompletableFuture<T> supply(String operation, Supplier<T> work) {
+        return logFailure(operation, CompletableFuture.supplyAsync(work, executor));
+    }
+
+    private <T> CompletableFuture<T> logFailure(String operation, CompletableFuture<T> future) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.SEVERE, "[LinkService] (Async) 操作 '" + operation + "' 失败: " + error.getMessage(), error);
+            }
+        });
+        return future;
+    }
+}
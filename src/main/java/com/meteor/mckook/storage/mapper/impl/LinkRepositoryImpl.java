@@ -1,18 +1,35 @@
 package com.meteor.mckook.storage.mapper.impl;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.meteor.mckook.McKook;
+import com.meteor.mckook.config.Config;
 import com.meteor.mckook.model.link.KookUser;
-import com.meteor.mckook.reflect.orm.ReflectFactory;
+import com.meteor.mckook.reflect.orm.EntityMapper;
 import com.meteor.mckook.storage.AbstractDatabase;
+import com.meteor.mckook.storage.QueryCursor;
+import com.meteor.mckook.storage.SqlStatement;
+import com.meteor.mckook.storage.UncheckedSQLException;
+import com.meteor.mckook.storage.WriteBehindQueue;
+import com.meteor.mckook.storage.codec.IdCodec;
+import com.meteor.mckook.storage.index.BindingIndex;
+import com.meteor.mckook.storage.migration.SchemaMigrations;
+import com.meteor.mckook.storage.mapper.AsyncLinkRepository;
 import com.meteor.mckook.storage.mapper.LinkRepository;
 import com.meteor.mckook.storage.mapper.BaseMapper;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
+import com.meteor.mckook.storage.mapper.result.BindResult;
+import com.meteor.mckook.storage.mapper.result.LookupResult;
+import com.meteor.mckook.storage.mapper.result.UnbindResult;
+import com.meteor.mckook.storage.transfer.ConflictPolicy;
+import com.meteor.mckook.util.resolver.PlayerUuidResolver;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.logging.Level;
@@ -22,39 +39,229 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
 
     private final AbstractDatabase database;
 
-    private Cache<String,KookUser> kookUserCache;
+    /**
+     * 改名等非关键更新走延迟写入，合并后批量提交
+     */
+    private final WriteBehindQueue writeBehindQueue;
 
+    /**
+     * 绑定资料缓存，以 UUID 为键，改名不会留下过期条目
+     * 热点条目在 refreshAfterWrite 后由后台线程刷新，调用方不需要等待数据库
+     */
+    private final LoadingCache<UUID, KookUser> kookUserCache;
+    /**
+     * 玩家名 (小写) -> UUID，供按玩家名查询的命令使用
+     */
+    private final Cache<String, UUID> nameAliases;
 
-    private final String KOOK_USER_TABLE_NAME = "KOOK_LINK_USER";
+    /**
+     * 批量加载时单条 IN 查询的最大参数数
+     */
+    private static final int BULK_LOAD_CHUNK = 500;
+    /**
+     * 批量查询预编译的参数个数 (最后一个等于 {@link #BULK_LOAD_CHUNK})，不足时用重复的 UUID 补齐，
+     * 语句缓存中只会出现这几条 SQL，不会被各种长度的 IN 查询挤掉常用语句
+     */
+    private static final int[] BULK_LOAD_SIZES = {1, 8, 32, 128, BULK_LOAD_CHUNK};
+
+    /**
+     * 绑定关系的内存索引，绑定状态查询不再访问数据库
+     */
+    private final BindingIndex bindingIndex = new BindingIndex();
+
+    /**
+     * 索引不可用时缓存"未绑定"的查询结果，未绑定的玩家被轮询得最频繁，避免每次都查库
+     * 绑定、解绑时按 UUID 与 Kook ID 立即失效
+     */
+    private final Cache<UUID, Boolean> unlinkedPlayerCache;
+    private final Cache<Long, Boolean> unlinkedKookIdCache;
 
 
-    public LinkRepositoryImpl(McKook plugin, AbstractDatabase database){
+    private final String KOOK_USER_TABLE_NAME = SchemaMigrations.LINK_USER_TABLE_NAME;
+
+    /**
+     * 返回 CompletableFuture 的版本，与本类共用索引和缓存
+     */
+    private final AsyncLinkRepositoryImpl asyncRepository;
+
+    private static final EntityMapper<KookUser> KOOK_USER_MAPPER = EntityMapper.of(KookUser.class);
+
+    // 预编译语句，执行时复用连接上缓存的 PreparedStatement
+    private final SqlStatement selectByUuid;
+    private final SqlStatement selectByPlayer;
+    private final SqlStatement selectKookIdByUuid;
+    private final SqlStatement selectPlayerByUuid;
+    private final SqlStatement selectLinkByKookId;
+    private final SqlStatement insertUserIfAbsent;
+    private final SqlStatement insertOrReplaceUser;
+    private final SqlStatement selectBindingConflicts;
+    private final SqlStatement updatePlayerByUuid;
+    private final SqlStatement deleteByUuid;
+    private final SqlStatement deleteByKookId;
+    private final SqlStatement countAll;
+    private final SqlStatement selectAllLinks;
+    private final SqlStatement selectAllUsers;
+    /**
+     * 与 {@link #BULK_LOAD_SIZES} 一一对应的 IN 查询
+     */
+    private final SqlStatement[] selectUsersIn;
+
+
+    public LinkRepositoryImpl(McKook plugin, AbstractDatabase database, WriteBehindQueue writeBehindQueue){
         this.plugin = plugin;
 
         this.database = database;
+        this.writeBehindQueue = writeBehindQueue;
+        this.asyncRepository = new AsyncLinkRepositoryImpl(plugin, this, plugin.getAsyncExecutor());
 
+        Config config = Config.get();
         this.kookUserCache = Caffeine.newBuilder()
-                .expireAfterWrite(25, TimeUnit.MINUTES)
-                .maximumSize(1000)
+                .maximumSize(config.getStorageProfileCacheSize())
+                .expireAfterAccess(config.getStorageProfileCacheExpireMinutes(), TimeUnit.MINUTES)
+                .refreshAfterWrite(config.getStorageProfileCacheRefreshMinutes(), TimeUnit.MINUTES)
+                .executor(plugin.getAsyncExecutor())
+                .build(new CacheLoader<UUID, KookUser>() {
+                    @Override
+                    public KookUser load(UUID playerUuid) {
+                        return loadKookUser(playerUuid);
+                    }
+
+                    @Override
+                    public Map<UUID, KookUser> loadAll(Set<? extends UUID> playerUuids) {
+                        return loadKookUsers(playerUuids);
+                    }
+                });
+        this.nameAliases = Caffeine.newBuilder()
+                .maximumSize(config.getStorageProfileCacheSize())
+                .expireAfterAccess(config.getStorageProfileCacheExpireMinutes(), TimeUnit.MINUTES)
+                .build();
+        int unlinkedTtl = config.getStorageUnlinkedCacheSeconds();
+        this.unlinkedPlayerCache = Caffeine.newBuilder()
+                .expireAfterWrite(unlinkedTtl, TimeUnit.SECONDS)
+                .maximumSize(10_000)
+                .build();
+        this.unlinkedKookIdCache = Caffeine.newBuilder()
+                .expireAfterWrite(unlinkedTtl, TimeUnit.SECONDS)
+                .maximumSize(10_000)
                 .build();
 
+        // 表结构由 DataManager 启动时通过 SchemaMigrator 创建和升级
+        Map<String, String> params = new HashMap<>();
+        params.put("table", KOOK_USER_TABLE_NAME);
+        params.put("columns", KOOK_USER_MAPPER.getColumnList());
+        this.selectByUuid = database.compile("SELECT {columns} FROM {table} WHERE player_uuid = ?", params);
+        this.selectByPlayer = database.compile("SELECT {columns} FROM {table} WHERE player = ? COLLATE NOCASE", params);
+        this.selectKookIdByUuid = database.compile("SELECT kook_id FROM {table} WHERE player_uuid = ? LIMIT 1", params);
+        this.selectPlayerByUuid = database.compile("SELECT player FROM {table} WHERE player_uuid = ?", params);
+        this.selectLinkByKookId = database.compile("SELECT player_uuid, player FROM {table} WHERE kook_id = ? LIMIT 1", params);
+        // 主键 player_uuid 与 kook_id 唯一索引任一冲突时不写入，由 bindUser 判断冲突的是哪一侧
+        this.insertUserIfAbsent = database.compile("INSERT INTO {table} ({columns}) VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING", params);
+        // 导入时覆盖: REPLACE 会先删除主键或 kook_id 唯一索引冲突的所有旧记录
+        this.insertOrReplaceUser = database.compile("INSERT OR REPLACE INTO {table} ({columns}) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", params);
+        this.selectBindingConflicts = database.compile("SELECT player_uuid, kook_id, player FROM {table} WHERE player_uuid = ? OR kook_id = ?", params);
+        this.updatePlayerByUuid = database.compile("UPDATE {table} SET player = ? WHERE player_uuid = ?", params);
+        this.deleteByUuid = database.compile("DELETE FROM {table} WHERE player_uuid = ?", params);
+        this.deleteByKookId = database.compile("DELETE FROM {table} WHERE kook_id = ?", params);
+        this.countAll = database.compile("SELECT COUNT(*) FROM {table}", params);
+        this.selectAllLinks = database.compile("SELECT player_uuid, kook_id, player FROM {table}", params);
+        this.selectAllUsers = database.compile("SELECT {columns} FROM {table}", params);
+        this.selectUsersIn = new SqlStatement[BULK_LOAD_SIZES.length];
+        for (int i = 0; i < BULK_LOAD_SIZES.length; i++) {
+            params.put("placeholders", String.join(", ", Collections.nCopies(BULK_LOAD_SIZES[i], "?")));
+            this.selectUsersIn[i] = database.compile("SELECT {columns} FROM {table} WHERE player_uuid IN ({placeholders})", params);
+        }
+    }
+
+    /**
+     * 从数据库全量加载绑定索引，由 DataManager 在启动时同步调用
+     * 加载失败时索引保持未加载状态，查询会回退到数据库
+     * 绑定表中的玩家名同时登记到 UUID 解析器的本地索引
+     * @return 加载的绑定数量
+     */
+    public int loadBindingIndex() {
+        long startTime = System.currentTimeMillis();
+        PlayerUuidResolver resolver = plugin.getUuidResolver();
+        int expected = this.database.executeQuery(countAll, null, resultSet -> {
+            try {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        int loaded;
+        try {
+            loaded = bindingIndex.reload(expected, sink -> {
+                try (QueryCursor<BindingRow> cursor = this.database.openCursor(selectAllLinks, null, BindingRow::read)) {
+                    while (cursor.hasNext()) {
+                        BindingRow row = cursor.next();
+                        if (row == null) {
+                            continue;
+                        }
+                        sink.accept(row.playerUuid, row.kookId);
+                        if (resolver != null) {
+                            resolver.remember(row.player, row.playerUuid);
+                        }
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("加载绑定索引失败: " + e.getMessage(), e);
+        }
+        plugin.getLogger().info("[LinkService] 已加载 " + loaded + " 条绑定关系到内存索引，约占用 "
+                + bindingIndex.estimatedMemoryBytes() / 1024 + " KB，耗时 " + (System.currentTimeMillis() - startTime) + " ms");
+        return loaded;
+    }
+
+    public BindingIndex getBindingIndex() {
+        return bindingIndex;
+    }
 
-        Map<String,String> params = new HashMap<>();
+    /**
+     * 加载索引时的一行，UUID 格式错误的行转换为 null
+     */
+    private static final class BindingRow {
+        final UUID playerUuid;
+        final long kookId;
+        final String player;
 
-        params.put("table",KOOK_USER_TABLE_NAME);
+        private BindingRow(UUID playerUuid, long kookId, String player) {
+            this.playerUuid = playerUuid;
+            this.kookId = kookId;
+            this.player = player;
+        }
 
-        // 创建kook用户表
-        this.database.executeUpdate("CREATE TABLE IF NOT EXISTS {table} (\n" +
-                "    player_uuid CHAR(36) PRIMARY KEY,\n" +
-                "    kook_id VARCHAR(255),\n" +
-                "    player VARCHAR(25),\n" +
-                "    userName VARCHAR(255),\n" +
-                "    avatar TEXT,\n" +
-                "    mobileVerified BOOLEAN,\n" +
-                "    joinedAt BIGINT,\n" +
-                "    nickName VARCHAR(255)\n" +
-                ");\n",params,null);
+        static BindingRow read(ResultSet resultSet) throws SQLException {
+            byte[] bytes = resultSet.getBytes(1);
+            if (bytes == null || bytes.length != 16) {
+                return null;
+            }
+            return new BindingRow(IdCodec.uuidFromBytes(bytes), resultSet.getLong(2), resultSet.getString(3));
+        }
+    }
 
+    @Override
+    public AsyncLinkRepository async() {
+        return asyncRepository;
+    }
+
+    /**
+     * @return 玩家绑定的 Kook ID，未绑定时为 null；索引已加载时不访问数据库
+     */
+    private String lookupKookIdByUuid(UUID uuid) {
+        if (bindingIndex.isLoaded()) {
+            long kookId = bindingIndex.getKookId(uuid);
+            return kookId == BindingIndex.NO_KOOK_ID ? null : IdCodec.kookIdToString(kookId);
+        }
+        return this.database.executeQuery(selectKookIdByUuid, Collections.singletonList(IdCodec.uuidToBytes(uuid)), resultSet -> {
+            try {
+                if (resultSet.next()) {
+                    return IdCodec.kookIdToString(resultSet.getLong("kook_id"));
+                }
+                return null;
+            } catch (SQLException e) {
+                throw new RuntimeException("SQLException while checking existing UUID binding", e);
+            }
+        });
     }
     /**
      * 用于临时存储从数据库查询到的绑定详情的辅助内部类。
@@ -68,44 +275,24 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
             this.playerName = playerName;
         }
     }
-    /**
-     * 尝试根据玩家名称获取其 UUID。
-     * 此方法内部调用 Bukkit.getOfflinePlayer，这可能是一个阻塞操作。
-     * 建议在异步线程中调用此方法，以避免阻塞主线程。
-     *
-     * @param playerName 玩家的名称
-     * @return 如果成功获取到 UUID，则返回 UUID 对象；否则返回 null。
-     */
-    private UUID getPlayerUUIDByName(String playerName) {
-        try {
-            // Bukkit.getOfflinePlayer 可能会执行阻塞的网络调用。
-            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(playerName);
-            UUID uuid = offlinePlayer.getUniqueId();
-
-            if (uuid == null) {
-                // 这种情况对于有效的 playerName 来说比较罕见，但最好处理。
-                this.plugin.getLogger().warning("[LinkService] 无法获取玩家 " + playerName + " 的UUID。该玩家可能从未在此服务器或以该名称登录。");
-                return null;
-            }
-            return uuid;
-        } catch (Exception e) {
-            // 捕获泛型 Exception 可能隐藏具体问题，但在此处作为基本错误处理。
-            this.plugin.getLogger().log(Level.WARNING, "[LinkService] 获取玩家 " + playerName + " 的UUID时发生异常: " + e.getMessage(), e);
-            return null;
-        }
-    }
     /**
      * 根据 Kook ID 从数据库中获取绑定的玩家 UUID 和玩家名。
      *
      * @param kookId Kook ID
-     * @return 如果找到绑定则返回 LinkDetails 对象，否则返回 null。
+     * @return 如果找到绑定则返回 LinkDetails 对象，否则返回 null (Kook ID 格式无效时同样返回 null)。
      */
     private LinkDetails getLinkDetailsByKookId(String kookId) {
-        String sql = "SELECT player_uuid, player FROM " + KOOK_USER_TABLE_NAME + " WHERE kook_id = ? LIMIT 1";
-        return this.database.executeQuery(sql, null, Arrays.asList(kookId), resultSet -> {
+        if (!IdCodec.isValidKookId(kookId)) {
+            return null;
+        }
+        // 未绑定时直接由索引返回，只有存在绑定时才读取玩家名
+        if (bindingIndex.isLoaded() && !bindingIndex.isKookIdLinked(IdCodec.parseKookId(kookId))) {
+            return null;
+        }
+        return this.database.executeQuery(selectLinkByKookId, Arrays.asList(IdCodec.parseKookId(kookId)), resultSet -> {
             try {
                 if (resultSet.next()) {
-                    return new LinkDetails(resultSet.getString("player_uuid"), resultSet.getString("player"));
+                    return new LinkDetails(IdCodec.uuidStringFromBytes(resultSet.getBytes("player_uuid")), resultSet.getString("player"));
                 }
             } catch (SQLException e) {
                 throw new RuntimeException(e);
@@ -121,8 +308,7 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
      * @return 如果找到则返回玩家名，否则返回 null。
      */
     private String getPlayerNameByUUIDInternal(String playerUuidStr) {
-        String selectSql = "SELECT player FROM " + KOOK_USER_TABLE_NAME + " WHERE player_uuid = ?";
-        return this.database.executeQuery(selectSql, null, Arrays.asList(playerUuidStr), resultSet -> {
+        return this.database.executeQuery(selectPlayerByUuid, Arrays.asList(IdCodec.uuidToBytes(playerUuidStr)), resultSet -> {
             try {
                 if (resultSet.next()) {
                     return resultSet.getString("player");
@@ -135,94 +321,22 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
     }
 
     /**
-     * 异步地将 Minecraft 玩家名与 Kook ID 绑定。
-     * 此方法会异步执行以下操作：
-     * 1. 根据玩家名获取玩家 UUID (可能涉及网络请求)。
-     * 2. 检查该 UUID 是否已在数据库中存在绑定。
-     * 3. 检查该 Kook ID 是否已在数据库中存在绑定。
-     * 4. 构造 KookUser 对象。
-     * 5. 将绑定信息写入数据库。
-     * 所有操作均在异步线程中完成，结果和错误将通过回调传递，并记录到服务器日志。
-     *
-     * @param playerName Minecraft 玩家名。
-     * @param kookId     要绑定的 Kook ID。
-     * @param onSuccess  当成功绑定时调用此回调，参数为成功信息。
-     * @param onFailure  当绑定失败时调用此回调，参数为错误或提示信息。
+     * 为已解析出 UUID 的玩家绑定 Kook ID，在异步线程中调用
+     * 索引能直接判断玩家已绑定时不访问数据库，否则通过 {@link #bindUser(KookUser)} 一次写入。
+     * 数据库错误以异常抛出。
      */
-    @Override
-    public void bind(String playerName, String kookId, Consumer<String> onSuccess, Consumer<String> onFailure) {
+    BindResult bindResolved(String playerName, UUID uuid, String kookId) {
         final String nickName = "fake_player"; // Consider if this should be dynamic or configurable
-
-        this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
-            long startTime = System.currentTimeMillis();
-            this.plugin.getLogger().info("[LinkService] (Async) 开始尝试为玩家 " + playerName + " 绑定 Kook ID: " + kookId);
-
-            // 1) 根据玩家名拿 UUID
-            UUID uuid = getPlayerUUIDByName(playerName);
-            if (uuid == null) {
-                String msg = "无法为玩家 " + playerName + " 获取UUID，绑定操作中止。";
-                this.plugin.getLogger().warning("[LinkService] (Async) " + msg);
-                onFailure.accept(msg);
-                logOperationDuration(startTime, "绑定 (Player: " + playerName + ", Kook ID: " + kookId + ", UUID获取失败)");
-                return;
-            }
-            String playerUuidStr = uuid.toString();
-
-            // 2) 检查此 player_uuid 是否已存在绑定
-            String checkUuidSql = "SELECT kook_id FROM " + KOOK_USER_TABLE_NAME + " WHERE player_uuid = ? LIMIT 1";
-            try {
-                String existingKookIdForUuid = this.database.executeQuery(checkUuidSql, null, Collections.singletonList(playerUuidStr), resultSet -> {
-                    try {
-                        if (resultSet.next()) {
-                            return resultSet.getString("kook_id");
-                        }
-                        return null;
-                    } catch (SQLException e) {
-                        throw new RuntimeException("SQLException while checking existing UUID binding", e);
-                    }
-                });
-
-                if (existingKookIdForUuid != null) {
-                    String msg = "绑定失败：玩家 " + playerName + " (UUID: " + playerUuidStr + ") 已被 Kook ID: " + existingKookIdForUuid + " 绑定。请先解除现有绑定！";
-                    this.plugin.getLogger().warning("[LinkService] (Async) " + msg);
-                    onFailure.accept(msg);
-                    logOperationDuration(startTime, "绑定 (Player: " + playerName + ", Kook ID: " + kookId + ", UUID已绑定)");
-                    return;
-                }
-
-                // 3) 检查此 kook_id 是否已存在绑定
-                String checkKookIdSql = "SELECT player FROM " + KOOK_USER_TABLE_NAME + " WHERE kook_id = ? LIMIT 1";
-                String existingPlayerForKookId = this.database.executeQuery(checkKookIdSql, null, Collections.singletonList(kookId), resultSet -> {
-                    try {
-                        if (resultSet.next()) {
-                            return resultSet.getString("player");
-                        }
-                        return null;
-                    } catch (SQLException e) {
-                        throw new RuntimeException("SQLException while checking existing Kook ID binding", e);
-                    }
-                });
-
-                if (existingPlayerForKookId != null) {
-                    String msg = "绑定失败：Kook ID " + kookId + " 已被玩家 " + existingPlayerForKookId + " 绑定。请先解除现有绑定或使用其他Kook ID！";
-                    this.plugin.getLogger().warning("[LinkService] (Async) " + msg);
-                    onFailure.accept(msg);
-                    logOperationDuration(startTime, "绑定 (Player: " + playerName + ", Kook ID: " + kookId + ", Kook ID已绑定)");
-                    return;
-                }
-
-            } catch (RuntimeException e) {
-                String errorMsg = "绑定检查时发生数据库错误: " + e.getMessage();
-                this.plugin.getLogger().log(Level.SEVERE, "[LinkService] (Async) " + errorMsg, e);
-                onFailure.accept("绑定检查时发生内部错误，请联系管理员。");
-                logOperationDuration(startTime, "绑定 (Player: " + playerName + ", Kook ID: " + kookId + ", 检查时出错)");
-                return;
-            }
-
-
-            // 4) 构造 KookUser 实例
-            KookUser user = new KookUser(
-                    playerUuidStr,            // player_uuid
+        long startTime = System.currentTimeMillis();
+        this.plugin.getLogger().info("[LinkService] (Async) 开始尝试为玩家 " + playerName + " 绑定 Kook ID: " + kookId);
+
+        BindResult result;
+        long indexedKookId = bindingIndex.isLoaded() ? bindingIndex.getKookId(uuid) : BindingIndex.NO_KOOK_ID;
+        if (indexedKookId != BindingIndex.NO_KOOK_ID) {
+            result = BindResult.playerAlreadyLinked(playerName, uuid, kookId, IdCodec.kookIdToString(indexedKookId));
+        } else {
+            result = bindUser(new KookUser(
+                    uuid.toString(),          // player_uuid
                     kookId,                   // kook_id
                     playerName,               // player
                     null,                     // userName (如果需要，后续可从 Kook API 获取)
@@ -230,33 +344,177 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
                     false,                    // mobileVerified
                     System.currentTimeMillis(), // joinedAt (本次绑定的时间戳)
                     nickName                  // nickName
-            );
+            ));
+        }
 
-            // 5) 执行数据库链接操作 (写库)
-            try {
-                this.link(playerName, user); // This calls the `void link(String player, KookUser kookUser)` method
+        if (result.isSuccess()) {
+            this.plugin.getLogger().info("[LinkService] (Async) " + result.getMessage());
+        } else {
+            this.plugin.getLogger().warning("[LinkService] (Async) " + result.getMessage());
+        }
+        logOperationDuration(startTime, "绑定 (Player: " + playerName + ", Kook ID: " + kookId + ", " + result.getStatus() + ")");
+        return result;
+    }
 
-                String successMsg = "玩家 " + playerName + " (UUID: " + playerUuidStr + ") 已成功绑定到 Kook ID: " + kookId + "。";
-                this.plugin.getLogger().info("[LinkService] (Async) " + successMsg);
-                onSuccess.accept(successMsg);
+    /**
+     * 根据已解析出的玩家 UUID 查询绑定的 Kook ID
+     */
+    LookupResult<String> findKookIdByUuid(String playerName, UUID uuid) {
+        String kookId = lookupKookIdByUuid(uuid);
+        if (kookId == null || kookId.isEmpty()) {
+            String msg = "未找到玩家 " + playerName + " (UUID: " + uuid + ") 的 Kook ID 绑定记录。";
+            this.plugin.getLogger().info("[LinkService] (Async) " + msg);
+            return LookupResult.notLinked(msg);
+        }
+        this.plugin.getLogger().info("[LinkService] (Async) 玩家 " + playerName + " (UUID: " + uuid + ") 绑定的 Kook ID 为: " + kookId);
+        return LookupResult.found(kookId);
+    }
 
-            } catch (Exception e) {
-                // 理论上，由于前面的检查，主键冲突不应再发生，但保留以防万一
-                String errorMsg = "为玩家 " + playerName + " (UUID: " + playerUuidStr + ") 绑定 Kook ID " + kookId + " 时数据库操作失败。";
-                this.plugin.getLogger().log(Level.SEVERE, "[LinkService] (Async) " + errorMsg + ": " + e.getMessage(), e);
-                onFailure.accept("绑定失败：" + e.getMessage() + " 请联系管理员。");
+    /**
+     * 根据 Kook ID 查询绑定的玩家名
+     */
+    LookupResult<String> findPlayerNameByKookId(String kookId) {
+        if (!IdCodec.isValidKookId(kookId)) {
+            return LookupResult.invalidKookId("未找到 Kook ID: " + kookId + " 的有效绑定记录。");
+        }
+        LinkDetails linkDetails = getLinkDetailsByKookId(kookId);
+        if (linkDetails == null || linkDetails.playerName == null) {
+            String msg = "未找到 Kook ID: " + kookId + " 的有效绑定记录。";
+            this.plugin.getLogger().info("[LinkService] (Async) " + msg);
+            return LookupResult.notLinked(msg);
+        }
+        this.plugin.getLogger().info("[LinkService] (Async) Kook ID: " + kookId + " 绑定的玩家为: " + linkDetails.playerName + " (UUID: " + linkDetails.playerUuid + ")");
+        return LookupResult.found(linkDetails.playerName);
+    }
+
+    /**
+     * 根据已解析出的玩家 UUID 解除绑定，并同步索引和缓存
+     */
+    UnbindResult unbindByUuid(String playerName, UUID uuid) {
+        long startTime = System.currentTimeMillis();
+        this.plugin.getLogger().info("[LinkService] (Async) 开始尝试为玩家解绑: " + playerName);
+        String playerUuidStr = uuid.toString();
+
+        // 1. 检查此 UUID 是否有绑定记录，并获取数据库中存储的玩家名
+        String playerNameFromDb = getPlayerNameByUUIDInternal(playerUuidStr);
+        if (playerNameFromDb == null) {
+            String msg = "玩家 " + playerName + " (UUID: " + playerUuidStr + ") 未在系统中绑定或绑定信息不一致，无需移除。";
+            plugin.getLogger().info("[LinkService] (Async) " + msg);
+            logOperationDuration(startTime, "解绑 (Player: " + playerName + ", 未找到绑定)");
+            return UnbindResult.notLinked(playerName, uuid, null, msg);
+        }
+
+        // 2. 执行数据库删除操作，读取与更新索引都在写通道内，与并发的绑定保持同一顺序
+        Long deletedKookId;
+        try {
+            deletedKookId = this.database.executeInTransaction(connection -> {
+                long indexedKookId = bindingIndex.getKookId(uuid);
+                return this.database.update(connection, deleteByUuid, Arrays.asList(IdCodec.uuidToBytes(uuid))) > 0 ? indexedKookId : null;
+            }, deleted -> {
+                if (deleted != null) {
+                    bindingIndex.removeByPlayer(uuid);
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("解除绑定失败: " + e.getMessage(), e);
+        }
+        UnbindResult result;
+        if (deletedKookId != null) {
+            // 3. 删除成功后使缓存失效
+            long kookId = deletedKookId;
+            invalidateLinkState(uuid, kookId);
+            kookUserCache.invalidate(uuid);
+            nameAliases.invalidate(aliasKey(playerNameFromDb));
+            String successMsg = "成功移除了玩家 " + playerNameFromDb + " (UUID: " + playerUuidStr + ") 的绑定。";
+            plugin.getLogger().info("[LinkService] (Async) " + successMsg);
+            result = UnbindResult.success(playerNameFromDb, uuid,
+                    kookId == BindingIndex.NO_KOOK_ID ? null : IdCodec.kookIdToString(kookId), successMsg);
+        } else {
+            plugin.getLogger().warning("[LinkService] (Async) 尝试为玩家 " + playerNameFromDb + " (UUID: " + playerUuidStr + ") 解绑时，数据库中未删除任何行 (可能已被提前移除或UUID不匹配)。");
+            result = UnbindResult.notLinked(playerNameFromDb, uuid, null, "解绑玩家 " + playerNameFromDb + " 失败，可能记录已被移除。");
+        }
+        logOperationDuration(startTime, "解绑 (Player: " + playerName + ")");
+        return result;
+    }
+
+    /**
+     * 根据 Kook ID 解除绑定，并同步索引和缓存
+     */
+    UnbindResult unbindByKookId(String kookId) {
+        long startTime = System.currentTimeMillis();
+        this.plugin.getLogger().info("[LinkService] (Async) 开始尝试为 Kook ID 解绑: " + kookId);
+
+        // 1. 根据 Kook ID 获取绑定的玩家名和 UUID
+        LinkDetails linkDetails = getLinkDetailsByKookId(kookId);
+        if (linkDetails == null || linkDetails.playerName == null) {
+            UnbindResult result = IdCodec.isValidKookId(kookId)
+                    ? UnbindResult.notLinked(null, null, kookId, "未找到 Kook ID: " + kookId + " 的有效绑定记录，解绑操作中止。")
+                    : UnbindResult.invalidKookId(kookId);
+            this.plugin.getLogger().info("[LinkService] (Async) " + result.getMessage());
+            logOperationDuration(startTime, "解绑 (Kook ID: " + kookId + ", 未找到绑定)");
+            return result;
+        }
+        String playerName = linkDetails.playerName;
+        UUID playerUuid = linkDetails.playerUuid == null ? null : UUID.fromString(linkDetails.playerUuid);
+
+        // 2. 执行数据库删除操作 (直接使用 kookId 进行删除)，提交后在写通道内更新索引
+        long kookIdValue = IdCodec.parseKookId(kookId);
+        int affectedRows;
+        try {
+            affectedRows = this.database.executeInTransaction(
+                    connection -> this.database.update(connection, deleteByKookId, Arrays.asList(kookIdValue)),
+                    deleted -> {
+                        if (deleted > 0) {
+                            bindingIndex.removeByKookId(kookIdValue);
+                        }
+                    });
+        } catch (SQLException e) {
+            throw new RuntimeException("解除绑定失败: " + e.getMessage(), e);
+        }
+        UnbindResult result;
+        if (affectedRows > 0) {
+            // 3. 删除成功后使缓存失效
+            invalidateLinkState(playerUuid, kookIdValue);
+            if (playerUuid != null) {
+                kookUserCache.invalidate(playerUuid);
             }
+            nameAliases.invalidate(aliasKey(playerName));
+            String successMsg = "成功移除了 Kook ID: " + kookId + " (关联玩家: " + playerName + ") 的绑定。";
+            this.plugin.getLogger().info("[LinkService] (Async) " + successMsg);
+            result = UnbindResult.success(playerName, playerUuid, kookId, successMsg);
+        } else {
+            this.plugin.getLogger().warning("[LinkService] (Async) 尝试为 Kook ID: " + kookId + " 解绑时，数据库中未删除任何行 (可能已被提前移除)。");
+            result = UnbindResult.notLinked(playerName, playerUuid, kookId, "解绑 Kook ID: " + kookId + " 失败，可能记录已被移除。");
+        }
+        logOperationDuration(startTime, "解绑 (Kook ID: " + kookId + ")");
+        return result;
+    }
 
-            logOperationDuration(startTime, "绑定 (Player: " + playerName + ", Kook ID: " + kookId + ")");
+    /**
+     * 异步地将 Minecraft 玩家名与 Kook ID 绑定。
+     * 回调在异步线程中执行。
+     *
+     * @param playerName Minecraft 玩家名。
+     * @param kookId     要绑定的 Kook ID。
+     * @param onSuccess  当成功绑定时调用此回调，参数为成功信息。
+     * @param onFailure  当绑定失败时调用此回调，参数为错误或提示信息。
+     */
+    @Override
+    public void bind(String playerName, String kookId, Consumer<String> onSuccess, Consumer<String> onFailure) {
+        asyncRepository.bind(playerName, kookId).whenComplete((result, error) -> {
+            if (error != null) {
+                onFailure.accept("绑定时发生内部错误，请联系管理员。");
+            } else if (result.isSuccess()) {
+                onSuccess.accept(result.getMessage());
+            } else {
+                onFailure.accept(result.getMessage());
+            }
         });
     }
+
     /**
      * 根据 Minecraft 玩家名异步查询绑定关系中的 Kook ID。
-     * 此方法会异步执行以下操作：
-     * 1. 根据玩家名获取玩家 UUID (可能涉及网络请求)。
-     * 2. 如果成功获取 UUID，则查询数据库以获取关联的 Kook ID。
-     * 3. 将查询结果通过回调函数传递。
-     * 所有操作均在异步线程中完成，错误也将记录到服务器日志并通过回调传递。
+     * 回调在异步线程中执行。
      *
      * @param playerName 要查询的 Minecraft 玩家名。
      * @param onSuccess 当成功找到 Kook ID 时调用此回调，参数为 Kook ID。
@@ -264,58 +522,12 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
      */
     @Override
     public void bindgetKookIdByPlayerName(String playerName, Consumer<String> onSuccess, Consumer<String> onFailure) {
-        this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
-            long startTime = System.currentTimeMillis();
-            // 日志可以保留，用于服务器后台追踪
-            // this.plugin.getLogger().info("[LinkService] (Async) 开始根据玩家名查询 Kook ID: " + playerName);
-
-            // 1. 根据玩家名获取 UUID
-            UUID uuid = getPlayerUUIDByName(playerName);
-            if (uuid == null) {
-                // getPlayerUUIDByName 方法内部已经记录了具体的失败原因
-                String msg = "无法为玩家 " + playerName + " 获取UUID，查询 Kook ID 操作中止。";
-                this.plugin.getLogger().warning("[LinkService] (Async) " + msg); // 保留服务器日志
-                onFailure.accept(msg); // 通过回调通知调用者
-                logOperationDuration(startTime, "查询 Kook ID (Player: " + playerName + ", UUID获取失败)");
-                return;
-            }
-            String playerUuidStr = uuid.toString();
-
-            // 2. & 3. 根据 UUID 查询数据库获取 kook_id 并通过回调返回
-            String sql = "SELECT kook_id FROM " + KOOK_USER_TABLE_NAME + " WHERE player_uuid = ? LIMIT 1";
-            try {
-                String kookIdResult = this.database.executeQuery(sql, null, Arrays.asList(playerUuidStr), resultSet -> {
-                    try {
-                        if (resultSet.next()) {
-                            return resultSet.getString("kook_id");
-                        }
-                        return null; // Kook ID not found for this UUID
-                    } catch (SQLException e) {
-                        // Consistent with other lambdas in this file, re-throw as RuntimeException
-                        throw new RuntimeException("SQLException while processing ResultSet for Kook ID query", e);
-                    }
-                });
-
-                if (kookIdResult != null && !kookIdResult.isEmpty()) {
-                    this.plugin.getLogger().info("[LinkService] (Async) 玩家 " + playerName + " (UUID: " + playerUuidStr + ") 绑定的 Kook ID 为: " + kookIdResult); // 保留服务器日志
-                    onSuccess.accept(kookIdResult); // 通过回调返回 Kook ID
-                } else {
-                    String msg = "未找到玩家 " + playerName + " (UUID: " + playerUuidStr + ") 的 Kook ID 绑定记录。";
-                    this.plugin.getLogger().info("[LinkService] (Async) " + msg); // 保留服务器日志
-                    onFailure.accept(msg); // 通过回调通知未找到
-                }
-            } catch (RuntimeException e) { // Catches RuntimeException from executeQuery's lambda or executeQuery itself
-                String errorMsgForLog = "[LinkService] (Async) 根据玩家 " + playerName + " (UUID: " + playerUuidStr + ") 查询 Kook ID 时发生运行时异常: " + e.getMessage();
-                this.plugin.getLogger().log(Level.SEVERE, errorMsgForLog, e); // 保留服务器日志
-                onFailure.accept("查询 Kook ID 时发生内部错误，请联系管理员。"); // 通过回调通知错误
-            }
-
-            logOperationDuration(startTime, "查询 Kook ID (Player: " + playerName + ")");
-        });
+        deliverLookup(asyncRepository.getKookIdByPlayerName(playerName), "查询 Kook ID 时发生内部错误，请联系管理员。", onSuccess, onFailure);
     }
+
     /**
      * 根据 Kook ID 异步查询绑定关系中的玩家名。
-     * 此方法会异步执行数据库查询操作。
+     * 回调在异步线程中执行。
      *
      * @param kookId 要查询的 Kook ID。
      * @param onSuccess 当成功找到玩家名时调用此回调，参数为玩家名。
@@ -323,38 +535,12 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
      */
     @Override
     public void bindgetPlayerNameByKookId(String kookId, Consumer<String> onSuccess, Consumer<String> onFailure) {
-        this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
-            long startTime = System.currentTimeMillis();
-            this.plugin.getLogger().info("[LinkService] (Async) 开始根据 Kook ID 查询玩家名: " + kookId);
-
-            try {
-                LinkDetails linkDetails = getLinkDetailsByKookId(kookId); // 这是一个同步数据库调用
-
-                if (linkDetails != null && linkDetails.playerName != null) {
-                    this.plugin.getLogger().info("[LinkService] (Async) Kook ID: " + kookId + " 绑定的玩家为: " + linkDetails.playerName + " (UUID: " + linkDetails.playerUuid + ")");
-                    onSuccess.accept(linkDetails.playerName);
-                } else {
-                    String msg = "未找到 Kook ID: " + kookId + " 的有效绑定记录。";
-                    this.plugin.getLogger().info("[LinkService] (Async) " + msg);
-                    onFailure.accept(msg);
-                }
-            } catch (RuntimeException e) { // Catches RuntimeException from getLinkDetailsByKookId (e.g., SQLException)
-                String errorMsgForLog = "[LinkService] (Async) 根据 Kook ID " + kookId + " 查询玩家名时发生运行时异常: " + e.getMessage();
-                this.plugin.getLogger().log(Level.SEVERE, errorMsgForLog, e);
-                onFailure.accept("查询玩家名时发生内部错误，请联系管理员。");
-            }
-
-            logOperationDuration(startTime, "查询玩家名 (Kook ID: " + kookId + ")");
-        });
+        deliverLookup(asyncRepository.getPlayerNameByKookId(kookId), "查询玩家名时发生内部错误，请联系管理员。", onSuccess, onFailure);
     }
+
     /**
      * 根据 Minecraft 玩家名异步移除绑定关系。
-     * 此方法会异步执行以下操作：
-     * 1. 根据玩家名获取玩家 UUID (可能涉及网络请求)。
-     * 2. 检查此 UUID 是否在数据库中有绑定记录。
-     * 3. 如果存在绑定，则从数据库中删除该记录。
-     * 4. 使缓存中对应的条目失效。
-     * 所有操作均在异步线程中完成，结果和错误将通过回调传递，并记录到服务器日志。
+     * 回调在异步线程中执行。
      *
      * @param playerName 要移除绑定的 Minecraft 玩家名。
      * @param onSuccess  当成功移除绑定时调用此回调，参数为成功信息。
@@ -362,65 +548,12 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
      */
     @Override
     public void bindremoveByplayerName(String playerName, Consumer<String> onSuccess, Consumer<String> onFailure) {
-        this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
-            long startTime = System.currentTimeMillis();
-            this.plugin.getLogger().info("[LinkService] (Async) 开始尝试为玩家解绑: " + playerName);
-
-            // 1. 根据玩家名获取 UUID
-            UUID uuid = getPlayerUUIDByName(playerName);
-            if (uuid == null) {
-                String msg = "无法为玩家 " + playerName + " 获取UUID，解绑操作中止。";
-                this.plugin.getLogger().warning("[LinkService] (Async) " + msg);
-                onFailure.accept(msg);
-                logOperationDuration(startTime, "解绑 (Player: " + playerName + ", UUID获取失败)");
-                return;
-            }
-            String playerUuidStr = uuid.toString();
-
-            // 2. 检查此 UUID 是否在数据库中有绑定记录，并获取数据库中存储的玩家名
-            String playerNameFromDb = getPlayerNameByUUIDInternal(playerUuidStr);
-
-            if (playerNameFromDb == null) {
-                String msg = "玩家 " + playerName + " (UUID: " + playerUuidStr + ") 未在系统中绑定或绑定信息不一致，无需移除。";
-                plugin.getLogger().info("[LinkService] (Async) " + msg);
-                onFailure.accept(msg); // Or a more user-friendly "Player not found or not bound."
-                logOperationDuration(startTime, "解绑 (Player: " + playerName + ", 未找到绑定)");
-                return;
-            }
-
-            // 3. 执行数据库删除操作
-            String deleteSql = "DELETE FROM " + KOOK_USER_TABLE_NAME + " WHERE player_uuid = ?";
-            try {
-                int affectedRows = this.database.executeUpdate(deleteSql, null, Arrays.asList(playerUuidStr));
-
-                if (affectedRows > 0) {
-                    String successMsg = "成功移除了玩家 " + playerNameFromDb + " (UUID: " + playerUuidStr + ") 的绑定。";
-                    plugin.getLogger().info("[LinkService] (Async) " + successMsg);
-                    onSuccess.accept(successMsg);
-
-                    // 4. 如果删除成功，使缓存失效
-                    kookUserCache.invalidate(playerNameFromDb);
-                    plugin.getLogger().info("[LinkService] (Async) 已使玩家: " + playerNameFromDb + " (UUID: " + playerUuidStr + ") 的缓存失效。");
-                } else {
-                    String warnMsg = "尝试为玩家 " + playerNameFromDb + " (UUID: " + playerUuidStr + ") 解绑时，数据库中未删除任何行 (可能已被提前移除或UUID不匹配)。";
-                    plugin.getLogger().warning("[LinkService] (Async) " + warnMsg);
-                    onFailure.accept("解绑玩家 " + playerNameFromDb + " 失败，可能记录已被移除。");
-                }
-            } catch (RuntimeException e) {
-                String errorMsg = "为玩家 " + playerNameFromDb + " (UUID: " + playerUuidStr + ") 解绑时发生数据库错误。";
-                plugin.getLogger().log(Level.SEVERE, "[LinkService] (Async) " + errorMsg + ": " + e.getMessage(), e);
-                onFailure.accept("解绑时发生内部错误，请联系管理员。");
-            }
-            logOperationDuration(startTime, "解绑 (Player: " + playerName + ")");
-        });
+        deliverUnbind(asyncRepository.unbindByPlayerName(playerName), onSuccess, onFailure);
     }
+
     /**
      * 根据 Kook ID 异步移除绑定关系。
-     * 此方法会异步执行以下操作：
-     * 1. 根据 Kook ID 查询关联的玩家名和 UUID。
-     * 2. 如果存在绑定，则从数据库中删除该记录。
-     * 3. 使缓存中对应的玩家条目失效。
-     * 所有操作均在异步线程中完成，结果和错误将通过回调传递，并记录到服务器日志。
+     * 回调在异步线程中执行。
      *
      * @param kookId 要移除绑定的 Kook ID。
      * @param onSuccess 当成功移除绑定时调用此回调，参数为成功信息。
@@ -428,48 +561,31 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
      */
     @Override
     public void bindremoveByKookId(String kookId, Consumer<String> onSuccess, Consumer<String> onFailure) {
-        this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
-            long startTime = System.currentTimeMillis();
-            this.plugin.getLogger().info("[LinkService] (Async) 开始尝试为 Kook ID 解绑: " + kookId);
-
-            // 1. 根据 Kook ID 获取绑定的玩家名和 UUID
-            LinkDetails linkDetails = getLinkDetailsByKookId(kookId); // This is a synchronous DB call
-
-            if (linkDetails == null || linkDetails.playerName == null) {
-                String msg = "未找到 Kook ID: " + kookId + " 的有效绑定记录，解绑操作中止。";
-                this.plugin.getLogger().info("[LinkService] (Async) " + msg);
-                onFailure.accept(msg);
-                logOperationDuration(startTime, "解绑 (Kook ID: " + kookId + ", 未找到绑定)");
-                return;
-            }
+        deliverUnbind(asyncRepository.unbindByKookId(kookId), onSuccess, onFailure);
+    }
 
-            String playerName = linkDetails.playerName;
-            // String playerUuid = linkDetails.playerUuid; // playerUuid can be used for logging or further operations
+    private static void deliverLookup(CompletableFuture<LookupResult<String>> future, String errorMessage,
+                                      Consumer<String> onSuccess, Consumer<String> onFailure) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                onFailure.accept(errorMessage);
+            } else if (result.isFound()) {
+                onSuccess.accept(result.getValue());
+            } else {
+                onFailure.accept(result.getMessage());
+            }
+        });
+    }
 
-            // 2. 执行数据库删除操作 (直接使用 kookId 进行删除)
-            String deleteSql = "DELETE FROM " + KOOK_USER_TABLE_NAME + " WHERE kook_id = ?";
-            try {
-                int affectedRows = this.database.executeUpdate(deleteSql, null, Arrays.asList(kookId));
-
-                if (affectedRows > 0) {
-                    String successMsg = "成功移除了 Kook ID: " + kookId + " (关联玩家: " + playerName + ") 的绑定。";
-                    this.plugin.getLogger().info("[LinkService] (Async) " + successMsg);
-                    onSuccess.accept(successMsg);
-
-                    // 3. 如果删除成功，使缓存失效
-                    kookUserCache.invalidate(playerName);
-                    this.plugin.getLogger().info("[LinkService] (Async) 已使玩家: " + playerName + " (原 Kook ID: " + kookId + ") 的缓存失效。");
-                } else {
-                    String warnMsg = "尝试为 Kook ID: " + kookId + " 解绑时，数据库中未删除任何行 (可能已被提前移除)。";
-                    this.plugin.getLogger().warning("[LinkService] (Async) " + warnMsg);
-                    onFailure.accept("解绑 Kook ID: " + kookId + " 失败，可能记录已被移除。");
-                }
-            } catch (RuntimeException e) {
-                String errorMsg = "为 Kook ID: " + kookId + " (关联玩家: " + playerName + ") 解绑时发生数据库错误。";
-                this.plugin.getLogger().log(Level.SEVERE, "[LinkService] (Async) " + errorMsg + ": " + e.getMessage(), e);
+    private static void deliverUnbind(CompletableFuture<UnbindResult> future, Consumer<String> onSuccess, Consumer<String> onFailure) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
                 onFailure.accept("解绑时发生内部错误，请联系管理员。");
+            } else if (result.isSuccess()) {
+                onSuccess.accept(result.getMessage());
+            } else {
+                onFailure.accept(result.getMessage());
             }
-            logOperationDuration(startTime, "解绑 (Kook ID: " + kookId + ")");
         });
     }
 
@@ -480,129 +596,301 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
 
     /**
      * 检查玩家是否已链接，并处理玩家改名的情况。
-     * 注意：此方法包含 Bukkit.getOfflinePlayer() 调用，可能是阻塞的。
+     * 绑定状态来自内存索引，玩家 UUID 只从本地数据解析，可以在主线程调用。
      *
      * @param currentPlayerName 当前的玩家名
      * @return 如果玩家已链接则返回 true，否则 false
      */
     @Override
     public boolean isLinked(String currentPlayerName) {
-        // 1. 通过当前玩家名获取 UUID (潜在阻塞操作)
-        UUID playerUuid = getPlayerUUIDByName(currentPlayerName);
+        // 1. 通过当前玩家名获取 UUID (只读本地数据，不会阻塞)
+        PlayerUuidResolver resolver = plugin.getUuidResolver();
+        UUID playerUuid = resolver.resolveNow(currentPlayerName);
         if (playerUuid == null) {
-            // getPlayerUUIDByName 内部已打印日志
+            // 本地无法确定时在后台查询，下次调用即可命中
+            resolver.resolve(currentPlayerName);
             return false; //无法获取UUID，视为未绑定
         }
-        String playerUuidStr = playerUuid.toString();
+        return isLinked(playerUuid, currentPlayerName);
+    }
+
+    /**
+     * 已知玩家 UUID 时检查绑定状态，并处理玩家改名的情况
+     *
+     * @param playerUuid        玩家 UUID
+     * @param currentPlayerName 当前的玩家名
+     * @return 如果玩家已链接则返回 true，否则 false
+     */
+    @Override
+    public boolean isLinked(UUID playerUuid, String currentPlayerName) {
+        // 索引未加载 (启动时加载失败) 时回退到数据库
+        if (!bindingIndex.isLoaded()) {
+            if (unlinkedPlayerCache.getIfPresent(playerUuid) != null) {
+                return false;
+            }
+            boolean linked = refreshLinkedUser(currentPlayerName, playerUuid);
+            if (!linked) {
+                unlinkedPlayerCache.put(playerUuid, Boolean.TRUE);
+            }
+            return linked;
+        }
 
-        // 2. 检查缓存 (使用当前玩家名作为键)
-        KookUser cachedUser = kookUserCache.getIfPresent(currentPlayerName);
-        if (cachedUser != null) {
-                return true; // 缓存有效且名字匹配
+        // 2. 绑定状态直接读内存索引
+        if (!bindingIndex.isPlayerLinked(playerUuid)) {
+            return false;
         }
 
-        // 3. 使用 UUID 查询数据库
-        // 查询所有字段，以便在链接存在时更新缓存
-        String sql = "SELECT player_uuid, kook_id, player, userName, avatar, mobileVerified, joinedAt, nickName FROM " + KOOK_USER_TABLE_NAME + " WHERE player_uuid = ?";
+        // 3. 缓存中的名字与当前名字一致，说明玩家没有改名
+        KookUser cached = kookUserCache.getIfPresent(playerUuid);
+        if (cached != null && currentPlayerName.equals(cached.getPlayer())) {
+            return true;
+        }
 
-        Boolean isLinkedResult = this.database.executeQuery(sql, null, Collections.singletonList(playerUuidStr), resultSet -> {
+        // 4. 资料加载与改名检查不影响绑定状态，放到异步线程执行
+        plugin.getAsyncExecutor().execute(() -> {
             try {
-                if (resultSet.next()) {
-                    String dbPlayerName = resultSet.getString("player"); // 数据库中存储的（可能旧的）玩家名
-                    String kookId = resultSet.getString("kook_id");
-
-                    if (kookId == null || kookId.isEmpty()) { // 理论上不应发生，因为我们是按UUID查的，但作为防御
-                        return false;
-                    }
+                if (!refreshLinkedUser(currentPlayerName, playerUuid)) {
+                    // 数据库中已没有这条绑定，以数据库为准修正索引
+                    removeIndexIfUnlinked(playerUuid);
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.WARNING, "[LinkService] 刷新玩家 " + currentPlayerName + " 的绑定资料失败", e);
+            }
+        });
+        return true;
+    }
 
-                    // 4. 检查并更新数据库中的玩家名
-                    if (!dbPlayerName.equals(currentPlayerName)) {
-                        plugin.getLogger().info("[LinkService] 玩家 " + playerUuidStr + " (已绑定) 旧游戏名字 '" + dbPlayerName + "' 变更为 '" + currentPlayerName + "'. 进行数据库更新操作.");
-                        String updateSql = "UPDATE " + KOOK_USER_TABLE_NAME + " SET player = ? WHERE player_uuid = ?";
-                        try {
-                            int affectedRows = this.database.executeUpdate(updateSql, null, Arrays.asList(currentPlayerName, playerUuidStr));
-                            if (affectedRows > 0) {
-                                plugin.getLogger().info("[LinkService] Successfully updated player name in DB for " + playerUuidStr + " to '" + currentPlayerName + "'.");
-                                // 如果旧名字的缓存还存在，使其失效
-                                if (kookUserCache.getIfPresent(dbPlayerName) != null) {
-                                    kookUserCache.invalidate(dbPlayerName);
-                                    plugin.getLogger().info("[LinkService] Invalidated cache for old name: '" + dbPlayerName + "'.");
-                                }
-                            } else {
-                                plugin.getLogger().warning("[LinkService] Failed to update player name in DB for " + playerUuidStr + " (0 rows affected).");
-                            }
-                        } catch (Exception e) {
-                            plugin.getLogger().log(Level.SEVERE, "[LinkService] Error updating player name in DB for " + playerUuidStr, e);
-                            // 即使更新失败，绑定关系仍然存在，继续处理
-                        }
-                    }
+    /**
+     * 从数据库读取玩家的绑定资料，必要时更新数据库中的玩家名，并刷新缓存
+     *
+     * @param currentPlayerName 当前的玩家名
+     * @param playerUuid        玩家 UUID
+     * @return 数据库中是否存在该玩家的绑定
+     */
+    private boolean refreshLinkedUser(String currentPlayerName, UUID playerUuid) {
+        String playerUuidStr = playerUuid.toString();
 
-                    // 5. 更新/填充缓存 (使用当前玩家名作为键，并确保KookUser对象内部玩家名也是最新的)
-                    KookUser userToCache = new KookUser(
-                            playerUuidStr, // resultSet.getString("player_uuid")
-                            kookId,
-                            currentPlayerName, // 关键：使用当前的玩家名
-                            resultSet.getString("userName"),
-                            resultSet.getString("avatar"),
-                            resultSet.getBoolean("mobileVerified"),
-                            resultSet.getLong("joinedAt"),
-                            resultSet.getString("nickName")
-                    );
-                    kookUserCache.put(currentPlayerName, userToCache);
-                    plugin.getLogger().fine("[LinkService] (isLinked) Refreshed cache for " + currentPlayerName + " (UUID: " + playerUuidStr + ")");
-                    return true; // 玩家已链接
+        // 使用 UUID 查询数据库
+        // 查询所有字段，以便在链接存在时更新缓存
+        // 读通道只负责取数据，改名的写入放在结果集关闭之后进行，避免读连接持有锁时等待写通道
+        KookUser storedUser = this.database.executeQuery(selectByUuid, Collections.singletonList(IdCodec.uuidToBytes(playerUuid)), resultSet -> {
+            try {
+                if (resultSet.next()) {
+                    return KOOK_USER_MAPPER.map(resultSet); // player 为数据库中存储的（可能旧的）玩家名
                 }
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "[LinkService] SQLException during isLinked DB check for UUID " + playerUuidStr, e);
                 throw new RuntimeException("Database error in isLinked", e); // 让 executeQuery 的错误处理机制捕获
             }
-            return false; // UUID 未在数据库中找到绑定记录
+            return null; // UUID 未在数据库中找到绑定记录
         });
 
-        return Boolean.TRUE.equals(isLinkedResult); // 处理 executeQuery 可能返回 null 的情况
+        if (storedUser == null) {
+            return false;
+        }
+        String kookId = storedUser.getKook_id();
+        if (kookId == null || kookId.isEmpty()) { // 理论上不应发生，因为我们是按UUID查的，但作为防御
+            return false;
+        }
+
+        // 检查并更新数据库中的玩家名 (延迟写入，同一玩家的多次改名只写最后一次)
+        String dbPlayerName = storedUser.getPlayer();
+        if (!currentPlayerName.equals(dbPlayerName)) {
+            plugin.getLogger().info("[LinkService] 玩家 " + playerUuidStr + " (已绑定) 旧游戏名字 '" + dbPlayerName + "' 变更为 '" + currentPlayerName + "'. 已加入延迟写入队列.");
+            writeBehindQueue.submit(updatePlayerByUuid, playerUuid, Arrays.asList(currentPlayerName, IdCodec.uuidToBytes(playerUuid)));
+            plugin.getUuidResolver().remember(currentPlayerName, playerUuid);
+            // 旧名字不再指向该玩家
+            if (dbPlayerName != null) {
+                nameAliases.asMap().remove(aliasKey(dbPlayerName), playerUuid);
+            }
+        }
+
+        // 更新/填充缓存 (确保KookUser对象内部玩家名也是最新的)
+        storedUser.setPlayer(currentPlayerName); // 关键：使用当前的玩家名
+        kookUserCache.put(playerUuid, storedUser);
+        nameAliases.put(aliasKey(currentPlayerName), playerUuid);
+        plugin.getLogger().fine("[LinkService] (isLinked) Refreshed cache for " + currentPlayerName + " (UUID: " + playerUuidStr + ")");
+        return true; // 玩家已链接
     }
 
     @Override
     public KookUser getLinkedKookUser(String player) {
-        // 先走缓存
-        KookUser cacheIfPresent = kookUserCache.getIfPresent(player);
-        if(cacheIfPresent!=null){
-            return cacheIfPresent;
+        // 先按玩家名找到 UUID，再走以 UUID 为键的缓存
+        UUID playerUuid = nameAliases.getIfPresent(aliasKey(player));
+        if (playerUuid == null) {
+            playerUuid = plugin.getUuidResolver().resolveNow(player);
         }
-//根据玩家名字player来查询数据库的对应kook_id
-        String sql = "select * from "+KOOK_USER_TABLE_NAME+" where player = ?";
-
-        return this.database.executeQuery(sql,null,Arrays.asList(player),resultSet -> {
+        if (playerUuid != null) {
+            if (bindingIndex.isLoaded() && !bindingIndex.isPlayerLinked(playerUuid)) {
+                return null;
+            }
+            KookUser kookUser = kookUserCache.get(playerUuid);
+            if (kookUser != null) {
+                nameAliases.put(aliasKey(player), playerUuid);
+                return kookUser;
+            }
+        }
+        //本地无法确定 UUID 时根据玩家名字player来查询数据库 (COLLATE NOCASE 以命中 player 索引)
+        KookUser kookUser = this.database.executeQuery(selectByPlayer,Arrays.asList(player),resultSet -> {
             try {
                 if(resultSet.next()){
-                    KookUser andPopulate = ReflectFactory.createAndPopulate(KookUser.class, resultSet);
-                    kookUserCache.put(player,andPopulate);
-                    return getLinkedKookUser(player);
+                    return KOOK_USER_MAPPER.map(resultSet);
                 }
             } catch (SQLException e) {
                 throw new RuntimeException(e);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            } catch (InstantiationException e) {
-                throw new RuntimeException(e);
             }
             return null;
         });
+        if(kookUser!=null){
+            UUID storedUuid = UUID.fromString(kookUser.getPlayer_uuid());
+            kookUserCache.put(storedUuid, kookUser);
+            nameAliases.put(aliasKey(player), storedUuid);
+        }
+        return kookUser;
+    }
+
+    @Override
+    public Map<UUID, KookUser> getLinkedKookUsers(Collection<UUID> playerUuids) {
+        return kookUserCache.getAll(playerUuids);
+    }
+
+    /**
+     * 缓存未命中时按 UUID 读取单条绑定资料
+     */
+    private KookUser loadKookUser(UUID playerUuid) {
+        return this.database.executeQuery(selectByUuid, Collections.singletonList(IdCodec.uuidToBytes(playerUuid)), resultSet -> {
+            try {
+                return resultSet.next() ? KOOK_USER_MAPPER.map(resultSet) : null;
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * 批量读取绑定资料，每 {@link #BULK_LOAD_CHUNK} 个 UUID 使用一条 IN 查询；未绑定的 UUID 不出现在结果中
+     */
+    private Map<UUID, KookUser> loadKookUsers(Set<? extends UUID> playerUuids) {
+        Map<UUID, KookUser> result = new HashMap<>(playerUuids.size() * 2);
+        List<UUID> pending = new ArrayList<>(playerUuids);
+        for (int from = 0; from < pending.size(); from += BULK_LOAD_CHUNK) {
+            List<UUID> chunk = pending.subList(from, Math.min(from + BULK_LOAD_CHUNK, pending.size()));
+            if (bindingIndex.isLoaded()) {
+                chunk = new ArrayList<>(chunk);
+                chunk.removeIf(uuid -> !bindingIndex.isPlayerLinked(uuid));
+                if (chunk.isEmpty()) continue;
+            }
+            int sizeIndex = 0;
+            while (BULK_LOAD_SIZES[sizeIndex] < chunk.size()) {
+                sizeIndex++;
+            }
+            int size = BULK_LOAD_SIZES[sizeIndex];
+            List<Object> values = new ArrayList<>(size);
+            for (UUID uuid : chunk) {
+                values.add(IdCodec.uuidToBytes(uuid));
+            }
+            // 空位重复第一个 UUID，IN 查询的结果不会因此重复
+            byte[] padding = IdCodec.uuidToBytes(chunk.get(0));
+            while (values.size() < size) {
+                values.add(padding);
+            }
+            this.database.executeQuery(selectUsersIn[sizeIndex], values, resultSet -> {
+                try {
+                    while (resultSet.next()) {
+                        KookUser kookUser = KOOK_USER_MAPPER.map(resultSet);
+                        result.put(UUID.fromString(kookUser.getPlayer_uuid()), kookUser);
+                    }
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+                return null;
+            });
+        }
+        return result;
+    }
+
+    private static String aliasKey(String playerName) {
+        return playerName.toLowerCase(Locale.ROOT);
     }
 
     @Override
     public void link(String player, KookUser kookUser) {
-        String sql = "INSERT INTO " + KOOK_USER_TABLE_NAME +
-                " (player_uuid, kook_id, player, userName, avatar, mobileVerified, joinedAt, nickName) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        BindResult result = bindUser(kookUser);
+        if (!result.isSuccess()) {
+            throw new RuntimeException(result.getMessage());
+        }
+    }
+
+    @Override
+    public BindResult bindUser(KookUser kookUser) {
+        UUID playerUuid = UUID.fromString(kookUser.getPlayer_uuid());
+        String playerName = kookUser.getPlayer();
+        String kookId = kookUser.getKook_id();
+        if (!IdCodec.isValidKookId(kookId)) {
+            return BindResult.invalidKookId(playerName, kookId);
+        }
+        long kookIdValue = IdCodec.parseKookId(kookId);
+        byte[] uuidBytes = IdCodec.uuidToBytes(playerUuid);
 
-        this.database.executeUpdate(sql,null,kookUser.getFieldList());
+        BindResult result;
+        try {
+            result = this.database.executeInTransaction(connection -> {
+                if (this.database.update(connection, insertUserIfAbsent, KOOK_USER_MAPPER.toParams(kookUser)) > 0) {
+                    return BindResult.success(playerName, playerUuid, kookId, kookUser);
+                }
+                // 插入被唯一约束拦下，在同一事务内读取冲突的记录，判断是哪一侧已被绑定
+                return this.database.query(connection, selectBindingConflicts, Arrays.asList(uuidBytes, kookIdValue), resultSet -> {
+                    BindResult conflict = null;
+                    while (resultSet.next()) {
+                        if (Arrays.equals(resultSet.getBytes(1), uuidBytes)) {
+                            return BindResult.playerAlreadyLinked(playerName, playerUuid, kookId, IdCodec.kookIdToString(resultSet.getLong(2)));
+                        }
+                        conflict = BindResult.kookIdAlreadyLinked(playerName, playerUuid, kookId, resultSet.getString(3));
+                    }
+                    return conflict;
+                });
+            }, committed -> {
+                // 提交后在写通道内同步索引，之后的解绑一定在此之后执行
+                if (committed != null && committed.isSuccess()) {
+                    bindingIndex.put(playerUuid, kookIdValue);
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("写入绑定失败: " + e.getMessage(), e);
+        }
+        if (result == null) {
+            throw new RuntimeException("写入绑定失败: 插入未生效，但未找到冲突的绑定记录 (Player: " + playerName + ", Kook ID: " + kookId + ")");
+        }
+
+        // 无论是否冲突，两侧都已确定存在绑定
+        invalidateLinkState(playerUuid, kookIdValue);
+        if (result.isSuccess()) {
+            kookUserCache.put(playerUuid, kookUser);
+            nameAliases.put(aliasKey(playerName), playerUuid);
+            plugin.getUuidResolver().remember(playerName, playerUuid);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isLinked(UUID playerUuid) {
+        if (playerUuid == null) return false;
+        if (bindingIndex.isLoaded()) return bindingIndex.isPlayerLinked(playerUuid);
+        if (unlinkedPlayerCache.getIfPresent(playerUuid) != null) return false;
+        boolean linked = lookupKookIdByUuid(playerUuid) != null;
+        if (!linked) {
+            unlinkedPlayerCache.put(playerUuid, Boolean.TRUE);
+        }
+        return linked;
     }
 
     @Override
     public boolean kookUserIsLinked(String kookId) {
-        String sql = "select player from "+KOOK_USER_TABLE_NAME+" where kook_id = ?";
-        return this.database.executeQuery(sql,null,Arrays.asList(kookId),resultSet -> {
+        if(!IdCodec.isValidKookId(kookId)) return false;
+        long kookIdValue = IdCodec.parseKookId(kookId);
+        if(bindingIndex.isLoaded()) return bindingIndex.isKookIdLinked(kookIdValue);
+        if(unlinkedKookIdCache.getIfPresent(kookIdValue) != null) return false;
+        boolean linked = this.database.executeQuery(selectLinkByKookId,Arrays.asList(kookIdValue),resultSet -> {
             try {
                 if(resultSet.next()) return true;
             } catch (SQLException e) {
@@ -610,5 +898,110 @@ public class LinkRepositoryImpl implements LinkRepository, BaseMapper {
             }
             return false;
         });
+        if(!linked) {
+            unlinkedKookIdCache.put(kookIdValue, Boolean.TRUE);
+        }
+        return linked;
+    }
+
+    @Override
+    public boolean[] importBindings(List<KookUser> users, ConflictPolicy policy) {
+        boolean[] written = new boolean[users.size()];
+        if (users.isEmpty()) {
+            return written;
+        }
+        SqlStatement statement = policy == ConflictPolicy.OVERWRITE ? insertOrReplaceUser : insertUserIfAbsent;
+        List<List<Object>> batch = new ArrayList<>(users.size());
+        for (KookUser kookUser : users) {
+            batch.add(KOOK_USER_MAPPER.toParams(kookUser));
+        }
+        // 覆盖导入时被替换的一侧可能在资料缓存中，一并移除
+        List<UUID> displacedPlayers = new ArrayList<>();
+        try {
+            this.database.executeInTransaction(connection -> this.database.updateBatch(connection, statement, batch), counts -> {
+                // 提交后在写通道内同步索引
+                for (int i = 0; i < users.size(); i++) {
+                    if (counts[i] <= 0 && counts[i] != Statement.SUCCESS_NO_INFO) {
+                        continue;
+                    }
+                    written[i] = true;
+                    if (!bindingIndex.isLoaded()) {
+                        continue;
+                    }
+                    UUID playerUuid = UUID.fromString(users.get(i).getPlayer_uuid());
+                    long kookId = IdCodec.parseKookId(users.get(i).getKook_id());
+                    UUID displaced = bindingIndex.getPlayerUuid(kookId);
+                    if (displaced != null && !displaced.equals(playerUuid)) {
+                        displacedPlayers.add(displaced);
+                    }
+                    bindingIndex.put(playerUuid, kookId);
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("批量导入绑定失败: " + e.getMessage(), e);
+        }
+
+        boolean displacedUnknown = policy == ConflictPolicy.OVERWRITE && !bindingIndex.isLoaded();
+        displacedPlayers.forEach(kookUserCache::invalidate);
+        PlayerUuidResolver resolver = plugin.getUuidResolver();
+        for (int i = 0; i < users.size(); i++) {
+            if (!written[i]) {
+                continue;
+            }
+            KookUser kookUser = users.get(i);
+            UUID playerUuid = UUID.fromString(kookUser.getPlayer_uuid());
+            long kookId = IdCodec.parseKookId(kookUser.getKook_id());
+            kookUserCache.invalidate(playerUuid);
+            invalidateLinkState(playerUuid, kookId);
+            if (kookUser.getPlayer() != null) {
+                nameAliases.put(aliasKey(kookUser.getPlayer()), playerUuid);
+                if (resolver != null) {
+                    resolver.remember(kookUser.getPlayer(), playerUuid);
+                }
+            }
+        }
+        if (displacedUnknown) {
+            kookUserCache.invalidateAll();
+        }
+        return written;
+    }
+
+    @Override
+    public QueryCursor<KookUser> openBindingCursor() {
+        try {
+            return this.database.openCursor(selectAllUsers, null, KOOK_USER_MAPPER::map);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException("打开绑定查询失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 在写通道内再次确认数据库中没有该玩家的绑定后移除索引，避免与并发的绑定交错时删掉刚写入的绑定
+     */
+    private void removeIndexIfUnlinked(UUID playerUuid) {
+        try {
+            this.database.executeInTransaction(
+                    connection -> this.database.query(connection, selectKookIdByUuid,
+                            Collections.singletonList(IdCodec.uuidToBytes(playerUuid)), ResultSet::next),
+                    linked -> {
+                        if (!linked) {
+                            bindingIndex.removeByPlayer(playerUuid);
+                        }
+                    });
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "[LinkService] 修正玩家 " + playerUuid + " 的绑定索引失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 绑定或解绑后清除两侧的"未绑定"缓存
+     */
+    private void invalidateLinkState(UUID playerUuid, long kookId) {
+        if (playerUuid != null) {
+            unlinkedPlayerCache.invalidate(playerUuid);
+        }
+        if (kookId != BindingIndex.NO_KOOK_ID) {
+            unlinkedKookIdCache.invalidate(kookId);
+        }
     }
 }
@@ -0,0 +1,86 @@
+package com.meteor.mckook.storage.mapper.impl;
+
+import com.meteor.mckook.model.link.LinkCache;
+import com.meteor.mckook.storage.AbstractDatabase;
+import com.meteor.mckook.storage.SqlStatement;
+import com.meteor.mckook.storage.WriteBehindQueue;
+import com.meteor.mckook.storage.codec.IdCodec;
+import com.meteor.mckook.storage.mapper.BaseMapper;
+import com.meteor.mckook.storage.mapper.VerifyCodeRepository;
+import com.meteor.mckook.storage.migration.SchemaMigrations;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class VerifyCodeRepositoryImpl implements VerifyCodeRepository, BaseMapper {
+
+    private final AbstractDatabase database;
+    private final WriteBehindQueue writeBehindQueue;
+
+    /**
+     * 保存与作废共用同一条语句，延迟写入队列按验证码合并，不会出现删除先于保存执行的情况
+     */
+    private final SqlStatement upsert;
+    private final SqlStatement selectActive;
+    private final SqlStatement deleteExpired;
+
+    public VerifyCodeRepositoryImpl(AbstractDatabase database, WriteBehindQueue writeBehindQueue) {
+        this.database = database;
+        this.writeBehindQueue = writeBehindQueue;
+
+        Map<String, String> params = new HashMap<>();
+        params.put("table", SchemaMigrations.VERIFY_CODE_TABLE_NAME);
+        this.upsert = database.compile("INSERT INTO {table} (verify_code, player_uuid, player, expires_at) VALUES (?, ?, ?, ?) " +
+                "ON CONFLICT (verify_code) DO UPDATE SET player_uuid = excluded.player_uuid, player = excluded.player, expires_at = excluded.expires_at", params);
+        this.selectActive = database.compile("SELECT verify_code, player_uuid, player, expires_at FROM {table} WHERE expires_at > ?", params);
+        this.deleteExpired = database.compile("DELETE FROM {table} WHERE expires_at <= ?", params);
+    }
+
+    @Override
+    public void save(LinkCache linkCache) {
+        write(linkCache, linkCache.getExpiresAt());
+    }
+
+    @Override
+    public void expire(LinkCache linkCache) {
+        write(linkCache, 0L);
+    }
+
+    private void write(LinkCache linkCache, long expiresAt) {
+        writeBehindQueue.submit(upsert, linkCache.getVerifyCode(), Arrays.asList(
+                linkCache.getVerifyCode(),
+                IdCodec.uuidToBytes(linkCache.getPlayerUuid()),
+                linkCache.getPlayerName(),
+                expiresAt));
+    }
+
+    @Override
+    public List<LinkCache> loadActive() {
+        return database.executeQuery(selectActive, Collections.singletonList(System.currentTimeMillis()), resultSet -> {
+            List<LinkCache> active = new ArrayList<>();
+            try {
+                while (resultSet.next()) {
+                    byte[] uuid = resultSet.getBytes(2);
+                    if (uuid == null || uuid.length != 16) {
+                        continue;
+                    }
+                    active.add(new LinkCache(resultSet.getString(1), IdCodec.uuidFromBytes(uuid),
+                            resultSet.getString(3), resultSet.getLong(4)));
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            return active;
+        });
+    }
+
+    @Override
+    public int purgeExpired() {
+        return database.executeUpdate(deleteExpired, Collections.singletonList(System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.meteor.mckook.storage.mapper.result;
+
+import com.meteor.mckook.model.link.KookUser;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 绑定操作的结果
+ */
+@Getter
+public final class BindResult {
+
+    public enum Status {
+        /** 绑定成功 */
+        SUCCESS,
+        /** Kook ID 格式无效 */
+        INVALID_KOOK_ID,
+        /** 无法解析玩家 UUID */
+        PLAYER_NOT_FOUND,
+        /** 玩家已绑定其他 Kook ID */
+        PLAYER_ALREADY_LINKED,
+        /** Kook ID 已被其他玩家绑定 */
+        KOOK_ID_ALREADY_LINKED
+    }
+
+    private final Status status;
+    private final String playerName;
+    private final String kookId;
+    /**
+     * 玩家 UUID，未能解析时为 null
+     */
+    private final UUID playerUuid;
+    /**
+     * 冲突的另一方: 玩家已绑定时为其 Kook ID，Kook ID 已被绑定时为对应的玩家名
+     */
+    private final String conflict;
+    /**
+     * 可直接展示给用户的提示信息
+     */
+    private final String message;
+    /**
+     * 写入数据库的绑定资料，仅在绑定成功时不为 null
+     */
+    private final KookUser linkedUser;
+
+    private BindResult(Status status, String playerName, String kookId, UUID playerUuid, String conflict, String message, KookUser linkedUser) {
+        this.status = status;
+        this.playerName = playerName;
+        this.kookId = kookId;
+        this.playerUuid = playerUuid;
+        this.conflict = conflict;
+        this.message = message;
+        this.linkedUser = linkedUser;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public static BindResult success(String playerName, UUID playerUuid, String kookId, KookUser linkedUser) {
+        return new BindResult(Status.SUCCESS, playerName, kookId, playerUuid, null,
+                "玩家 " + playerName + " (UUID: " + playerUuid + ") 已成功绑定到 Kook ID: " + kookId + "。", linkedUser);
+    }
+
+    public static BindResult invalidKookId(String playerName, String kookId) {
+        return new BindResult(Status.INVALID_KOOK_ID, playerName, kookId, null, null,
+                "绑定失败：Kook ID " + kookId + " 格式无效，应为纯数字。", null);
+    }
+
+    public static BindResult playerNotFound(String playerName, String kookId) {
+        return new BindResult(Status.PLAYER_NOT_FOUND, playerName, kookId, null, null,
+                "无法为玩家 " + playerName + " 获取UUID，绑定操作中止。", null);
+    }
+
+    public static BindResult playerAlreadyLinked(String playerName, UUID playerUuid, String kookId, String existingKookId) {
+        return new BindResult(Status.PLAYER_ALREADY_LINKED, playerName, kookId, playerUuid, existingKookId,
+                "绑定失败：玩家 " + playerName + " (UUID: " + playerUuid + ") 已被 Kook ID: " + existingKookId + " 绑定。请先解除现有绑定！", null);
+    }
+
+    public static BindResult kookIdAlreadyLinked(String playerName, UUID playerUuid, String kookId, String existingPlayerName) {
+        return new BindResult(Status.KOOK_ID_ALREADY_LINKED, playerName, kookId, playerUuid, existingPlayerName,
+                "绑定失败：Kook ID " + kookId + " 已被玩家 " + existingPlayerName + " 绑定。请先解除现有绑定或使用其他Kook ID！", null);
+    }
+}
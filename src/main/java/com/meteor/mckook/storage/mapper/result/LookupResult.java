@@ -0,0 +1,64 @@
+package com.meteor.mckook.storage.mapper.result;
+
+import lombok.Getter;
+
+import java.util.Optional;
+
+/**
+ * 绑定关系查询的结果
+ * @param <T> 查询到的值的类型
+ */
+@Getter
+public final class LookupResult<T> {
+
+    public enum Status {
+        /** 找到绑定 */
+        FOUND,
+        /** 没有绑定记录 */
+        NOT_LINKED,
+        /** 无法解析玩家 UUID */
+        PLAYER_NOT_FOUND,
+        /** Kook ID 格式无效 */
+        INVALID_KOOK_ID
+    }
+
+    private final Status status;
+    /**
+     * 查询到的值，仅在 {@link Status#FOUND} 时不为 null
+     */
+    private final T value;
+    /**
+     * 未找到时可直接展示给用户的提示信息，找到时为 null
+     */
+    private final String message;
+
+    private LookupResult(Status status, T value, String message) {
+        this.status = status;
+        this.value = value;
+        this.message = message;
+    }
+
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+
+    public Optional<T> asOptional() {
+        return Optional.ofNullable(value);
+    }
+
+    public static <T> LookupResult<T> found(T value) {
+        return new LookupResult<>(Status.FOUND, value, null);
+    }
+
+    public static <T> LookupResult<T> notLinked(String message) {
+        return new LookupResult<>(Status.NOT_LINKED, null, message);
+    }
+
+    public static <T> LookupResult<T> playerNotFound(String message) {
+        return new LookupResult<>(Status.PLAYER_NOT_FOUND, null, message);
+    }
+
+    public static <T> LookupResult<T> invalidKookId(String message) {
+        return new LookupResult<>(Status.INVALID_KOOK_ID, null, message);
+    }
+}
@@ -0,0 +1,65 @@
+package com.meteor.mckook.storage.mapper.result;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 解除绑定操作的结果
+ */
+@Getter
+public final class UnbindResult {
+
+    public enum Status {
+        /** 解绑成功 */
+        SUCCESS,
+        /** 没有绑定记录，或记录已被提前移除 */
+        NOT_LINKED,
+        /** 无法解析玩家 UUID */
+        PLAYER_NOT_FOUND,
+        /** Kook ID 格式无效 */
+        INVALID_KOOK_ID
+    }
+
+    private final Status status;
+    /**
+     * 被解绑的玩家名 (数据库中记录的名字)，未找到绑定时为 null
+     */
+    private final String playerName;
+    private final UUID playerUuid;
+    private final String kookId;
+    /**
+     * 可直接展示给用户的提示信息
+     */
+    private final String message;
+
+    private UnbindResult(Status status, String playerName, UUID playerUuid, String kookId, String message) {
+        this.status = status;
+        this.playerName = playerName;
+        this.playerUuid = playerUuid;
+        this.kookId = kookId;
+        this.message = message;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public static UnbindResult success(String playerName, UUID playerUuid, String kookId, String message) {
+        return new UnbindResult(Status.SUCCESS, playerName, playerUuid, kookId, message);
+    }
+
+    public static UnbindResult notLinked(String playerName, UUID playerUuid, String kookId, String message) {
+        return new UnbindResult(Status.NOT_LINKED, playerName, playerUuid, kookId, message);
+    }
+
+    public static UnbindResult playerNotFound(String playerName) {
+        return new UnbindResult(Status.PLAYER_NOT_FOUND, playerName, null, null,
+                "无法为玩家 " + playerName + " 获取UUID，解绑操作中止。");
+    }
+
+    public static UnbindResult invalidKookId(String kookId) {
+        return new UnbindResult(Status.INVALID_KOOK_ID, null, null, kookId,
+                "未找到 Kook ID: " + kookId + " 的有效绑定记录，解绑操作中止。");
+    }
+}
@@ -0,0 +1,55 @@
+package com.meteor.mckook.storage.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 一次数据库结构变更
+ * 每个迁移拥有唯一递增的版本号，在写通道的单个事务中执行
+ */
+public interface Migration {
+
+    /**
+     * @return 版本号，必须大于 0 且在所有迁移中唯一
+     */
+    int version();
+
+    /**
+     * @return 迁移说明，会记录到版本表中
+     */
+    String description();
+
+    /**
+     * 执行迁移，调用方负责提交或回滚事务
+     * @param connection 写通道连接 (已关闭自动提交)
+     * @throws SQLException
+     */
+    void migrate(Connection connection) throws SQLException;
+
+    /**
+     * 迁移步骤
+     */
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    static Migration of(int version, String description, Step step) {
+        return new Migration() {
+            @Override
+            public int version() {
+                return version;
+            }
+
+            @Override
+            public String description() {
+                return description;
+            }
+
+            @Override
+            public void migrate(Connection connection) throws SQLException {
+                step.apply(connection);
+            }
+        };
+    }
+}
@@ -0,0 +1,242 @@
+package com.meteor.mckook.storage.migration;
+
+import com.meteor.mckook.storage.codec.IdCodec;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * 插件数据库全部表的结构迁移，共用 {@link SchemaMigrator} 的同一个版本号序列:
+ * V1-V4 为绑定表 KOOK_LINK_USER，V5 为验证码表 MCKOOK_VERIFY_CODE。
+ * 新增迁移时只能在列表末尾追加更大的版本号，已发布的迁移不可修改。
+ */
+public final class SchemaMigrations {
+
+    /**
+     * 绑定表
+     */
+    public static final String LINK_USER_TABLE_NAME = "KOOK_LINK_USER";
+
+    /**
+     * kook_id 重复的旧数据在建立唯一索引前会被移动到这张表，供管理员人工核对
+     */
+    public static final String CONFLICT_TABLE_NAME = "KOOK_LINK_USER_CONFLICT";
+
+    /**
+     * 未使用的绑定验证码，重启后仍然有效
+     */
+    public static final String VERIFY_CODE_TABLE_NAME = "MCKOOK_VERIFY_CODE";
+
+    /**
+     * 每批转换的行数
+     */
+    private static final int COMPACT_BATCH_SIZE = 500;
+
+    private SchemaMigrations() {
+    }
+
+    public static List<Migration> all(Logger logger) {
+        return Arrays.asList(
+                Migration.of(1, "创建 " + LINK_USER_TABLE_NAME + " 表", SchemaMigrations::createLinkUserTable),
+                Migration.of(2, "kook_id 唯一索引", connection -> addKookIdUniqueIndex(connection, logger)),
+                Migration.of(3, "player 不区分大小写索引", SchemaMigrations::addPlayerIndex),
+                Migration.of(4, "紧凑存储: player_uuid 改为 16 字节 BLOB, kook_id 改为 BIGINT", connection -> compactIds(connection, logger)),
+                Migration.of(5, "创建 " + VERIFY_CODE_TABLE_NAME + " 表", SchemaMigrations::createVerifyCodeTable)
+        );
+    }
+
+    /**
+     * 与旧版本构造函数中的建表语句一致，已存在的表保持不变
+     */
+    private static void createLinkUserTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + LINK_USER_TABLE_NAME + " (\n" +
+                    "    player_uuid CHAR(36) PRIMARY KEY,\n" +
+                    "    kook_id VARCHAR(255),\n" +
+                    "    player VARCHAR(25),\n" +
+                    "    userName VARCHAR(255),\n" +
+                    "    avatar TEXT,\n" +
+                    "    mobileVerified BOOLEAN,\n" +
+                    "    joinedAt BIGINT,\n" +
+                    "    nickName VARCHAR(255)\n" +
+                    ")");
+        }
+    }
+
+    private static void addKookIdUniqueIndex(Connection connection, Logger logger) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // 旧版本绑定流程没有事务，可能存在同一 kook_id 的多条记录，保留最早的一条
+            String duplicates = "SELECT * FROM " + LINK_USER_TABLE_NAME + " WHERE kook_id IS NOT NULL AND rowid NOT IN " +
+                    "(SELECT MIN(rowid) FROM " + LINK_USER_TABLE_NAME + " WHERE kook_id IS NOT NULL GROUP BY kook_id)";
+            int count;
+            try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM (" + duplicates + ")")) {
+                count = resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+            if (count > 0) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + CONFLICT_TABLE_NAME + " AS SELECT * FROM " + LINK_USER_TABLE_NAME + " WHERE 0");
+                statement.executeUpdate("INSERT INTO " + CONFLICT_TABLE_NAME + " " + duplicates);
+                statement.executeUpdate("DELETE FROM " + LINK_USER_TABLE_NAME + " WHERE kook_id IS NOT NULL AND rowid NOT IN " +
+                        "(SELECT MIN(rowid) FROM " + LINK_USER_TABLE_NAME + " WHERE kook_id IS NOT NULL GROUP BY kook_id)");
+                logger.warning("[Storage] 发现 " + count + " 条 kook_id 重复的绑定记录，已移动到 " + CONFLICT_TABLE_NAME + " 表，请人工核对。");
+            }
+            statement.executeUpdate("CREATE UNIQUE INDEX IF NOT EXISTS idx_kook_link_user_kook_id ON " + LINK_USER_TABLE_NAME + " (kook_id)");
+        }
+    }
+
+    /**
+     * 以新结构重建表，分批读取旧表并在 Java 端完成类型转换后写入新表。
+     * 无法转换的行 (UUID 或 kook_id 格式错误) 会被移动到冲突表。
+     * V2 按原始字符串去重，转换后仍可能重复 (如 "123" 与 " 123"、"0123"，或仅大小写不同的 UUID)，
+     * 这些行同样移动到冲突表，保留 rowid 最小的一条，与 V2 一致。
+     */
+    private static void compactIds(Connection connection, Logger logger) throws SQLException {
+        String compactTable = LINK_USER_TABLE_NAME + "_COMPACT";
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS " + compactTable);
+            // 主键即为 16 字节 UUID，使用 WITHOUT ROWID 省去额外的 rowid 与主键索引
+            statement.executeUpdate("CREATE TABLE " + compactTable + " (\n" +
+                    "    player_uuid BLOB PRIMARY KEY,\n" +
+                    "    kook_id BIGINT,\n" +
+                    "    player VARCHAR(25),\n" +
+                    "    userName VARCHAR(255),\n" +
+                    "    avatar TEXT,\n" +
+                    "    mobileVerified BOOLEAN,\n" +
+                    "    joinedAt BIGINT,\n" +
+                    "    nickName VARCHAR(255)\n" +
+                    ") WITHOUT ROWID");
+        }
+
+        long lastRowId = 0;
+        int converted = 0;
+        int rejected = 0;
+        int duplicated = 0;
+        // 已写入新表的键，按转换后的值判断重复
+        Set<UUID> seenUuids = new HashSet<>();
+        Set<Long> seenKookIds = new HashSet<>();
+        String select = "SELECT rowid, player_uuid, kook_id, player, userName, avatar, mobileVerified, joinedAt, nickName FROM "
+                + LINK_USER_TABLE_NAME + " WHERE rowid > ? ORDER BY rowid LIMIT " + COMPACT_BATCH_SIZE;
+        String insert = "INSERT INTO " + compactTable +
+                " (player_uuid, kook_id, player, userName, avatar, mobileVerified, joinedAt, nickName) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement selectPs = connection.prepareStatement(select);
+             PreparedStatement insertPs = connection.prepareStatement(insert)) {
+            while (true) {
+                selectPs.setLong(1, lastRowId);
+                List<Long> rejectedRowIds = new ArrayList<>();
+                int batchRows = 0;
+                try (ResultSet resultSet = selectPs.executeQuery()) {
+                    while (resultSet.next()) {
+                        batchRows++;
+                        lastRowId = resultSet.getLong(1);
+                        String rawUuid = resultSet.getString(2);
+                        UUID uuid;
+                        long kookId;
+                        try {
+                            if (rawUuid == null) {
+                                throw new IllegalArgumentException("UUID 为空");
+                            }
+                            uuid = UUID.fromString(rawUuid);
+                            kookId = IdCodec.parseKookId(resultSet.getString(3));
+                        } catch (IllegalArgumentException e) { // NumberFormatException 也是其子类
+                            rejectedRowIds.add(lastRowId);
+                            continue;
+                        }
+                        if (seenUuids.contains(uuid) || seenKookIds.contains(kookId)) {
+                            duplicated++;
+                            rejectedRowIds.add(lastRowId);
+                            continue;
+                        }
+                        seenUuids.add(uuid);
+                        seenKookIds.add(kookId);
+                        insertPs.setBytes(1, IdCodec.uuidToBytes(uuid));
+                        insertPs.setLong(2, kookId);
+                        insertPs.setString(3, resultSet.getString(4));
+                        insertPs.setString(4, resultSet.getString(5));
+                        insertPs.setString(5, resultSet.getString(6));
+                        insertPs.setBoolean(6, resultSet.getBoolean(7));
+                        insertPs.setLong(7, resultSet.getLong(8));
+                        insertPs.setString(8, resultSet.getString(9));
+                        insertPs.addBatch();
+                    }
+                }
+                if (batchRows == 0) {
+                    break;
+                }
+                converted += sum(insertPs.executeBatch());
+                if (!rejectedRowIds.isEmpty()) {
+                    rejected += rejectedRowIds.size();
+                    moveToConflictTable(connection, rejectedRowIds);
+                }
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE " + LINK_USER_TABLE_NAME);
+            statement.executeUpdate("ALTER TABLE " + compactTable + " RENAME TO " + LINK_USER_TABLE_NAME);
+            statement.executeUpdate("CREATE UNIQUE INDEX IF NOT EXISTS idx_kook_link_user_kook_id ON " + LINK_USER_TABLE_NAME + " (kook_id)");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_kook_link_user_player ON " + LINK_USER_TABLE_NAME + " (player COLLATE NOCASE)");
+        }
+        logger.info("[Storage] 已转换 " + converted + " 条绑定记录为紧凑格式。");
+        if (rejected > duplicated) {
+            logger.warning("[Storage] " + (rejected - duplicated) + " 条绑定记录的 UUID 或 Kook ID 格式无效，已移动到 " + CONFLICT_TABLE_NAME + " 表，请人工核对。");
+        }
+        if (duplicated > 0) {
+            logger.warning("[Storage] " + duplicated + " 条绑定记录的 UUID 或 Kook ID 转换后与其他记录重复，已移动到 " + CONFLICT_TABLE_NAME + " 表，请人工核对。");
+        }
+    }
+
+    private static void moveToConflictTable(Connection connection, List<Long> rowIds) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + CONFLICT_TABLE_NAME + " AS SELECT * FROM " + LINK_USER_TABLE_NAME + " WHERE 0");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO " + CONFLICT_TABLE_NAME + " SELECT * FROM " + LINK_USER_TABLE_NAME + " WHERE rowid = ?")) {
+            for (Long rowId : rowIds) {
+                ps.setLong(1, rowId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            if (count > 0) total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 以验证码为主键；expires_at 索引供后台清理过期验证码使用
+     */
+    private static void createVerifyCodeTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + VERIFY_CODE_TABLE_NAME + " (\n" +
+                    "    verify_code CHAR(6) PRIMARY KEY,\n" +
+                    "    player_uuid BLOB NOT NULL,\n" +
+                    "    player VARCHAR(25),\n" +
+                    "    expires_at BIGINT NOT NULL\n" +
+                    ") WITHOUT ROWID");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_mckook_verify_code_expires_at ON " + VERIFY_CODE_TABLE_NAME + " (expires_at)");
+        }
+    }
+
+    /**
+     * 查询时需使用 "player = ? COLLATE NOCASE" 才能命中该索引
+     */
+    private static void addPlayerIndex(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_kook_link_user_player ON " + LINK_USER_TABLE_NAME + " (player COLLATE NOCASE)");
+        }
+    }
+}
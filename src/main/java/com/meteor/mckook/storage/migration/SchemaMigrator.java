@@ -0,0 +1,99 @@
+package com.meteor.mckook.storage.migration;
+
+import com.meteor.mckook.storage.AbstractDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * 数据库结构版本管理
+ * 当前版本记录在 MCKOOK_SCHEMA_VERSION 表中，启动时按版本号顺序执行尚未应用的迁移。
+ */
+public class SchemaMigrator {
+
+    public static final String VERSION_TABLE_NAME = "MCKOOK_SCHEMA_VERSION";
+
+    private final AbstractDatabase database;
+    private final Logger logger;
+
+    public SchemaMigrator(AbstractDatabase database, Logger logger) {
+        this.database = database;
+        this.logger = logger;
+    }
+
+    /**
+     * 执行所有未应用的迁移
+     * @param migrations 迁移列表 (顺序不限，会按版本号排序)
+     * @return 迁移后的版本号
+     * @throws SQLException 任意迁移失败时抛出，失败的迁移会被回滚
+     */
+    public int migrate(List<Migration> migrations) throws SQLException {
+        List<Migration> ordered = new ArrayList<>(migrations);
+        ordered.sort(Comparator.comparingInt(Migration::version));
+        Set<Integer> versions = new HashSet<>();
+        for (Migration migration : ordered) {
+            if (migration.version() <= 0 || !versions.add(migration.version())) {
+                throw new IllegalArgumentException("迁移版本号无效或重复: " + migration.version());
+            }
+        }
+
+        database.executeInTransaction(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE_NAME + " (\n" +
+                        "    version INTEGER PRIMARY KEY,\n" +
+                        "    description VARCHAR(255),\n" +
+                        "    applied_at BIGINT\n" +
+                        ")");
+            }
+            return null;
+        });
+
+        int current = currentVersion();
+        for (Migration migration : ordered) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            long startTime = System.currentTimeMillis();
+            database.executeInTransaction(connection -> {
+                migration.migrate(connection);
+                recordVersion(connection, migration);
+                return null;
+            });
+            current = migration.version();
+            logger.info("[Storage] 已应用数据库迁移 V" + migration.version() + " (" + migration.description() + ")，耗时 "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        }
+        return current;
+    }
+
+    /**
+     * @return 数据库当前的结构版本，尚未执行过任何迁移时为 0
+     */
+    public int currentVersion() throws SQLException {
+        return database.executeInTransaction(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT MAX(version) FROM " + VERSION_TABLE_NAME)) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        });
+    }
+
+    private void recordVersion(Connection connection, Migration migration) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO " + VERSION_TABLE_NAME + " (version, description, applied_at) VALUES (?, ?, ?)")) {
+            ps.setInt(1, migration.version());
+            ps.setString(2, migration.description());
+            ps.setLong(3, System.currentTimeMillis());
+            ps.executeUpdate();
+        }
+    }
+}
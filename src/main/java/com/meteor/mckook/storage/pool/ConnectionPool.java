@@ -0,0 +1,337 @@
+package com.meteor.mckook.storage.pool;
+
+import com.meteor.mckook.storage.Database;
+import com.meteor.mckook.storage.SqlFunction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 数据库连接池
+ * 由一组只读连接组成的读通道 + 一条串行化的写通道组成。
+ * SQLite 同一时间只允许一个写者，多个线程共用一条连接写入会互相争抢并触发 SQLITE_BUSY，
+ * 所以所有写操作都在写通道内排队执行，读操作则分散到多个读连接上并行执行。
+ */
+public class ConnectionPool {
+
+    private final Database database;
+    private final PoolSettings settings;
+
+    private final BlockingQueue<Connection> idleReaders;
+    private final List<Connection> readers;
+    private final AtomicInteger readWaiting = new AtomicInteger();
+
+    private Connection writer;
+    /**
+     * 写通道锁，公平模式保证写操作按到达顺序执行；可重入以便写事务内部再次执行更新
+     */
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+
+    /**
+     * 每条连接各自的预编译语句缓存
+     */
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    public ConnectionPool(Database database, PoolSettings settings) throws SQLException {
+        this.database = database;
+        this.settings = settings;
+        this.idleReaders = new ArrayBlockingQueue<>(settings.getReaders());
+        this.readers = new ArrayList<>(settings.getReaders());
+
+        // 先打开写连接，保证数据库文件已创建
+        this.writer = database.openConnection(false);
+        try {
+            for (int i = 0; i < settings.getReaders(); i++) {
+                Connection reader = database.openConnection(true);
+                readers.add(reader);
+                idleReaders.add(reader);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 在读通道中执行操作
+     * @param work 使用连接的操作
+     * @return 操作结果
+     * @throws SQLException 执行失败、等待超时或排队过长
+     */
+    public <T> T withReader(SqlFunction<Connection, T> work) throws SQLException {
+        try (ReaderLease lease = acquireReader()) {
+            return work.apply(lease.getConnection());
+        }
+    }
+
+    /**
+     * 借出一条读连接，用于生命周期超出单次调用的操作 (例如游标)，必须关闭租约归还连接
+     * 当前线程正持有写通道时借出写连接，关闭租约不会释放写通道
+     * @throws SQLException 等待超时或排队过长
+     */
+    public ReaderLease acquireReader() throws SQLException {
+        ensureOpen();
+        // 当前线程正持有写通道时直接复用写连接，保证能读到自己未提交的写入
+        if (writeLock.isHeldByCurrentThread()) {
+            return new ReaderLease(writer, false);
+        }
+        if (readWaiting.incrementAndGet() > settings.getMaxWaiting()) {
+            readWaiting.decrementAndGet();
+            throw new SQLTransientConnectionException("数据库读通道繁忙，排队操作已超过上限 (" + settings.getMaxWaiting() + ")");
+        }
+        Connection connection;
+        try {
+            connection = idleReaders.poll(settings.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库读连接时被中断", e);
+        } finally {
+            readWaiting.decrementAndGet();
+        }
+        if (connection == null) {
+            throw new SQLTimeoutException("等待数据库读连接超时 (" + settings.getAcquireTimeoutMillis() + " ms)");
+        }
+        try {
+            return new ReaderLease(ensureReaderUsable(connection), true);
+        } catch (SQLException | RuntimeException e) {
+            idleReaders.offer(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * 一次借出的读连接，关闭时归还，重复关闭无影响
+     */
+    public final class ReaderLease implements AutoCloseable {
+        private final Connection connection;
+        private final boolean pooled;
+        private boolean released;
+
+        private ReaderLease(Connection connection, boolean pooled) {
+            this.connection = connection;
+            this.pooled = pooled;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            if (pooled) {
+                idleReaders.offer(connection);
+            }
+        }
+    }
+
+    /**
+     * 在写通道中执行操作，所有写操作串行执行
+     * @param work 使用连接的操作
+     * @return 操作结果
+     * @throws SQLException 执行失败、等待超时或排队过长
+     */
+    public <T> T withWriter(SqlFunction<Connection, T> work) throws SQLException {
+        ensureOpen();
+        if (writeLock.isHeldByCurrentThread()) {
+            return work.apply(writer);
+        }
+        if (writeLock.getQueueLength() >= settings.getMaxWaiting()) {
+            throw new SQLTransientConnectionException("数据库写通道繁忙，排队操作已超过上限 (" + settings.getMaxWaiting() + ")");
+        }
+        try {
+            if (!writeLock.tryLock(settings.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("等待数据库写通道超时 (" + settings.getAcquireTimeoutMillis() + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库写通道时被中断", e);
+        }
+        try {
+            if (writer.isClosed()) {
+                dropStatementCache(writer);
+                writer = database.openConnection(false);
+            }
+            return work.apply(writer);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 占用写通道直到关闭返回的 WriterHold，期间其他线程的写操作排队等待；用于需要源数据库暂时不被写入的操作 (例如备份收尾)
+     * 必须在获取它的线程中关闭
+     * @throws SQLException 等待超时或排队过长
+     */
+    public WriterHold holdWriter() throws SQLException {
+        ensureOpen();
+        if (writeLock.isHeldByCurrentThread()) {
+            writeLock.lock();
+            return new WriterHold();
+        }
+        if (writeLock.getQueueLength() >= settings.getMaxWaiting()) {
+            throw new SQLTransientConnectionException("数据库写通道繁忙，排队操作已超过上限 (" + settings.getMaxWaiting() + ")");
+        }
+        try {
+            if (!writeLock.tryLock(settings.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("等待数据库写通道超时 (" + settings.getAcquireTimeoutMillis() + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库写通道时被中断", e);
+        }
+        return new WriterHold();
+    }
+
+    /**
+     * 一次对写通道的占用，关闭时释放，重复关闭无影响
+     */
+    public final class WriterHold implements AutoCloseable {
+        private boolean released;
+
+        private WriterHold() {
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            writeLock.unlock();
+        }
+    }
+
+    private Connection ensureReaderUsable(Connection connection) throws SQLException {
+        if (!connection.isClosed()) {
+            return connection;
+        }
+        dropStatementCache(connection);
+        Connection replacement = database.openConnection(true);
+        synchronized (readers) {
+            readers.remove(connection);
+            readers.add(replacement);
+        }
+        return replacement;
+    }
+
+    /**
+     * 使用连接上缓存的 PreparedStatement 执行操作，必须在 withReader / withWriter 内调用。
+     * 语句由缓存负责关闭，work 中不要关闭它，但需要关闭自己打开的 ResultSet。
+     * @param connection 当前通道持有的连接
+     * @param sql        已替换占位符的 SQL
+     * @param work       使用语句的操作
+     */
+    public <T> T withStatement(Connection connection, String sql, SqlFunction<PreparedStatement, T> work) throws SQLException {
+        StatementCache cache = statementCaches.computeIfAbsent(connection,
+                key -> new StatementCache(key, settings.getStatementCacheSize()));
+        PreparedStatement statement = cache.borrow(sql);
+        boolean reusable = false;
+        try {
+            T result = work.apply(statement);
+            reusable = true;
+            return result;
+        } finally {
+            if (reusable) {
+                cache.giveBack(sql, statement);
+            } else {
+                // 执行失败的语句状态不确定，直接丢弃
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 当前所有连接上缓存的语句总数
+     */
+    public int getCachedStatementCount() {
+        int count = 0;
+        for (StatementCache cache : statementCaches.values()) {
+            count += cache.size();
+        }
+        return count;
+    }
+
+    private void dropStatementCache(Connection connection) {
+        StatementCache cache = statementCaches.remove(connection);
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("数据库连接池已关闭");
+        }
+    }
+
+    public PoolSettings getSettings() {
+        return settings;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭全部连接，等待正在执行的写操作完成
+     */
+    public void close() throws SQLException {
+        closed = true;
+        SQLException failure = null;
+        synchronized (readers) {
+            for (Connection reader : readers) {
+                dropStatementCache(reader);
+                try {
+                    reader.close();
+                } catch (SQLException e) {
+                    failure = e;
+                }
+            }
+            readers.clear();
+        }
+        idleReaders.clear();
+
+        boolean locked = false;
+        try {
+            locked = writeLock.tryLock(settings.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (writer != null) {
+                dropStatementCache(writer);
+                writer.close();
+            }
+        } catch (SQLException e) {
+            failure = e;
+        } finally {
+            if (locked) {
+                writeLock.unlock();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
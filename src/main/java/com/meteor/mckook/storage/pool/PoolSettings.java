@@ -0,0 +1,77 @@
+package com.meteor.mckook.storage.pool;
+
+import com.meteor.mckook.config.Config;
+
+/**
+ * 连接池参数 (对应 config.yml 中的 storage.pool)
+ */
+public class PoolSettings {
+
+    private final int readers;
+    private final long acquireTimeoutMillis;
+    private final int maxWaiting;
+    private final int queryTimeoutSeconds;
+    private final int busyTimeoutMillis;
+    private final int statementCacheSize;
+    private final int fetchSize;
+
+    public PoolSettings(int readers, long acquireTimeoutMillis, int maxWaiting, int queryTimeoutSeconds, int busyTimeoutMillis,
+                        int statementCacheSize, int fetchSize) {
+        this.readers = Math.max(1, readers);
+        this.acquireTimeoutMillis = Math.max(1L, acquireTimeoutMillis);
+        this.maxWaiting = Math.max(1, maxWaiting);
+        this.queryTimeoutSeconds = Math.max(0, queryTimeoutSeconds);
+        this.busyTimeoutMillis = Math.max(0, busyTimeoutMillis);
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.fetchSize = Math.max(0, fetchSize);
+    }
+
+    /**
+     * 从主配置文件读取连接池参数
+     */
+    public static PoolSettings fromConfig(Config config) {
+        return new PoolSettings(
+                config.getStorageReaderPoolSize(),
+                config.getStorageAcquireTimeoutMillis(),
+                config.getStorageMaxWaiting(),
+                config.getStorageQueryTimeoutSeconds(),
+                config.getStorageBusyTimeoutMillis(),
+                config.getStorageStatementCacheSize(),
+                config.getStorageFetchSize()
+        );
+    }
+
+    public int getReaders() {
+        return readers;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    public int getMaxWaiting() {
+        return maxWaiting;
+    }
+
+    public int getQueryTimeoutSeconds() {
+        return queryTimeoutSeconds;
+    }
+
+    public int getBusyTimeoutMillis() {
+        return busyTimeoutMillis;
+    }
+
+    /**
+     * @return 每条连接缓存的 PreparedStatement 数量，0 表示不缓存
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * @return 游标查询每次从驱动读取的行数，0 表示使用驱动默认值
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+}
@@ -0,0 +1,77 @@
+package com.meteor.mckook.storage.pool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单条连接上的 PreparedStatement 缓存 (LRU)
+ * 连接同一时间只会被一个线程持有，所以这里不做同步。
+ * 借出的语句会从缓存中移除，同一条 SQL 在嵌套执行时会得到一条新语句，互不影响结果集。
+ */
+class StatementCache {
+
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    PreparedStatement borrow(String sql) throws SQLException {
+        PreparedStatement statement = statements.remove(sql);
+        if (statement != null && !statement.isClosed()) {
+            return statement;
+        }
+        return connection.prepareStatement(sql);
+    }
+
+    /**
+     * 归还语句，超过容量时关闭最久未使用的语句
+     */
+    void giveBack(String sql, PreparedStatement statement) {
+        if (capacity <= 0) {
+            closeQuietly(statement);
+            return;
+        }
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+        PreparedStatement previous = statements.put(sql, statement);
+        if (previous != null && previous != statement) {
+            closeQuietly(previous);
+        }
+        Iterator<Map.Entry<String, PreparedStatement>> iterator = statements.entrySet().iterator();
+        while (statements.size() > capacity && iterator.hasNext()) {
+            closeQuietly(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    void close() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.meteor.mckook.storage.transfer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.meteor.mckook.McKook;
+import com.meteor.mckook.model.link.KookUser;
+import com.meteor.mckook.storage.QueryCursor;
+import com.meteor.mckook.storage.codec.IdCodec;
+import com.meteor.mckook.storage.mapper.LinkRepository;
+import com.meteor.mckook.util.resolver.PlayerUuidResolver;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * 绑定数据的批量导入导出 (CSV / JSONL)
+ * 逐条读写文件，每攒够一批在一个事务内写入，内存占用与文件大小无关；全部在插件的异步执行器中运行，同一时间只允许一个任务。
+ * 文件格式按扩展名判断: .csv 需要表头行，.jsonl 每行一个 JSON 对象；字段名与 KOOK_LINK_USER 的列名一致。
+ */
+public class BindingTransfer {
+
+    public enum Format {
+        CSV, JSONL;
+
+        /**
+         * @return 按扩展名判断的格式，无法识别时为 null
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) return CSV;
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) return JSONL;
+            return null;
+        }
+    }
+
+    /**
+     * 导出的列，导入时按列名 (不区分大小写) 读取
+     */
+    static final List<String> COLUMNS = Arrays.asList(
+            "player_uuid", "kook_id", "player", "userName", "avatar", "mobileVerified", "joinedAt", "nickName");
+
+    /**
+     * 其他插件常用的列名
+     */
+    private static final Map<String, String> COLUMN_ALIASES = new HashMap<>();
+
+    static {
+        for (String column : COLUMNS) {
+            COLUMN_ALIASES.put(column.toLowerCase(Locale.ROOT), column);
+        }
+        COLUMN_ALIASES.put("uuid", "player_uuid");
+        COLUMN_ALIASES.put("kookid", "kook_id");
+        COLUMN_ALIASES.put("name", "player");
+        COLUMN_ALIASES.put("player_name", "player");
+    }
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 2000L;
+
+    private final McKook plugin;
+    private final LinkRepository linkRepository;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BindingTransfer(McKook plugin, LinkRepository linkRepository, int batchSize) {
+        this.plugin = plugin;
+        this.linkRepository = linkRepository;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * 从文件导入绑定
+     * @param file     CSV 或 JSONL 文件
+     * @param policy   冲突处理方式
+     * @param progress 定期回调的进度，在异步线程中调用
+     * @return 完成时的统计；已有任务在运行、文件无法读取或写库失败时异常完成
+     */
+    public CompletableFuture<TransferReport> importFrom(Path file, ConflictPolicy policy, Consumer<TransferReport> progress) {
+        return start(() -> {
+            Format format = requireFormat(file);
+            Path reportPath = policy == ConflictPolicy.REPORT ? siblingWithSuffix(file, ".conflicts.csv") : null;
+            ImportRun run = new ImportRun(file, policy, reportPath, progress);
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+                 BufferedWriter report = reportPath == null ? null : Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+                run.report = report;
+                if (report != null) {
+                    report.write(CsvCodec.join(Arrays.asList("line", "reason", "player_uuid", "kook_id", "player")));
+                    report.newLine();
+                }
+                if (format == Format.CSV) {
+                    readCsv(reader, run);
+                } else {
+                    readJsonLines(reader, run);
+                }
+                run.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取导入文件失败: " + e.getMessage(), e);
+            }
+            TransferReport result = run.snapshot(true);
+            plugin.getLogger().info("[Transfer] 导入完成: " + file.getFileName() + "，读取 " + result.getProcessed()
+                    + " 条，写入 " + result.getWritten() + " 条，冲突跳过 " + result.getSkipped()
+                    + " 条，格式错误 " + result.getInvalid() + " 条，耗时 " + result.getElapsedMillis() + " ms");
+            return result;
+        });
+    }
+
+    /**
+     * 将全部绑定导出到文件，先写入临时文件，完成后再替换目标文件
+     * @param file     CSV 或 JSONL 文件
+     * @param progress 定期回调的进度，在异步线程中调用
+     */
+    public CompletableFuture<TransferReport> exportTo(Path file, Consumer<TransferReport> progress) {
+        return start(() -> {
+            Format format = requireFormat(file);
+            Path temp = siblingWithSuffix(file, ".tmp");
+            long startTime = System.currentTimeMillis();
+            long count = 0;
+            long lastProgress = startTime;
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    if (format == Format.CSV) {
+                        writer.write(CsvCodec.join(COLUMNS));
+                        writer.newLine();
+                    }
+                    try (QueryCursor<KookUser> cursor = linkRepository.openBindingCursor()) {
+                        while (cursor.hasNext()) {
+                            KookUser kookUser = cursor.next();
+                            writer.write(format == Format.CSV ? CsvCodec.join(toValues(kookUser)) : toJson(kookUser).toString());
+                            writer.newLine();
+                            count++;
+                            long now = System.currentTimeMillis();
+                            if (progress != null && now - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                                lastProgress = now;
+                                progress.accept(new TransferReport(file, false, count, count, 0, 0, now - startTime, null));
+                            }
+                        }
+                    }
+                }
+                moveReplacing(temp, file);
+            } catch (IOException | RuntimeException e) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+                if (e instanceof IOException) {
+                    throw new UncheckedIOException("写入导出文件失败: " + e.getMessage(), (IOException) e);
+                }
+                throw (RuntimeException) e;
+            }
+            TransferReport result = new TransferReport(file, true, count, count, 0, 0,
+                    System.currentTimeMillis() - startTime, null);
+            plugin.getLogger().info("[Transfer] 导出完成: " + file.getFileName() + "，共 " + result.getProcessed()
+                    + " 条，耗时 " + result.getElapsedMillis() + " ms");
+            return result;
+        });
+    }
+
+    private interface Task {
+        TransferReport run();
+    }
+
+    private CompletableFuture<TransferReport> start(Task task) {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("已有导入或导出任务正在进行"));
+        }
+        CompletableFuture<TransferReport> future = new CompletableFuture<>();
+        try {
+            plugin.getAsyncExecutor().execute(() -> {
+                try {
+                    future.complete(task.run());
+                } catch (Throwable e) {
+                    plugin.getLogger().log(Level.WARNING, "[Transfer] 任务失败: " + e.getMessage(), e);
+                    future.completeExceptionally(e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        List<String> header = CsvCodec.readRecord(reader);
+        if (header == null) {
+            return;
+        }
+        String[] columns = new String[header.size()];
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            columns[i] = COLUMN_ALIASES.get(name.toLowerCase(Locale.ROOT));
+        }
+        long line = 1;
+        List<String> record;
+        Map<String, String> values = new HashMap<>();
+        while ((record = CsvCodec.readRecord(reader)) != null) {
+            line++;
+            if (record.size() == 1 && record.get(0).trim().isEmpty()) {
+                continue;
+            }
+            values.clear();
+            for (int i = 0; i < record.size() && i < columns.length; i++) {
+                if (columns[i] != null) {
+                    values.put(columns[i], record.get(i));
+                }
+            }
+            run.accept(line, values);
+        }
+    }
+
+    private void readJsonLines(BufferedReader reader, ImportRun run) throws IOException {
+        long line = 0;
+        String text;
+        Map<String, String> values = new HashMap<>();
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            values.clear();
+            try {
+                JsonElement element = JsonParser.parseString(text);
+                if (!element.isJsonObject()) {
+                    run.reject(line, "不是 JSON 对象", values);
+                    continue;
+                }
+                for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                    String column = COLUMN_ALIASES.get(entry.getKey().toLowerCase(Locale.ROOT));
+                    if (column != null && !entry.getValue().isJsonNull()) {
+                        values.put(column, entry.getValue().getAsString());
+                    }
+                }
+            } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+                run.reject(line, "JSON 格式错误", values);
+                continue;
+            }
+            run.accept(line, values);
+        }
+    }
+
+    /**
+     * 一次导入的状态，只保存当前批次
+     */
+    private final class ImportRun {
+        final Path file;
+        final ConflictPolicy policy;
+        final Path reportPath;
+        final Consumer<TransferReport> progress;
+        final long startTime = System.currentTimeMillis();
+        final PlayerUuidResolver resolver = plugin.getUuidResolver();
+
+        final List<KookUser> batch = new ArrayList<>(batchSize);
+        final List<Long> batchLines = new ArrayList<>(batchSize);
+        BufferedWriter report;
+        long processed;
+        long written;
+        long skipped;
+        long invalid;
+        long lastProgress = startTime;
+
+        ImportRun(Path file, ConflictPolicy policy, Path reportPath, Consumer<TransferReport> progress) {
+            this.file = file;
+            this.policy = policy;
+            this.reportPath = reportPath;
+            this.progress = progress;
+        }
+
+        void accept(long line, Map<String, String> values) throws IOException {
+            processed++;
+            String kookId = trimToNull(values.get("kook_id"));
+            if (!IdCodec.isValidKookId(kookId)) {
+                invalid++;
+                writeReport(line, "Kook ID 无效", values);
+                return;
+            }
+            String player = trimToNull(values.get("player"));
+            UUID playerUuid = parseUuid(trimToNull(values.get("player_uuid")));
+            if (playerUuid == null && player != null && resolver != null) {
+                // 只使用本地数据，避免导入时发起大量网络请求
+                playerUuid = resolver.resolveNow(player);
+            }
+            if (playerUuid == null) {
+                invalid++;
+                writeReport(line, "缺少有效的 player_uuid", values);
+                return;
+            }
+            KookUser kookUser = new KookUser();
+            kookUser.setPlayer_uuid(playerUuid.toString());
+            kookUser.setKook_id(IdCodec.kookIdToString(IdCodec.parseKookId(kookId)));
+            kookUser.setPlayer(player);
+            kookUser.setUserName(values.get("userName"));
+            kookUser.setAvatar(values.get("avatar"));
+            kookUser.setMobileVerified(Boolean.parseBoolean(trimToNull(values.get("mobileVerified"))));
+            kookUser.setJoinedAt(parseLong(values.get("joinedAt"), System.currentTimeMillis()));
+            kookUser.setNickName(values.get("nickName"));
+            batch.add(kookUser);
+            batchLines.add(line);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String reason, Map<String, String> values) throws IOException {
+            processed++;
+            invalid++;
+            writeReport(line, reason, values);
+        }
+
+        void flush() throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            boolean[] result = linkRepository.importBindings(batch, policy);
+            for (int i = 0; i < result.length; i++) {
+                if (result[i]) {
+                    written++;
+                } else {
+                    skipped++;
+                    KookUser kookUser = batch.get(i);
+                    if (report != null) {
+                        report.write(CsvCodec.join(Arrays.asList(String.valueOf(batchLines.get(i)), "与已有绑定冲突",
+                                kookUser.getPlayer_uuid(), kookUser.getKook_id(), kookUser.getPlayer())));
+                        report.newLine();
+                    }
+                }
+            }
+            batch.clear();
+            batchLines.clear();
+            long now = System.currentTimeMillis();
+            if (progress != null && now - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                lastProgress = now;
+                progress.accept(snapshot(false));
+            }
+        }
+
+        TransferReport snapshot(boolean finished) {
+            return new TransferReport(file, finished, processed, written, skipped, invalid,
+                    System.currentTimeMillis() - startTime, reportPath);
+        }
+
+        private void writeReport(long line, String reason, Map<String, String> values) throws IOException {
+            if (report == null) {
+                return;
+            }
+            report.write(CsvCodec.join(Arrays.asList(String.valueOf(line), reason,
+                    values.get("player_uuid"), values.get("kook_id"), values.get("player"))));
+            report.newLine();
+        }
+    }
+
+    private static List<String> toValues(KookUser kookUser) {
+        return Arrays.asList(kookUser.getPlayer_uuid(), kookUser.getKook_id(), kookUser.getPlayer(),
+                kookUser.getUserName(), kookUser.getAvatar(), String.valueOf(kookUser.isMobileVerified()),
+                String.valueOf(kookUser.getJoinedAt()), kookUser.getNickName());
+    }
+
+    private static JsonObject toJson(KookUser kookUser) {
+        JsonObject json = new JsonObject();
+        json.addProperty("player_uuid", kookUser.getPlayer_uuid());
+        json.addProperty("kook_id", kookUser.getKook_id());
+        json.addProperty("player", kookUser.getPlayer());
+        json.addProperty("userName", kookUser.getUserName());
+        json.addProperty("avatar", kookUser.getAvatar());
+        json.addProperty("mobileVerified", kookUser.isMobileVerified());
+        json.addProperty("joinedAt", kookUser.getJoinedAt());
+        json.addProperty("nickName", kookUser.getNickName());
+        return json;
+    }
+
+    private static Format requireFormat(Path file) {
+        Format format = Format.of(file);
+        if (format == null) {
+            throw new IllegalArgumentException("不支持的文件格式，请使用 .csv 或 .jsonl: " + file.getFileName());
+        }
+        return format;
+    }
+
+    private static Path siblingWithSuffix(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName().toString() + suffix);
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (value.length() == 32) {
+                return new UUID(Long.parseUnsignedLong(value.substring(0, 16), 16), Long.parseUnsignedLong(value.substring(16), 16));
+            }
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        String trimmed = trimToNull(value);
+        if (trimmed == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
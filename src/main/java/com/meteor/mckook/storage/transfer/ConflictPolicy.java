@@ -0,0 +1,35 @@
+package com.meteor.mckook.storage.transfer;
+
+import java.util.Locale;
+
+/**
+ * 导入的绑定与已有绑定 (同一玩家或同一 Kook ID) 冲突时的处理方式
+ */
+public enum ConflictPolicy {
+    /**
+     * 保留已有绑定，跳过导入的记录
+     */
+    SKIP,
+    /**
+     * 以导入的记录为准，两侧冲突的已有绑定都会被替换
+     */
+    OVERWRITE,
+    /**
+     * 与 SKIP 相同，另外把被跳过的记录写入报告文件供人工核对
+     */
+    REPORT;
+
+    /**
+     * @return 对应的策略，无法识别时为 null
+     */
+    public static ConflictPolicy parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.meteor.mckook.storage.transfer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 导入导出使用的最小 CSV 实现 (RFC 4180)
+ * 字段中的逗号、引号与换行用双引号包裹，引号写作两个双引号；逐字符读取，不会整体加载文件。
+ */
+final class CsvCodec {
+
+    private CsvCodec() {
+    }
+
+    /**
+     * 读取下一条记录
+     * @return 字段列表，已到文件末尾时为 null
+     */
+    static List<String> readRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean needsQuote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuote = true;
+                break;
+            }
+        }
+        return needsQuote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    static String join(List<String> values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(escape(values.get(i)));
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package com.meteor.mckook.storage.transfer;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * 导入导出的进度与结果 (某一时刻的快照)
+ */
+@Getter
+public class TransferReport {
+
+    private final Path file;
+    private final boolean finished;
+    /**
+     * 已读取 (导入) 或已写出 (导出) 的记录数
+     */
+    private final long processed;
+    /**
+     * 写入数据库的记录数，导出时与 processed 相同
+     */
+    private final long written;
+    /**
+     * 因冲突被跳过的记录数
+     */
+    private final long skipped;
+    /**
+     * 格式错误的记录数
+     */
+    private final long invalid;
+    private final long elapsedMillis;
+    /**
+     * REPORT 策略下被跳过记录的报告文件，其他情况为 null
+     */
+    private final Path reportFile;
+
+    TransferReport(Path file, boolean finished, long processed, long written, long skipped, long invalid,
+                   long elapsedMillis, Path reportFile) {
+        this.file = file;
+        this.finished = finished;
+        this.processed = processed;
+        this.written = written;
+        this.skipped = skipped;
+        this.invalid = invalid;
+        this.elapsedMillis = elapsedMillis;
+        this.reportFile = reportFile;
+    }
+}
@@ -0,0 +1,32 @@
+package com.meteor.mckook.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 在服务器主线程执行任务的 Executor
+ * 配合 CompletableFuture 的 xxxAsync(..., executor) 使用，异步结果直接在主线程回调，不必再手动 runTask。
+ * 已在主线程时直接执行；插件停用后提交的任务会被丢弃。
+ */
+public final class MainThreadExecutor implements Executor {
+
+    private final Plugin plugin;
+
+    public MainThreadExecutor(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (Bukkit.isPrimaryThread()) {
+            command.run();
+            return;
+        }
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        Bukkit.getScheduler().runTask(plugin, command);
+    }
+}
@@ -9,16 +9,32 @@ import java.util.Random;
 public class VerificationCodeGenerator {
     private static final String CHAR_SET = "0123456789";
     private static final int CODE_LENGTH = 6;
+    /**
+     * 验证码空间的大小 (6 位数字共 1000000 个)
+     */
+    public static final int CODE_SPACE = 1_000_000;
     private static final Random random = new SecureRandom();
 
     public static String generateVerificationCode() {
-        StringBuilder code = new StringBuilder(CODE_LENGTH);
+        return format(randomIndex());
+    }
 
-        for (int i = 0; i < CODE_LENGTH; i++) {
-            int index = random.nextInt(CHAR_SET.length());
-            code.append(CHAR_SET.charAt(index));
-        }
+    /**
+     * @return 验证码空间中的随机位置，范围 [0, {@link #CODE_SPACE})
+     */
+    public static int randomIndex() {
+        return random.nextInt(CODE_SPACE);
+    }
 
-        return code.toString();
+    /**
+     * 将验证码空间中的位置格式化为定长验证码，不足位数时补 0
+     */
+    public static String format(int index) {
+        StringBuilder code = new StringBuilder(CODE_LENGTH);
+        String digits = Integer.toString(Math.floorMod(index, CODE_SPACE));
+        for (int i = digits.length(); i < CODE_LENGTH; i++) {
+            code.append(CHAR_SET.charAt(0));
+        }
+        return code.append(digits).toString();
     }
-}
\ No newline at end of file
+}
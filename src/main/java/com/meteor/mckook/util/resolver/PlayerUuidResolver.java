@@ -0,0 +1,258 @@
+package com.meteor.mckook.util.resolver;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.meteor.mckook.McKook;
+import com.meteor.mckook.config.Config;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+/**
+ * 玩家名 -> UUID 解析
+ * 查询顺序: 在线玩家 -> 本地索引 (服务器 usercache.json + 绑定表中的玩家名) -> Mojang API (有界线程池，带未找到缓存)。
+ * 离线模式服务器直接按 "OfflinePlayer:" + 玩家名 推导 UUID，不发起网络请求。
+ * 所有方法都不会阻塞调用线程，可以在主线程使用。
+ */
+public class PlayerUuidResolver implements Listener {
+
+    private static final String PROFILE_API = "https://api.mojang.com/users/profiles/minecraft/";
+    private static final Pattern VALID_NAME = Pattern.compile("^[A-Za-z0-9_]{1,16}$");
+
+    public enum Mode {
+        AUTO, ONLINE, OFFLINE
+    }
+
+    private final McKook plugin;
+    private final boolean offlineMode;
+
+    /**
+     * 小写玩家名 -> UUID
+     */
+    private final Map<String, UUID> localIndex = new ConcurrentHashMap<>();
+    /**
+     * 远程查询未找到的玩家名 (小写)
+     */
+    private final Cache<String, Boolean> notFoundCache;
+    /**
+     * 正在进行的远程查询，同一玩家名只查询一次
+     */
+    private final Map<String, CompletableFuture<UUID>> inFlight = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor remoteExecutor;
+    private final int timeoutMillis;
+
+    public PlayerUuidResolver(McKook plugin) {
+        this.plugin = plugin;
+        Config config = Config.get();
+        Mode mode = config.getUuidResolverMode();
+        this.offlineMode = mode == Mode.OFFLINE || (mode == Mode.AUTO && !Bukkit.getOnlineMode());
+        this.timeoutMillis = config.getUuidResolverTimeoutMillis();
+        this.notFoundCache = Caffeine.newBuilder()
+                .expireAfterWrite(config.getUuidResolverNegativeCacheMinutes(), TimeUnit.MINUTES)
+                .maximumSize(10_000)
+                .build();
+
+        int threads = config.getUuidResolverRemoteThreads();
+        AtomicInteger threadId = new AtomicInteger();
+        this.remoteExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getUuidResolverRemoteQueueSize()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "McKook-UUID-Resolver-" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.remoteExecutor.allowCoreThreadTimeOut(true);
+
+        plugin.getLogger().info("[UUID] 玩家 UUID 解析模式: " + (offlineMode ? "离线 (按玩家名推导)" : "正版 (Mojang)"));
+    }
+
+    /**
+     * 从服务器的 usercache.json 加载本地索引，文件不存在或格式错误时跳过
+     * @return 加载的条目数
+     */
+    public int loadUserCache() {
+        File file = new File(Bukkit.getWorldContainer(), "usercache.json");
+        if (!file.isFile()) {
+            return 0;
+        }
+        int count = 0;
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            JsonElement root = JsonParser.parseReader(reader);
+            if (!root.isJsonArray()) {
+                return 0;
+            }
+            for (JsonElement element : root.getAsJsonArray()) {
+                if (!element.isJsonObject()) continue;
+                JsonObject entry = element.getAsJsonObject();
+                if (!entry.has("name") || !entry.has("uuid")) continue;
+                try {
+                    remember(entry.get("name").getAsString(), UUID.fromString(entry.get("uuid").getAsString()));
+                    count++;
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "[UUID] 读取 usercache.json 失败: " + e.getMessage(), e);
+        }
+        return count;
+    }
+
+    /**
+     * 记录已知的玩家名与 UUID，绑定、玩家登录等场景都应调用
+     */
+    public void remember(String name, UUID uuid) {
+        if (name == null || name.isEmpty() || uuid == null) return;
+        String key = key(name);
+        localIndex.put(key, uuid);
+        notFoundCache.invalidate(key);
+    }
+
+    /**
+     * 登录过的玩家加入本地索引，离线后仍可直接解析
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        remember(event.getPlayer().getName(), event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * 立即从本地数据解析，不发起任何网络请求
+     * @return UUID，本地无法确定时为 null
+     */
+    public UUID resolveNow(String name) {
+        if (name == null || name.isEmpty()) return null;
+        Player online = Bukkit.getPlayerExact(name);
+        if (online != null) {
+            return online.getUniqueId();
+        }
+        UUID local = localIndex.get(key(name));
+        if (local != null) {
+            return local;
+        }
+        return offlineMode ? offlineUuid(name) : null;
+    }
+
+    /**
+     * 解析玩家 UUID，本地无法确定时异步查询 Mojang
+     * @return 完成值为 UUID，玩家不存在或查询失败时为 null；不会异常完成
+     */
+    public CompletableFuture<UUID> resolve(String name) {
+        UUID now = resolveNow(name);
+        if (now != null || name == null || offlineMode) {
+            return CompletableFuture.completedFuture(now);
+        }
+        String key = key(name);
+        if (!VALID_NAME.matcher(name).matches() || notFoundCache.getIfPresent(key) != null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<UUID> future = new CompletableFuture<>();
+        CompletableFuture<UUID> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            remoteExecutor.execute(() -> {
+                try {
+                    future.complete(lookupRemote(name));
+                } catch (Throwable e) {
+                    plugin.getLogger().warning("[UUID] 查询玩家 " + name + " 的 UUID 失败: " + e.getMessage());
+                    future.complete(null);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            plugin.getLogger().warning("[UUID] 远程查询队列已满，放弃查询玩家 " + name + " 的 UUID。");
+            inFlight.remove(key, future);
+            future.complete(null);
+        }
+        return future;
+    }
+
+    public boolean isOfflineMode() {
+        return offlineMode;
+    }
+
+    public int getLocalIndexSize() {
+        return localIndex.size();
+    }
+
+    public void shutdown() {
+        remoteExecutor.shutdownNow();
+        inFlight.values().forEach(future -> future.complete(null));
+        inFlight.clear();
+    }
+
+    private UUID lookupRemote(String name) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(PROFILE_API + URLEncoder.encode(name, StandardCharsets.UTF_8)).toURL().openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setRequestProperty("Accept", "application/json");
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NO_CONTENT || status == HttpURLConnection.HTTP_NOT_FOUND) {
+                notFoundCache.put(key(name), Boolean.TRUE);
+                return null;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                // 限流或服务异常不计入未找到缓存，下次仍可重试
+                plugin.getLogger().warning("[UUID] Mojang API 返回 HTTP " + status + "，玩家: " + name);
+                return null;
+            }
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                JsonObject profile = JsonParser.parseReader(reader).getAsJsonObject();
+                UUID uuid = parseUndashed(profile.get("id").getAsString());
+                remember(profile.has("name") ? profile.get("name").getAsString() : name, uuid);
+                return uuid;
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static UUID parseUndashed(String id) {
+        if (id.length() != 32) {
+            return UUID.fromString(id);
+        }
+        return new UUID(Long.parseUnsignedLong(id.substring(0, 16), 16), Long.parseUnsignedLong(id.substring(16), 16));
+    }
+
+    /**
+     * 与服务端离线模式的 UUID 推导方式一致
+     */
+    public static UUID offlineUuid(String name) {
+        return UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
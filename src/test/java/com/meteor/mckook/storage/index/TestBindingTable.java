@@ -0,0 +1,189 @@
+package com.meteor.mckook.storage.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 绑定索引使用的双向开放寻址哈希表: 写入、覆盖、双向删除 (后移删除)，
+ * 探测链跨过表尾回到表头的情况，以及正向表元素移动后反向引用仍然正确
+ */
+public class TestBindingTable {
+
+    public static void main(String[] args) {
+        basics();
+        replaceBothSides();
+        wraparoundByPlayer();
+        wraparoundByKookId();
+        randomAgainstHashMap();
+        System.out.println("TestBindingTable: OK");
+    }
+
+    private static void basics() {
+        BindingTable table = new BindingTable(4);
+        check(table.put(1L, 2L, 100L) == 0, "新键返回 0");
+        check(table.put(1L, 2L, 200L) == 100L, "覆盖返回旧值");
+        check(table.getKookId(1L, 2L) == 200L, "读取覆盖后的值");
+        check(table.indexOfKookId(100L) < 0, "旧 Kook ID 不再可查");
+        check(player(table, 200L)[0] == 1L && player(table, 200L)[1] == 2L, "按 Kook ID 读取 UUID");
+        check(table.size() == 1, "覆盖不增加数量");
+        check(table.removeByPlayer(1L, 2L) == 200L, "按 UUID 删除返回旧值");
+        check(table.getKookId(1L, 2L) == 0 && table.indexOfKookId(200L) < 0, "删除后两侧都不存在");
+        check(table.removeByPlayer(1L, 2L) == 0, "重复删除返回 0");
+        table.put(3L, 4L, 300L);
+        check(table.removeByKookId(300L), "按 Kook ID 删除");
+        check(!table.removeByKookId(300L), "重复删除返回 false");
+        check(table.getKookId(3L, 4L) == 0, "按 Kook ID 删除后 UUID 侧不存在");
+        check(table.indexOfKookId(0L) < 0, "Kook ID 0 视为不存在");
+        check(table.size() == 0, "删除后数量为 0");
+    }
+
+    /**
+     * Kook ID 改绑到另一个 UUID 时，原 UUID 的绑定被移除
+     */
+    private static void replaceBothSides() {
+        BindingTable table = new BindingTable(4);
+        table.put(1L, 1L, 10L);
+        table.put(2L, 2L, 20L);
+        check(table.put(2L, 2L, 10L) == 20L, "改绑返回旧值");
+        check(table.getKookId(1L, 1L) == 0, "原 UUID 的绑定被移除");
+        check(table.indexOfKookId(20L) < 0, "旧 Kook ID 被移除");
+        check(player(table, 10L)[0] == 2L, "Kook ID 指向新 UUID");
+        check(table.size() == 1, "只剩一条绑定");
+    }
+
+    /**
+     * 多个 UUID 落在最后一个槽，正向探测链依次占用 表尾、0、1、2；删除链上各个位置后其余绑定双向仍可读取
+     */
+    private static void wraparoundByPlayer() {
+        for (int removeAt = 0; removeAt < 4; removeAt++) {
+            BindingTable table = new BindingTable(1);
+            long[] mosts = keysInSlot(table.capacity() - 1, table.capacity(), 4);
+            for (int i = 0; i < mosts.length; i++) {
+                table.put(mosts[i], 0L, 1000L + i);
+            }
+            check(table.capacity() == 16, "未扩容");
+            check(table.removeByPlayer(mosts[removeAt], 0L) == 1000L + removeAt, "删除链上第 " + removeAt + " 个 UUID");
+            verifyAfterRemoval(table, mosts, removeAt);
+        }
+    }
+
+    /**
+     * 多个 Kook ID 落在最后一个槽，反向探测链跨过表尾；按 Kook ID 删除链上各个位置
+     */
+    private static void wraparoundByKookId() {
+        for (int removeAt = 0; removeAt < 4; removeAt++) {
+            BindingTable table = new BindingTable(1);
+            long[] kookIds = keysInSlot(table.capacity() - 1, table.capacity(), 4);
+            for (int i = 0; i < kookIds.length; i++) {
+                table.put(i + 1, 0L, kookIds[i]);
+            }
+            check(table.capacity() == 16, "未扩容");
+            check(table.removeByKookId(kookIds[removeAt]), "删除链上第 " + removeAt + " 个 Kook ID");
+            for (int i = 0; i < kookIds.length; i++) {
+                if (i == removeAt) {
+                    check(table.indexOfKookId(kookIds[i]) < 0 && table.getKookId(i + 1, 0L) == 0, "被删除的绑定不存在");
+                } else {
+                    check(player(table, kookIds[i])[0] == i + 1 && table.getKookId(i + 1, 0L) == kookIds[i],
+                            "删除第 " + removeAt + " 个后读取第 " + i + " 个");
+                }
+            }
+        }
+    }
+
+    private static void verifyAfterRemoval(BindingTable table, long[] mosts, int removeAt) {
+        for (int i = 0; i < mosts.length; i++) {
+            long kookId = 1000L + i;
+            if (i == removeAt) {
+                check(table.getKookId(mosts[i], 0L) == 0 && table.indexOfKookId(kookId) < 0, "被删除的绑定不存在");
+            } else {
+                check(table.getKookId(mosts[i], 0L) == kookId, "删除第 " + removeAt + " 个后按 UUID 读取第 " + i + " 个");
+                check(player(table, kookId)[0] == mosts[i], "删除第 " + removeAt + " 个后按 Kook ID 读取第 " + i + " 个");
+            }
+        }
+    }
+
+    /**
+     * 随机写入与双向删除 (包括扩容与改绑)，结果与两个 HashMap 一致
+     */
+    private static void randomAgainstHashMap() {
+        Random random = new Random(20240601L);
+        BindingTable table = new BindingTable(1);
+        Map<Long, Long> byPlayer = new HashMap<>();
+        Map<Long, Long> byKookId = new HashMap<>();
+        for (int op = 0; op < 200_000; op++) {
+            // 键范围较小，删除、覆盖与改绑经常命中已有的键
+            long player = 1 + random.nextInt(5_000);
+            long kookId = 1 + random.nextInt(5_000);
+            switch (random.nextInt(4)) {
+                case 0: {
+                    Long previous = byPlayer.remove(player);
+                    if (previous != null) {
+                        byKookId.remove(previous);
+                    }
+                    check(table.removeByPlayer(player, ~player) == (previous == null ? 0 : previous), "按 UUID 删除");
+                    break;
+                }
+                case 1: {
+                    Long previous = byKookId.remove(kookId);
+                    if (previous != null) {
+                        byPlayer.remove(previous);
+                    }
+                    check(table.removeByKookId(kookId) == (previous != null), "按 Kook ID 删除");
+                    break;
+                }
+                default: {
+                    // 返回值为该 UUID 原先的 Kook ID (包括重复写入同一绑定的情况)
+                    Long previous = byPlayer.remove(player);
+                    if (previous != null) {
+                        byKookId.remove(previous);
+                    }
+                    Long previousPlayer = byKookId.remove(kookId);
+                    if (previousPlayer != null) {
+                        byPlayer.remove(previousPlayer);
+                    }
+                    byPlayer.put(player, kookId);
+                    byKookId.put(kookId, player);
+                    long returned = table.put(player, ~player, kookId);
+                    check(previous == null ? returned == 0 : returned == previous, "写入");
+                }
+            }
+        }
+        check(table.size() == byPlayer.size() && byPlayer.size() == byKookId.size(), "数量一致");
+        for (long key = 1; key <= 5_000; key++) {
+            Long kookId = byPlayer.get(key);
+            check(table.getKookId(key, ~key) == (kookId == null ? 0 : kookId), "按 UUID 读取 " + key);
+            Long player = byKookId.get(key);
+            int index = table.indexOfKookId(key);
+            check(player == null ? index < 0 : index >= 0 && table.mostBitsAt(index) == player
+                    && table.leastBitsAt(index) == ~player, "按 Kook ID 读取 " + key);
+        }
+    }
+
+    private static long[] player(BindingTable table, long kookId) {
+        int index = table.indexOfKookId(kookId);
+        check(index >= 0, "Kook ID " + kookId + " 不存在");
+        return new long[]{table.mostBitsAt(index), table.leastBitsAt(index)};
+    }
+
+    /**
+     * 找出 count 个落在指定槽的键 (UUID 的低位传 0 时与单个 long 使用相同的哈希)
+     */
+    private static long[] keysInSlot(int slot, int capacity, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if ((BindingIndex.mix(key) & (capacity - 1)) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.meteor.mckook.storage.migration;
+
+import com.meteor.mckook.storage.codec.IdCodec;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * 旧数据从 V1 迁移到 V4: 原始字符串不同、转换后重复的行 (kook_id 前导空格或前导 0，UUID 大小写不同)
+ * 以及格式无效的行应移动到冲突表，迁移本身不失败。需要 sqlite-jdbc (test 依赖)。
+ */
+public class TestSchemaMigrations {
+
+    private static final String UUID_A = "0f8fad5b-d9cb-469f-a165-70867728950e";
+    private static final String UUID_B = "7c9e6679-7425-40de-944b-e07fc1f90ae7";
+    private static final String UUID_C = "16fd2706-8baf-433b-82eb-8c7fada847da";
+    private static final String UUID_D = "886313e1-3b8a-5372-9b90-0c9aee199e5d";
+    private static final String UUID_E = "a8098c1a-f86e-11da-bd1a-00112444be1e";
+    private static final String UUID_F = "6fa459ea-ee8a-3ca4-894e-db77e160355e";
+
+    public static void main(String[] args) throws SQLException {
+        Logger logger = Logger.getLogger("TestSchemaMigrations");
+        List<Migration> migrations = SchemaMigrations.all(logger);
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            connection.setAutoCommit(false);
+            apply(connection, migrations, 1);
+            seed(connection, UUID_A, "123");
+            seed(connection, UUID_A.toUpperCase(), "456");   // 转换后 UUID 重复
+            seed(connection, UUID_B, " 123");                // 转换后 kook_id 重复
+            seed(connection, UUID_C, "0123");                // 转换后 kook_id 重复
+            seed(connection, UUID_D, "789");
+            seed(connection, UUID_E, "123");                 // 原始字符串重复，由 V2 处理
+            seed(connection, UUID_F, "abc");                 // 格式无效
+            connection.commit();
+            for (int version = 2; version <= 4; version++) {
+                apply(connection, migrations, version);
+            }
+
+            Map<String, Long> rows = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT player_uuid, kook_id FROM " + SchemaMigrations.LINK_USER_TABLE_NAME)) {
+                while (resultSet.next()) {
+                    rows.put(IdCodec.uuidStringFromBytes(resultSet.getBytes(1)), resultSet.getLong(2));
+                }
+            }
+            check(rows.size() == 2, "保留 2 条绑定记录，实际 " + rows);
+            check(Long.valueOf(123L).equals(rows.get(UUID_A)), "保留最早的 " + UUID_A + " -> 123");
+            check(Long.valueOf(789L).equals(rows.get(UUID_D)), "保留 " + UUID_D + " -> 789");
+            check(count(connection, SchemaMigrations.CONFLICT_TABLE_NAME) == 5, "5 条记录移动到冲突表");
+        }
+        System.out.println("TestSchemaMigrations: OK");
+    }
+
+    private static void apply(Connection connection, List<Migration> migrations, int version) throws SQLException {
+        for (Migration migration : migrations) {
+            if (migration.version() == version) {
+                migration.migrate(connection);
+                connection.commit();
+                return;
+            }
+        }
+        throw new AssertionError("找不到迁移 V" + version);
+    }
+
+    private static void seed(Connection connection, String uuid, String kookId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + SchemaMigrations.LINK_USER_TABLE_NAME
+                + " (player_uuid, kook_id, player, userName, avatar, mobileVerified, joinedAt, nickName) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            ps.setString(1, uuid);
+            ps.setString(2, kookId);
+            ps.setString(3, "player");
+            ps.setString(4, "user");
+            ps.setString(5, "avatar");
+            ps.setBoolean(6, false);
+            ps.setLong(7, 0L);
+            ps.setString(8, "nick");
+            ps.executeUpdate();
+        }
+    }
+
+    private static int count(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}